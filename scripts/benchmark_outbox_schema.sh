@@ -0,0 +1,156 @@
+#!/bin/bash
+
+# Outbox Schema Benchmark
+# Compares the per-row cost of the outbox write path (ingest insert + dispatch
+# mark-sent) between the v1 layout (varchar status, attempts, status index,
+# portfolio-led polling index), the transition layout of the release shipping
+# Liquibase v11 (both columns, both index sets, sync trigger) and the compact
+# v2 layout left once v12 has contracted it.
+#
+# Runs against scratch tables in a throwaway schema; outbox_event is not touched.
+# Usage: ./benchmark_outbox_schema.sh [rows] [mark-sent batch size]
+
+ROWS=${1:-200000}
+BATCH=${2:-500}
+
+echo "═══════════════════════════════════════════════"
+echo "OUTBOX SCHEMA BENCHMARK (${ROWS} rows, mark-sent batches of ${BATCH})"
+echo "═══════════════════════════════════════════════"
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+BLUE='\033[0;34m'
+NC='\033[0m' # No Color
+
+print_status() {
+    local status=$1
+    local message=$2
+    case $status in
+        "PASS")
+            echo -e "${GREEN}✅ PASS${NC}: $message"
+            ;;
+        "FAIL")
+            echo -e "${RED}❌ FAIL${NC}: $message"
+            ;;
+        "INFO")
+            echo -e "${BLUE}ℹ️  INFO${NC}: $message"
+            ;;
+    esac
+}
+
+docker exec -i postgres psql -U pms -d pmsdb -v ON_ERROR_STOP=1 -q \
+    -v rows="$ROWS" -v batch="$BATCH" << 'EOF'
+DROP SCHEMA IF EXISTS outbox_bench CASCADE;
+CREATE SCHEMA outbox_bench;
+SET search_path = outbox_bench;
+
+-- v1: as created by v1/v5/v6 (one shard's worth)
+CREATE TABLE outbox_v1 (
+    id bigint PRIMARY KEY,
+    created_at timestamp NOT NULL DEFAULT now(),
+    portfolio_id uuid NOT NULL,
+    trade_id uuid NOT NULL,
+    payload bytea NOT NULL,
+    status varchar(20) NOT NULL DEFAULT 'PENDING',
+    attempts int DEFAULT 0,
+    sent_at timestamp,
+    trade_count int NOT NULL DEFAULT 1
+);
+CREATE INDEX ON outbox_v1 (portfolio_id, created_at, id) WHERE status = 'PENDING';
+CREATE INDEX ON outbox_v1 (status);
+CREATE INDEX ON outbox_v1 (sent_at) WHERE status = 'SENT';
+
+-- transition: after v11, before v12
+CREATE TABLE outbox_mid (LIKE outbox_v1 INCLUDING ALL);
+ALTER TABLE outbox_mid ADD COLUMN state smallint NOT NULL DEFAULT 0;
+CREATE INDEX ON outbox_mid (created_at, id) WHERE state = 0;
+CREATE INDEX ON outbox_mid (sent_at) WHERE state = 1;
+CREATE FUNCTION sync_state() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND NEW.status IS DISTINCT FROM OLD.status THEN
+        NEW.state := CASE NEW.status WHEN 'SENT' THEN 1 ELSE 0 END;
+    ELSE
+        NEW.status := CASE NEW.state WHEN 1 THEN 'SENT' ELSE 'PENDING' END;
+    END IF;
+    RETURN NEW;
+END
+$$;
+CREATE TRIGGER sync_state BEFORE INSERT OR UPDATE OF status, state ON outbox_mid
+    FOR EACH ROW EXECUTE FUNCTION sync_state();
+
+-- v2: after v12
+CREATE TABLE outbox_v2 (
+    id bigint PRIMARY KEY,
+    created_at timestamp NOT NULL DEFAULT now(),
+    portfolio_id uuid NOT NULL,
+    trade_id uuid NOT NULL,
+    payload bytea NOT NULL,
+    sent_at timestamp,
+    trade_count int NOT NULL DEFAULT 1,
+    state smallint NOT NULL DEFAULT 0
+);
+CREATE INDEX ON outbox_v2 (created_at, id) WHERE state = 0;
+CREATE INDEX ON outbox_v2 (sent_at) WHERE state = 1;
+
+CREATE TABLE result (
+    layout text, phase text, ms_per_1k_rows numeric, wal_bytes_per_row numeric,
+    hot_pct numeric, size_after text
+);
+
+-- Inserts like IngestJdbcRepository, then marks everything SENT in ID-ordered
+-- batches like the dispatcher. Timing and WAL come from inside the transaction.
+CREATE FUNCTION run(layout text, mark_sent text, rows int, batch int) RETURNS void AS $$
+DECLARE
+    t0 timestamptz;
+    lsn0 pg_lsn;
+    upd0 bigint;
+    hot0 bigint;
+    rel regclass := layout::regclass;
+BEGIN
+    t0 := clock_timestamp();
+    lsn0 := pg_current_wal_insert_lsn();
+    EXECUTE format('INSERT INTO %s (id, portfolio_id, trade_id, payload)
+                    SELECT g, (''00000000-0000-0000-0000-'' || lpad((g %% 500)::text, 12, ''0''))::uuid,
+                           gen_random_uuid(), decode(repeat(''ab'', 300), ''hex'')
+                    FROM generate_series(1, %s) g', rel, rows);
+    INSERT INTO result VALUES (layout, 'insert',
+        round(extract(epoch FROM clock_timestamp() - t0) * 1000 * 1000 / rows, 2),
+        round(pg_wal_lsn_diff(pg_current_wal_insert_lsn(), lsn0) / rows, 1), NULL,
+        pg_size_pretty(pg_total_relation_size(rel)));
+
+    upd0 := pg_stat_get_xact_tuples_updated(rel);
+    hot0 := pg_stat_get_xact_tuples_hot_updated(rel);
+    t0 := clock_timestamp();
+    lsn0 := pg_current_wal_insert_lsn();
+    FOR lo IN 1 .. rows BY batch LOOP
+        EXECUTE format('UPDATE %s SET %s, sent_at = CURRENT_TIMESTAMP WHERE id = ANY($1)',
+                       rel, mark_sent)
+            USING ARRAY(SELECT generate_series(lo, least(lo + batch - 1, rows))::bigint);
+    END LOOP;
+    INSERT INTO result VALUES (layout, 'mark-sent',
+        round(extract(epoch FROM clock_timestamp() - t0) * 1000 * 1000 / rows, 2),
+        round(pg_wal_lsn_diff(pg_current_wal_insert_lsn(), lsn0) / rows, 1),
+        round(100.0 * (pg_stat_get_xact_tuples_hot_updated(rel) - hot0)
+              / nullif(pg_stat_get_xact_tuples_updated(rel) - upd0, 0), 1),
+        pg_size_pretty(pg_total_relation_size(rel)));
+END
+$$ LANGUAGE plpgsql;
+
+SELECT run('outbox_v1', 'status = ''SENT''', :rows, :batch);
+SELECT run('outbox_mid', 'state = 1', :rows, :batch);
+SELECT run('outbox_v2', 'state = 1', :rows, :batch);
+
+\pset footer off
+SELECT * FROM result ORDER BY phase DESC, array_position(ARRAY['outbox_v1', 'outbox_mid', 'outbox_v2'], layout);
+
+DROP SCHEMA outbox_bench CASCADE;
+EOF
+
+if [ $? -eq 0 ]; then
+    print_status "PASS" "Benchmark completed"
+    print_status "INFO" "mark-sent is never HOT: it changes the partial indexes' predicate column and the indexed sent_at"
+else
+    print_status "FAIL" "Benchmark failed (is the postgres container running?)"
+    exit 1
+fi
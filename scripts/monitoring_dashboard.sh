@@ -64,8 +64,8 @@ get_container_health() {
 get_trade_counts() {
     local safe_store_count=$(docker exec -i postgres psql -U pms -d pmsdb -t -c "SELECT COUNT(*) FROM safe_store_trade;" 2>/dev/null | tr -d ' ')
     local outbox_count=$(docker exec -i postgres psql -U pms -d pmsdb -t -c "SELECT COUNT(*) FROM outbox_event;" 2>/dev/null | tr -d ' ')
-    local sent_count=$(docker exec -i postgres psql -U pms -d pmsdb -t -c "SELECT COUNT(*) FROM outbox_event WHERE status = 'SENT';" 2>/dev/null | tr -d ' ')
-    local pending_count=$(docker exec -i postgres psql -U pms -d pmsdb -t -c "SELECT COUNT(*) FROM outbox_event WHERE status = 'PENDING';" 2>/dev/null | tr -d ' ')
+    local sent_count=$(docker exec -i postgres psql -U pms -d pmsdb -t -c "SELECT COUNT(*) FROM outbox_event WHERE state = 1;" 2>/dev/null | tr -d ' ')
+    local pending_count=$(docker exec -i postgres psql -U pms -d pmsdb -t -c "SELECT COUNT(*) FROM outbox_event WHERE state = 0;" 2>/dev/null | tr -d ' ')
     local dlq_count=$(docker exec -i postgres psql -U pms -d pmsdb -t -c "SELECT COUNT(*) FROM dlq_entry;" 2>/dev/null | tr -d ' ')
     
     echo "$safe_store_count|$outbox_count|$sent_count|$pending_count|$dlq_count"
@@ -3,7 +3,9 @@ package com.pms.pms_trade_capture.config;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -15,26 +17,61 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 @Configuration
 public class AppInfraConfig {
     @Bean("outboxExecutor")
-    public Executor outboxExecutor() {
+    public Executor outboxExecutor(@Value("${app.outbox.concurrency:1}") int workers) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        // Core=1 ensures strict ordering (Single Threaded Consumer)
-        // If pods scaled, DB "SKIP LOCKED" handles concurrency.
-        executor.setCorePoolSize(1);
-        executor.setMaxPoolSize(1);
+        // One thread per dispatch worker. Ordering holds because a portfolio is only
+        // ever polled by one worker (one outbox shard each, or a single worker for the
+        // whole table). If pods scaled, advisory locks handle concurrency.
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
         executor.setQueueCapacity(0); // Synchronous hand-off preferred for polling loops
         executor.setThreadNamePrefix("outbox-worker-");
+        // Outbox polling and marking use the dispatch connection pool
+        executor.setTaskDecorator(DbWorkload.DISPATCH::bind);
         executor.initialize();
         return executor;
     }
 
     /**
-     * Dedicated Single-Thread Scheduler for the Ingestion Buffer Flush.
+     * Background sequence block fetches (see IdAllocators). One thread is enough:
+     * each allocator has at most one fetch in flight.
+     */
+    @Bean("idPrefetchExecutor")
+    public Executor idPrefetchExecutor() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "id-prefetch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Periodic broker offset stores (see StreamOffsetManager). Kept off the
+     * ingest scheduler, whose threads are owned by the flusher loops.
+     */
+    @Bean("offsetCommitScheduler")
+    public ScheduledExecutorService offsetCommitScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "offset-committer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Dedicated Scheduler for the Ingestion Buffer Flush.
+     * One thread per consumed stream (a single thread outside super stream mode);
+     * each pipeline's event-driven flusher loop owns one of them for its lifetime.
      * Defined here so it is managed by Spring container.
      */
     @Bean("ingestScheduler")
-    public ScheduledExecutorService ingestScheduler() {
-        return Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "ingest-flusher");
+    public ScheduledExecutorService ingestScheduler(RabbitStreamConfig rabbitConfig) {
+        int threads = rabbitConfig.getPartitionStreams().size();
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newScheduledThreadPool(threads, r -> {
+            String name = threads == 1 ? "ingest-flusher" : "ingest-flusher-" + counter.getAndIncrement();
+            // Flusher loops (and their batch transactions) use the ingest connection pool
+            Thread t = new Thread(DbWorkload.INGEST.bind(r), name);
             t.setDaemon(true);
             return t;
         });
@@ -0,0 +1,64 @@
+package com.pms.pms_trade_capture.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Workload-isolated connection pools behind the application DataSource
+ * (see {@link WorkloadRoutingDataSource}). Shared settings come from
+ * spring.datasource and spring.datasource.hikari; sizes are per workload.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig baseHikariConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    @Primary
+    public WorkloadRoutingDataSource dataSource(DataSourceProperties properties,
+            HikariConfig baseHikariConfig,
+            MeterRegistry registry,
+            @Value("${app.datasource.pools.ingest:12}") int ingestSize,
+            @Value("${app.datasource.pools.dispatch:5}") int dispatchSize,
+            @Value("${app.datasource.pools.dlq:2}") int dlqSize,
+            @Value("${app.datasource.pools.default:3}") int defaultSize,
+            @Value("${app.datasource.arbitration.max-yield-ms:50}") long maxYieldMs) {
+        Map<DbWorkload, HikariDataSource> pools = new EnumMap<>(DbWorkload.class);
+        pools.put(DbWorkload.INGEST, pool(properties, baseHikariConfig, registry, "ingest", ingestSize));
+        pools.put(DbWorkload.DISPATCH, pool(properties, baseHikariConfig, registry, "dispatch", dispatchSize));
+        pools.put(DbWorkload.DLQ, pool(properties, baseHikariConfig, registry, "dlq", dlqSize));
+        pools.put(DbWorkload.DEFAULT, pool(properties, baseHikariConfig, registry, "default", defaultSize));
+        return new WorkloadRoutingDataSource(pools, maxYieldMs, registry);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, HikariConfig base,
+            MeterRegistry registry, String workload, int size) {
+        HikariConfig config = new HikariConfig();
+        base.copyStateTo(config);
+        config.setJdbcUrl(properties.determineUrl());
+        config.setUsername(properties.determineUsername());
+        config.setPassword(properties.determinePassword());
+        config.setPoolName("trade-capture-" + workload);
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(Math.min(size, base.getMinimumIdle() < 0 ? size : base.getMinimumIdle()));
+        // hikaricp.connections.acquire/pending/usage tagged pool=trade-capture-<workload>
+        config.setMetricRegistry(registry);
+        return new HikariDataSource(config);
+    }
+}
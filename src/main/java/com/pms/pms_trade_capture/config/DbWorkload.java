@@ -0,0 +1,62 @@
+package com.pms.pms_trade_capture.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Database workload of the current thread; selects the connection pool
+ * (see {@link WorkloadRoutingDataSource}).
+ *
+ * Long-lived worker threads bind their workload once at start (ingest
+ * flushers/writers, outbox workers). Short excursions into another workload,
+ * such as an ingest thread writing a DLQ entry, use {@link #call(Supplier)},
+ * which restores the previous binding. The key must be set before the
+ * transaction starts: the connection is picked when it is first acquired.
+ */
+public enum DbWorkload {
+    INGEST,
+    DISPATCH,
+    DLQ,
+    /** Startup (Liquibase, warm-up), admin endpoints, background jobs */
+    DEFAULT;
+
+    private static final ThreadLocal<DbWorkload> CURRENT = new ThreadLocal<>();
+
+    public static DbWorkload current() {
+        DbWorkload workload = CURRENT.get();
+        return workload == null ? DEFAULT : workload;
+    }
+
+    /** Binds this workload to the calling thread for its lifetime. */
+    public void bindCurrentThread() {
+        CURRENT.set(this);
+    }
+
+    /** Wraps a thread body so the thread runs under this workload. */
+    public Runnable bind(Runnable body) {
+        return () -> {
+            bindCurrentThread();
+            body.run();
+        };
+    }
+
+    public <T> T call(Supplier<T> action) {
+        DbWorkload previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -6,7 +6,7 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
-import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +14,7 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import com.pms.pms_trade_capture.outbox.PassThroughProtobufSerializer;
 import com.pms.trade_capture.proto.TradeEventProto;
 
 import java.util.HashMap;
@@ -39,12 +40,28 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id:trade-capture-consumer}")
     private String metricsConsumerGroupId;
 
-    public ProducerFactory<String, TradeEventProto> producerFactory() {
+    public ProducerFactory<byte[], TradeEventProto> producerFactory() {
+        Map<String, Object> config = producerConfig();
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaProtobufSerializer.class);
+        return new DefaultKafkaProducerFactory<>(config);
+    }
+
+    /**
+     * Producer for pass-through payload mode: values are the stored protobuf
+     * bytes, framed with the Confluent header but never parsed or re-encoded.
+     */
+    public ProducerFactory<byte[], byte[]> rawProducerFactory() {
+        Map<String, Object> config = producerConfig();
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PassThroughProtobufSerializer.class);
+        return new DefaultKafkaProducerFactory<>(config);
+    }
+
+    private Map<String, Object> producerConfig() {
         Map<String, Object> config = new HashMap<>();
 
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaProtobufSerializer.class);
+        // Keys are pre-encoded portfolio IDs (PortfolioIdCache), same bytes StringSerializer would write
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
         config.put(KafkaProtobufSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG, schemaRegistryUrl);
         config.put(KafkaProtobufSerializerConfig.AUTO_REGISTER_SCHEMAS, true);
 
@@ -58,16 +75,20 @@ public class KafkaConfig {
         config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
         config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "gzip");
 
-        return new DefaultKafkaProducerFactory<>(config);
-
+        return config;
     }
 
     @Bean(name = "tradeEventKafkaTemplate")
     @Primary
-    public KafkaTemplate<String, TradeEventProto> tradeEventKafkaTemplate() {
+    public KafkaTemplate<byte[], TradeEventProto> tradeEventKafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    @Bean(name = "rawTradeEventKafkaTemplate")
+    public KafkaTemplate<byte[], byte[]> rawTradeEventKafkaTemplate() {
+        return new KafkaTemplate<>(rawProducerFactory());
+    }
+
     /**
      * Kafka consumer bean for queue metrics monitoring
      * Used by QueueMetricsService to query offset positions
@@ -1,6 +1,8 @@
 package com.pms.pms_trade_capture.config;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,10 +38,51 @@ public class RabbitStreamConfig {
     @Value("${app.rabbit.stream.consumer-name}")
     private String consumerName;
 
+    // Super stream mode: streamName becomes the super stream, partitioned by portfolio hash
+    @Value("${app.rabbit.stream.super-stream.enabled:false}")
+    private boolean superStreamEnabled;
+
+    @Value("${app.rabbit.stream.super-stream.partitions:3}")
+    private int superStreamPartitions;
+
+    // Flow control: 'blocking' (auto credits, buffer put() blocks the client thread)
+    // or 'credits' (manual credits granted as the ingest buffer drains)
+    @Value("${app.rabbit.stream.flow-control.mode:blocking}")
+    private String flowControlMode;
+
+    @Value("${app.rabbit.stream.flow-control.initial-credits:2}")
+    private int initialCredits;
+
+    @Value("${app.rabbit.stream.flow-control.max-in-flight-messages:5000}")
+    private long maxInFlightMessages;
+
+    public boolean isCreditFlowControl() {
+        return "credits".equalsIgnoreCase(flowControlMode);
+    }
+
+    /**
+     * Physical streams this instance consumes from.
+     * Single stream mode returns the stream itself; super stream mode returns
+     * one partition stream per partition ({@code <name>-0 .. <name>-(n-1)}),
+     * which is the naming RabbitMQ uses for super stream partitions.
+     */
+    public List<String> getPartitionStreams() {
+        if (!superStreamEnabled) {
+            return List.of(streamName);
+        }
+        List<String> partitions = new ArrayList<>(superStreamPartitions);
+        for (int i = 0; i < superStreamPartitions; i++) {
+            partitions.add(streamName + "-" + i);
+        }
+        return partitions;
+    }
+
     @Bean(destroyMethod = "close")
     public Environment rabbitStreamEnvironment() {
         log.info("Initializing RabbitMQ Stream Environment connecting to {}:{}", host, port);
 
+        // One consumer per connection: in super stream mode every partition consumer
+        // gets its own connection and therefore its own dispatch thread.
         return Environment.builder()
                 .host(host)
                 .port(port)
@@ -53,6 +96,18 @@ public class RabbitStreamConfig {
     @Bean
     public String streamDeclaration(Environment environment) {
         try {
+            if (superStreamEnabled) {
+                log.info("Attempting to declare super stream: {} ({} partitions)", streamName, superStreamPartitions);
+                environment.streamCreator()
+                        .name(streamName)
+                        .superStream()
+                        .partitions(superStreamPartitions)
+                        .creator()
+                        .maxAge(Duration.ofHours(24))
+                        .create();
+                log.info("Super stream '{}' created successfully.", streamName);
+                return "created";
+            }
             log.info("Attempting to declare stream: {}", streamName);
             environment.streamCreator()
                     .stream(streamName)
@@ -0,0 +1,108 @@
+package com.pms.pms_trade_capture.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One Hikari pool per {@link DbWorkload}, selected by the calling thread's
+ * workload. The single EntityManagerFactory and transaction manager sit on
+ * top, so JPA repositories work unchanged while a dispatch backlog or a DLQ
+ * storm can only exhaust its own pool.
+ *
+ * Priority arbitration: ingest commits gate stream progress. While ingest
+ * threads are waiting for a connection, lower-priority workloads yield for up
+ * to {@code maxYieldMs} before acquiring theirs, leaving database capacity to
+ * the ingest pool.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final Map<DbWorkload, HikariDataSource> pools;
+    private final long maxYieldNanos;
+    private final Map<DbWorkload, Counter> yields = new EnumMap<>(DbWorkload.class);
+
+    public WorkloadRoutingDataSource(Map<DbWorkload, HikariDataSource> pools, long maxYieldMs,
+            MeterRegistry registry) {
+        this.pools = new EnumMap<>(pools);
+        this.maxYieldNanos = TimeUnit.MILLISECONDS.toNanos(maxYieldMs);
+
+        Map<Object, Object> targets = new HashMap<>(pools);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(pools.get(DbWorkload.DEFAULT));
+        setLenientFallback(false);
+
+        for (Map.Entry<DbWorkload, HikariDataSource> entry : this.pools.entrySet()) {
+            String pool = entry.getValue().getPoolName();
+            HikariDataSource ds = entry.getValue();
+            Gauge.builder("trade.db.pool.saturation", ds, WorkloadRoutingDataSource::saturation)
+                    .description("(active + waiting) / max connections; above 1 means callers are queueing")
+                    .tag("pool", pool)
+                    .register(registry);
+            yields.put(entry.getKey(), Counter.builder("trade.db.arbitration.yields")
+                    .description("Connection requests delayed because ingest was waiting for a connection")
+                    .tag("pool", pool)
+                    .register(registry));
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return DbWorkload.current();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        yieldToIngest();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        yieldToIngest();
+        return super.getConnection(username, password);
+    }
+
+    private void yieldToIngest() {
+        DbWorkload workload = DbWorkload.current();
+        if (workload == DbWorkload.INGEST || maxYieldNanos <= 0) {
+            return;
+        }
+        HikariPoolMXBean ingest = pools.get(DbWorkload.INGEST).getHikariPoolMXBean();
+        if (ingest == null || ingest.getThreadsAwaitingConnection() == 0) {
+            return;
+        }
+        yields.get(workload).increment();
+        long deadline = System.nanoTime() + maxYieldNanos;
+        while (ingest.getThreadsAwaitingConnection() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private static double saturation(HikariDataSource ds) {
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        if (pool == null || ds.getMaximumPoolSize() == 0) {
+            return 0;
+        }
+        return (double) (pool.getActiveConnections() + pool.getThreadsAwaitingConnection())
+                / ds.getMaximumPoolSize();
+    }
+
+    @Override
+    public void destroy() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
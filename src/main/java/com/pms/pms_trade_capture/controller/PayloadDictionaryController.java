@@ -0,0 +1,35 @@
+package com.pms.pms_trade_capture.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pms.pms_trade_capture.service.PayloadDictionaryTrainer;
+import com.pms.pms_trade_capture.service.PayloadDictionaryTrainer.TrainingResult;
+
+@RestController
+@RequestMapping("/admin/payload-dictionary")
+public class PayloadDictionaryController {
+
+    private final PayloadDictionaryTrainer trainer;
+
+    public PayloadDictionaryController(PayloadDictionaryTrainer trainer) {
+        this.trainer = trainer;
+    }
+
+    @PostMapping("/train")
+    public ResponseEntity<String> train(@RequestParam(defaultValue = "50000") int samples,
+            @RequestParam(defaultValue = "16384") int size) {
+        try {
+            TrainingResult result = trainer.train(samples, size);
+            return ResponseEntity.ok(String.format(
+                    "Dictionary %d active: %d samples, %d bytes, %d -> %d payload bytes (ratio %.2f)",
+                    result.dictionaryId(), result.samples(), result.dictionaryBytes(),
+                    result.plainBytes(), result.compressedBytes(), result.ratio()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
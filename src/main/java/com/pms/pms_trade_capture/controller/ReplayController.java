@@ -10,22 +10,25 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.pms.pms_trade_capture.domain.PendingStreamMessage;
 import com.pms.pms_trade_capture.service.BatchingIngestService;
+import com.pms.pms_trade_capture.utils.PayloadCodec;
 
 @RestController
 @RequestMapping("/admin/replay")
 public class ReplayController {
 
     private final BatchingIngestService ingestService;
+    private final PayloadCodec payloadCodec;
 
-    public ReplayController(BatchingIngestService ingestService) {
+    public ReplayController(BatchingIngestService ingestService, PayloadCodec payloadCodec) {
         this.ingestService = ingestService;
+        this.payloadCodec = payloadCodec;
     }
 
     @PostMapping("/hex")
     public ResponseEntity<String> replayHexTrade(@RequestBody String hexData) {
         try {
-            // Convert hex string to bytes
-            byte[] rawBytes = HexFormat.of().parseHex(hexData);
+            // Convert hex string to bytes; DLQ raw_message may be stored compressed
+            byte[] rawBytes = payloadCodec.decode(HexFormat.of().parseHex(hexData));
 
             // Create message for replay (dummy offset, no RabbitMQ context needed)
             PendingStreamMessage msg = new PendingStreamMessage(null, rawBytes, -1, null);
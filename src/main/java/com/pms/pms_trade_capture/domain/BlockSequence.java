@@ -0,0 +1,20 @@
+package com.pms.pms_trade_capture.domain;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Generates the ID from the table's prefetched sequence block
+ * (see {@link com.pms.pms_trade_capture.utils.IdAllocators}).
+ */
+@IdGeneratorType(BlockSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD })
+public @interface BlockSequence {
+    /** Sequence name; its increment_by is the block size. */
+    String value();
+}
@@ -0,0 +1,34 @@
+package com.pms.pms_trade_capture.domain;
+
+import java.util.EnumSet;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import com.pms.pms_trade_capture.utils.IdAllocators;
+
+/**
+ * Hibernate side of {@link BlockSequence}: no sequence round trip on persist,
+ * the ID comes from the allocator's in-memory block.
+ */
+public class BlockSequenceGenerator implements BeforeExecutionGenerator {
+
+    private final String sequenceName;
+
+    public BlockSequenceGenerator(BlockSequence config) {
+        this.sequenceName = config.value();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+            EventType eventType) {
+        return IdAllocators.current().forSequence(sequenceName).next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,11 @@
+package com.pms.pms_trade_capture.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cursor dispatch progress of one portfolio bucket: every valid safe_store_trade
+ * row of the bucket up to {@code lastId} has been published (or dead-lettered).
+ * {@code lastReceivedAt} bounds the next scan to recent partitions.
+ */
+public record DispatchCursor(int bucket, long lastId, LocalDateTime lastReceivedAt) {
+}
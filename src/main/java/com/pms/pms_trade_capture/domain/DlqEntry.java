@@ -7,10 +7,7 @@ import org.hibernate.type.SqlTypes;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,8 +18,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class DlqEntry {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dlq_seq")
-    @SequenceGenerator(name = "dlq_seq", sequenceName = "dlq_entry_seq", allocationSize = 1)
+    @BlockSequence("dlq_entry_seq")
     private Long id;
 
     @Column(name = "failed_at", nullable = false)
@@ -5,10 +5,7 @@ import java.util.UUID;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,8 +16,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class OutboxEvent {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "safe_store_seq")
-    @SequenceGenerator(name = "safe_store_seq", sequenceName = "safe_store_trade_seq", allocationSize = 50)
+    @BlockSequence("outbox_event_seq")
     private Long id;
 
     @Column(name = "created_at", nullable = false)
@@ -37,11 +33,14 @@ public class OutboxEvent {
     @Column(name = "payload", nullable = false)
     private byte[] payload;
 
-    @Column(name = "status", nullable = false)
-    private String status = "PENDING";
+    // OutboxState
+    @Column(name = "state", nullable = false)
+    private short state = OutboxState.PENDING;
 
-    @Column(name = "attempts", nullable = false)
-    private int attempts = 0;
+    // > 1: portfolio-batched row, payload is a PayloadArrayCodec array of that many
+    // trades (tradeId is the first one's)
+    @Column(name = "trade_count", nullable = false)
+    private int tradeCount = 1;
 
     /**
      * Constructor for creating new outbox events with proper initialization.
@@ -50,7 +49,11 @@ public class OutboxEvent {
         this.portfolioId = portfolioId;
         this.tradeId = tradeId;
         this.payload = payload;
-        this.status = "PENDING";
+        this.state = OutboxState.PENDING;
         this.createdAt = LocalDateTime.now();
     }
+
+    public boolean isBatched() {
+        return tradeCount > 1;
+    }
 }
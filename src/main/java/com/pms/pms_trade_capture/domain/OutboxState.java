@@ -0,0 +1,16 @@
+package com.pms.pms_trade_capture.domain;
+
+/**
+ * Codes of outbox_event.state. The values appear as literals in the outbox
+ * queries and in the predicates of the partial indexes (idx_outbox_pending,
+ * idx_outbox_sent), which only match a literal-equal condition: never
+ * renumber.
+ */
+public final class OutboxState {
+
+    public static final short PENDING = 0;
+    public static final short SENT = 1;
+
+    private OutboxState() {
+    }
+}
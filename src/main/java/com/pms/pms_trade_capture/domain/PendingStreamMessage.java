@@ -1,5 +1,7 @@
 package com.pms.pms_trade_capture.domain;
 
+import com.pms.pms_trade_capture.dto.ScannedTrade;
+import com.pms.pms_trade_capture.dto.ValidatedTrade;
 import com.pms.trade_capture.proto.TradeEventProto;
 import com.rabbitmq.stream.MessageHandler;
 
@@ -20,10 +22,20 @@ import lombok.Getter;
  * - Stores MessageHandler.Context for manual offset management
  * - Immutable design for thread-safety across consumer/flush threads
  * - Raw bytes preserved for DLQ/audit trail
+ * 
+ * A valid message carries either the fully parsed {@code trade} or, in
+ * pass-through payload mode, only the {@code scannedTrade} fields; in that
+ * mode {@code rawMessageBytes} is the one canonical payload down to Kafka.
+ *
+ * Messages from the stream also carry the {@code validated} fields (parsed
+ * UUIDs, normalized values); admin replay and older callers may leave it null,
+ * in which case the fields are resolved at persistence time.
  */
 @Getter
 public class PendingStreamMessage {
     private final TradeEventProto trade;
+    private final ScannedTrade scannedTrade;
+    private final ValidatedTrade validated;
     private final byte[] rawMessageBytes;
     private final long offset;
     private final String parseError;
@@ -36,7 +48,17 @@ public class PendingStreamMessage {
      */
     public PendingStreamMessage(TradeEventProto trade, byte[] rawMessageBytes, long offset,
             MessageHandler.Context context) {
+        this(trade, null, rawMessageBytes, offset, context);
+    }
+
+    /**
+     * Valid message constructor with pre-validated fields
+     */
+    public PendingStreamMessage(TradeEventProto trade, ValidatedTrade validated, byte[] rawMessageBytes,
+            long offset, MessageHandler.Context context) {
         this.trade = trade;
+        this.scannedTrade = null;
+        this.validated = validated;
         this.rawMessageBytes = rawMessageBytes;
         this.offset = offset;
         this.parseError = null;
@@ -49,13 +71,64 @@ public class PendingStreamMessage {
     public PendingStreamMessage(byte[] rawMessageBytes, long offset, String parseError,
             MessageHandler.Context context) {
         this.trade = null;
+        this.scannedTrade = null;
+        this.validated = null;
         this.rawMessageBytes = rawMessageBytes;
         this.offset = offset;
         this.parseError = parseError;
         this.context = context;
     }
 
+    private PendingStreamMessage(ScannedTrade scannedTrade, ValidatedTrade validated, byte[] rawMessageBytes,
+            long offset, MessageHandler.Context context) {
+        this.trade = null;
+        this.scannedTrade = scannedTrade;
+        this.validated = validated;
+        this.rawMessageBytes = rawMessageBytes;
+        this.offset = offset;
+        this.parseError = null;
+        this.context = context;
+    }
+
+    /**
+     * Valid message in pass-through payload mode (fields scanned, not parsed)
+     */
+    public static PendingStreamMessage passThrough(ScannedTrade scannedTrade, byte[] rawMessageBytes, long offset,
+            MessageHandler.Context context) {
+        return new PendingStreamMessage(scannedTrade, null, rawMessageBytes, offset, context);
+    }
+
+    /**
+     * Valid message in pass-through payload mode with pre-validated fields
+     */
+    public static PendingStreamMessage passThrough(ScannedTrade scannedTrade, ValidatedTrade validated,
+            byte[] rawMessageBytes, long offset, MessageHandler.Context context) {
+        return new PendingStreamMessage(scannedTrade, validated, rawMessageBytes, offset, context);
+    }
+
     public boolean isValid() {
-        return trade != null && parseError == null;
+        return (trade != null || scannedTrade != null) && parseError == null;
+    }
+
+    public boolean isPassThrough() {
+        return scannedTrade != null;
+    }
+
+    /**
+     * Trade ID of a valid message regardless of payload mode, null otherwise.
+     */
+    public String getTradeId() {
+        if (trade != null)
+            return trade.getTradeId();
+        return scannedTrade != null ? scannedTrade.getTradeId() : null;
+    }
+
+    /**
+     * Portfolio ID of a valid message regardless of payload mode, null otherwise.
+     */
+    public String getPortfolioId() {
+        if (trade != null)
+            return trade.getPortfolioId();
+        return scannedTrade != null ? scannedTrade.getPortfolioId() : null;
     }
 }
@@ -8,10 +8,7 @@ import org.hibernate.type.SqlTypes;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,8 +19,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class SafeStoreTrade {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "safe_store_seq")
-    @SequenceGenerator(name = "safe_store_seq", sequenceName = "safe_store_trade_seq", allocationSize = 50)
+    @BlockSequence("safe_store_trade_seq")
     private Long id;
 
     @Column(name = "received_at", nullable = false)
@@ -42,12 +38,22 @@ public class SafeStoreTrade {
     @JdbcTypeCode(SqlTypes.VARBINARY)
     private byte[] rawPayload;
 
-    @Column(nullable = false)
+    // Text only for rows without a dictionary ID / side code (older rows, invalid
+    // rows, sides without a code); see the safe_store_trade_decoded view
+    @Column
     private String symbol;
 
-    @Column(nullable = false)
+    @Column
     private String side;
 
+    // symbol_dictionary.symbol_id
+    @Column(name = "symbol_id")
+    private Integer symbolId;
+
+    // SideCode
+    @Column(name = "side_code")
+    private Short sideCode;
+
     @Column(name = "price_per_stock", nullable = false)
     private double pricePerStock;
 
@@ -0,0 +1,37 @@
+package com.pms.pms_trade_capture.domain;
+
+/**
+ * One-byte codes of the trade sides in safe_store_trade.side_code. Sides
+ * without a code (other configured sides, invalid rows) keep the text column.
+ * Codes are persisted: never renumber, only add.
+ */
+public final class SideCode {
+
+    public static final byte NONE = 0;
+    public static final byte BUY = 1;
+    public static final byte SELL = 2;
+
+    private SideCode() {
+    }
+
+    /** @return the side's code, or {@link #NONE} */
+    public static byte of(String side) {
+        if (side == null) {
+            return NONE;
+        }
+        return switch (side) {
+            case "BUY" -> BUY;
+            case "SELL" -> SELL;
+            default -> NONE;
+        };
+    }
+
+    /** @return the side of a code, or null for {@link #NONE} and unknown codes */
+    public static String sideOf(byte code) {
+        return switch (code) {
+            case BUY -> "BUY";
+            case SELL -> "SELL";
+            default -> null;
+        };
+    }
+}
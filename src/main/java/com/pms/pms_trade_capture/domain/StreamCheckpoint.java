@@ -0,0 +1,8 @@
+package com.pms.pms_trade_capture.domain;
+
+/**
+ * Highest stream offset up to which every message is durably persisted.
+ * Written in the same transaction as the rows it covers.
+ */
+public record StreamCheckpoint(String stream, long offset) {
+}
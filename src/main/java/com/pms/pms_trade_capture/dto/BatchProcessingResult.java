@@ -8,11 +8,18 @@ import java.util.List;
 /**
  * Result of batch processing operation.
  * Contains the successful prefix and any poison pill that was encountered.
+ * Trades rejected inside a portfolio-batched row that was otherwise sent are
+ * reported separately, for the caller to dead-letter with the row's update.
  */
 public class BatchProcessingResult {
     private final List<Long> successfulIds;
     private final PoisonPillException poisonPill;
     private final boolean systemFailureOccurred;
+    private final List<Rejected> rejected = new ArrayList<>();
+
+    /** A single trade payload from a batched row that could not be published. */
+    public record Rejected(long eventId, byte[] payload, String reason) {
+    }
 
     private BatchProcessingResult(List<Long> successfulIds, PoisonPillException poisonPill,
             boolean systemFailureOccurred) {
@@ -49,6 +56,15 @@ public class BatchProcessingResult {
         return systemFailureOccurred;
     }
 
+    public BatchProcessingResult withRejected(List<Rejected> rejectedTrades) {
+        rejected.addAll(rejectedTrades);
+        return this;
+    }
+
+    public List<Rejected> getRejected() {
+        return rejected;
+    }
+
     public boolean isFullSuccess() {
         return !hasPoisonPill() && !hasSystemFailure();
     }
@@ -0,0 +1,57 @@
+package com.pms.pms_trade_capture.dto;
+
+/**
+ * Flat view of the TradeEventProto fields the safe store needs, extracted by
+ * {@link TradeEventScanner} without materializing a protobuf message.
+ * The raw bytes stay the canonical payload; this only carries what we index on.
+ */
+public class ScannedTrade {
+    String portfolioId = "";
+    String tradeId = "";
+    String symbol = "";
+    String side = "";
+    double pricePerStock;
+    long quantity;
+    boolean hasTimestamp;
+    long timestampSeconds;
+    int timestampNanos;
+
+    ScannedTrade() {
+    }
+
+    public String getPortfolioId() {
+        return portfolioId;
+    }
+
+    public String getTradeId() {
+        return tradeId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    public double getPricePerStock() {
+        return pricePerStock;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public boolean hasTimestamp() {
+        return hasTimestamp;
+    }
+
+    public long getTimestampSeconds() {
+        return timestampSeconds;
+    }
+
+    public int getTimestampNanos() {
+        return timestampNanos;
+    }
+}
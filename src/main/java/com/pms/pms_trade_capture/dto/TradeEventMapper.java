@@ -14,9 +14,19 @@ public class TradeEventMapper {
      * Convert Protobuf Message -> Audit Log Entity
      */
     public static SafeStoreTrade protoToSafeStoreTrade(TradeEventProto proto, byte[] rawMessage) {
-        return new SafeStoreTrade(
+        return protoToSafeStoreTrade(proto, rawMessage,
                 UUID.fromString(proto.getPortfolioId()),
-                UUID.fromString(proto.getTradeId()),
+                UUID.fromString(proto.getTradeId()));
+    }
+
+    /**
+     * Convert Protobuf Message -> Audit Log Entity using already resolved IDs
+     */
+    public static SafeStoreTrade protoToSafeStoreTrade(TradeEventProto proto, byte[] rawMessage,
+            UUID portfolioId, UUID tradeId) {
+        return new SafeStoreTrade(
+                portfolioId,
+                tradeId,
                 proto.getSymbol(),
                 proto.getSide(),
                 proto.getPricePerStock(),
@@ -60,6 +70,26 @@ public class TradeEventMapper {
         return new OutboxEvent(dto.portfolioId, dto.tradeId, payload);
     }
 
+    /**
+     * Convert scanned fields -> Audit Log Entity (pass-through payload mode)
+     */
+    public static SafeStoreTrade scannedToSafeStoreTrade(ScannedTrade trade, byte[] rawMessage,
+            UUID portfolioId, UUID tradeId) {
+        return new SafeStoreTrade(
+                portfolioId,
+                tradeId,
+                trade.getSymbol(),
+                trade.getSide(),
+                trade.getPricePerStock(),
+                trade.getQuantity(),
+                // Unset timestamp reads as epoch, same as the parsed path
+                LocalDateTime.ofInstant(
+                        Instant.ofEpochSecond(trade.getTimestampSeconds(), trade.getTimestampNanos()),
+                        ZoneOffset.UTC),
+                rawMessage
+        );
+    }
+
     // Helper: Google Timestamp -> Java LocalDateTime (UTC)
     private static LocalDateTime protoTimestampToLocalDateTime(com.google.protobuf.Timestamp ts) {
         if (ts == null) return LocalDateTime.now();
@@ -69,6 +99,22 @@ public class TradeEventMapper {
         );
     }
 
+    /**
+     * Convert pre-validated fields -> Audit Log Entity (no parsing left to fail)
+     */
+    public static SafeStoreTrade validatedToSafeStoreTrade(ValidatedTrade trade, byte[] rawMessage) {
+        return new SafeStoreTrade(
+                trade.portfolioId(),
+                trade.tradeId(),
+                trade.symbol(),
+                trade.side(),
+                trade.pricePerStock(),
+                trade.quantity(),
+                trade.eventTimestamp(),
+                rawMessage
+        );
+    }
+
     /**
      * Helper to map a PendingStreamMessage directly to a SafeStoreTrade entity.
      * Used by the BatchingIngestService.
@@ -77,6 +123,24 @@ public class TradeEventMapper {
         if (!message.isValid()) {
             throw new IllegalArgumentException("Cannot map invalid pending message to trade entity");
         }
-        return protoToSafeStoreTrade(message.getTrade(), message.getRawMessageBytes());
+        return pendingMessageToSafeStoreTrade(message,
+                UUID.fromString(message.getPortfolioId()),
+                UUID.fromString(message.getTradeId()));
+    }
+
+    /**
+     * Same as {@link #pendingMessageToSafeStoreTrade(PendingStreamMessage)} with IDs
+     * resolved by the caller (interned portfolio UUID, fast-parsed trade UUID).
+     */
+    public static SafeStoreTrade pendingMessageToSafeStoreTrade(PendingStreamMessage message,
+            UUID portfolioId, UUID tradeId) {
+        if (!message.isValid()) {
+            throw new IllegalArgumentException("Cannot map invalid pending message to trade entity");
+        }
+        if (message.isPassThrough()) {
+            return scannedToSafeStoreTrade(message.getScannedTrade(), message.getRawMessageBytes(),
+                    portfolioId, tradeId);
+        }
+        return protoToSafeStoreTrade(message.getTrade(), message.getRawMessageBytes(), portfolioId, tradeId);
     }
 }
@@ -0,0 +1,122 @@
+package com.pms.pms_trade_capture.dto;
+
+import java.io.IOException;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Field-selective reader for TradeEventProto wire bytes.
+ *
+ * Walks the tags once and copies out only the scalar fields the safe store
+ * needs, skipping everything else. No message, builder or nested Timestamp
+ * object is created, and the input bytes are never re-encoded, so they can be
+ * persisted and published as-is (pass-through payload mode).
+ *
+ * Field numbers mirror trade_event.proto and must be kept in sync with it.
+ */
+public final class TradeEventScanner {
+
+    private static final int PORTFOLIO_ID = 1;
+    private static final int TRADE_ID = 2;
+    private static final int SYMBOL = 3;
+    private static final int SIDE = 4;
+    private static final int PRICE_PER_STOCK = 5;
+    private static final int QUANTITY = 6;
+    private static final int TIMESTAMP = 7;
+
+    // google.protobuf.Timestamp
+    private static final int TS_SECONDS = 1;
+    private static final int TS_NANOS = 2;
+
+    private TradeEventScanner() {
+    }
+
+    /**
+     * Extracts the safe store fields from a serialized TradeEventProto.
+     * Like the generated parser, unknown fields and fields with an unexpected
+     * wire type are skipped.
+     *
+     * @throws InvalidProtocolBufferException if the bytes are not a well-formed message
+     */
+    public static ScannedTrade scan(byte[] payload) throws InvalidProtocolBufferException {
+        ScannedTrade trade = new ScannedTrade();
+        CodedInputStream in = CodedInputStream.newInstance(payload);
+        try {
+            int tag;
+            while ((tag = in.readTag()) != 0) {
+                switch (tag) {
+                    case (PORTFOLIO_ID << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> trade.portfolioId = in.readStringRequireUtf8();
+                    case (TRADE_ID << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> trade.tradeId = in.readStringRequireUtf8();
+                    case (SYMBOL << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> trade.symbol = in.readStringRequireUtf8();
+                    case (SIDE << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> trade.side = in.readStringRequireUtf8();
+                    case (PRICE_PER_STOCK << 3) | WireFormat.WIRETYPE_FIXED64 -> trade.pricePerStock = in.readDouble();
+                    case (QUANTITY << 3) | WireFormat.WIRETYPE_VARINT -> trade.quantity = in.readInt64();
+                    case (TIMESTAMP << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> scanTimestamp(in, trade);
+                    default -> skip(in, tag);
+                }
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidProtocolBufferException(e);
+        }
+        return trade;
+    }
+
+    /**
+     * Checks that the bytes are a well-formed TradeEventProto without keeping anything.
+     * Applies the same checks as a full parse (framing, UTF-8 strings, nested timestamp).
+     * Used on the dispatch side, where the payload is forwarded as-is.
+     */
+    public static boolean isWellFormed(byte[] payload) {
+        CodedInputStream in = CodedInputStream.newInstance(payload);
+        try {
+            int tag;
+            while ((tag = in.readTag()) != 0) {
+                int field = WireFormat.getTagFieldNumber(tag);
+                boolean lengthDelimited = WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED;
+                if (field <= SIDE && lengthDelimited) {
+                    in.readStringRequireUtf8();
+                } else if (field == TIMESTAMP && lengthDelimited) {
+                    scanTimestamp(in, null);
+                } else {
+                    skip(in, tag);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void scanTimestamp(CodedInputStream in, ScannedTrade trade) throws IOException {
+        int length = in.readRawVarint32();
+        int oldLimit = in.pushLimit(length);
+        long seconds = 0;
+        int nanos = 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case (TS_SECONDS << 3) | WireFormat.WIRETYPE_VARINT -> seconds = in.readInt64();
+                case (TS_NANOS << 3) | WireFormat.WIRETYPE_VARINT -> nanos = in.readInt32();
+                default -> skip(in, tag);
+            }
+        }
+        in.checkLastTagWas(0);
+        in.popLimit(oldLimit);
+        if (trade != null) {
+            trade.hasTimestamp = true;
+            trade.timestampSeconds = seconds;
+            trade.timestampNanos = nanos;
+        }
+    }
+
+    private static void skip(CodedInputStream in, int tag) throws IOException {
+        if (!in.skipField(tag)) {
+            // END_GROUP tag without a matching START_GROUP
+            throw new InvalidProtocolBufferException("Protocol message end-group tag did not match expected tag.");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.pms.pms_trade_capture.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Trade fields after pre-persistence validation: UUIDs parsed (portfolio ID
+ * interned), strings normalized and within their column sizes, timestamp
+ * converted. Built once on the stream thread; the flusher maps it to rows
+ * without re-parsing or risking a data error inside the batch transaction.
+ */
+public record ValidatedTrade(
+        UUID portfolioId,
+        UUID tradeId,
+        String symbol,
+        String side,
+        double pricePerStock,
+        long quantity,
+        LocalDateTime eventTimestamp) {
+}
@@ -65,4 +65,17 @@ public class AdaptiveBatchSizer {
     public void reset() {
         currentBatchSize.set(minBatchSize);
     }
+
+    /**
+     * Independent sizer with the same bounds, for a dispatch worker that adapts
+     * to its own table (outbox shard).
+     */
+    public AdaptiveBatchSizer copy() {
+        AdaptiveBatchSizer copy = new AdaptiveBatchSizer();
+        copy.targetLatencyMs = targetLatencyMs;
+        copy.minBatchSize = minBatchSize;
+        copy.maxBatchSize = maxBatchSize;
+        copy.currentBatchSize.set(minBatchSize);
+        return copy;
+    }
 }
@@ -0,0 +1,243 @@
+package com.pms.pms_trade_capture.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pms.pms_trade_capture.config.DbWorkload;
+import com.pms.pms_trade_capture.domain.DispatchCursor;
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+import com.pms.pms_trade_capture.dto.BatchProcessingResult;
+import com.pms.pms_trade_capture.exception.PoisonPillException;
+import com.pms.pms_trade_capture.repository.DispatchCursorRepository;
+import com.pms.pms_trade_capture.service.DlqWriter;
+import com.pms.pms_trade_capture.utils.IngestHorizon;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cursor outbox mode: publishes valid trades straight from safe_store_trade, so
+ * ingest writes each payload once and there is no outbox insert/update churn.
+ *
+ * Portfolios are hashed into {@code buckets}; one worker per bucket reads the
+ * bucket's trades in ID order, publishes them per portfolio through the same
+ * {@link OutboxEventProcessor} as the table mode, and moves the bucket's cursor
+ * (dispatch_cursor) over the handled prefix. Reads stop below the
+ * {@link IngestHorizon}, so a row committed late with a lower ID is never
+ * skipped. This assumes one ingest instance writes the safe store at a time.
+ *
+ * Delivery stays at-least-once: after a system failure, trades of other
+ * portfolios beyond the first failed row are sent again on the retry.
+ */
+@Component
+public class CursorDispatcher implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(CursorDispatcher.class);
+
+    /** Outcome of one poll: the new cursor, and whether the worker should idle or back off. */
+    record Step(DispatchCursor cursor, boolean idle, boolean systemFailure) {
+    }
+
+    private final DispatchCursorRepository cursorRepo;
+    private final DlqWriter dlqWriter;
+    private final OutboxEventProcessor processor;
+    private final IngestHorizon ingestHorizon;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter dispatched;
+
+    @Value("${app.outbox.mode:table}")
+    private String outboxMode;
+
+    @Value("${app.outbox.cursor.buckets:4}")
+    private int buckets;
+
+    @Value("${app.outbox.cursor.batch-size:500}")
+    private int batchSize;
+
+    // How far a later ID's received_at may lie before the cursor's (prepare-to-insert time)
+    @Value("${app.outbox.cursor.received-at-slack:PT10M}")
+    private Duration receivedAtSlack;
+
+    @Value("${app.outbox.system-failure-backoff-ms:1000}")
+    private long systemFailureBackoffMs;
+
+    @Value("${app.outbox.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = false;
+
+    public CursorDispatcher(DispatchCursorRepository cursorRepo,
+            DlqWriter dlqWriter,
+            OutboxEventProcessor processor,
+            IngestHorizon ingestHorizon,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry registry) {
+        this.cursorRepo = cursorRepo;
+        this.dlqWriter = dlqWriter;
+        this.processor = processor;
+        this.ingestHorizon = ingestHorizon;
+        this.transactionTemplate = transactionTemplate;
+        this.dispatched = Counter.builder("trade.outbox.cursor.dispatched")
+                .description("Trades published straight from the safe store")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (running || !"cursor".equalsIgnoreCase(outboxMode)) {
+            return;
+        }
+        running = true;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            // Before ingest starts: a new cursor begins at the current end of the safe store
+            DispatchCursor cursor = cursorRepo.findOrInitialize(bucket);
+            Thread t = new Thread(DbWorkload.DISPATCH.bind(() -> dispatchLoop(cursor)), "outbox-cursor-" + bucket);
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+        log.info("Cursor dispatch started: {} buckets", buckets);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread t : workers) {
+            try {
+                t.join(maxBackoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before the ingest pipelines (MAX - 1000), stop after them
+        return Integer.MAX_VALUE - 1500;
+    }
+
+    private void dispatchLoop(DispatchCursor initial) {
+        DispatchCursor cursor = initial;
+        long backoff = 0;
+        while (running) {
+            try {
+                if (backoff > 0) {
+                    log.warn("Bucket {}: system failure backoff {}ms", cursor.bucket(), backoff);
+                    sleep(backoff);
+                }
+                Step step = dispatchOnce(cursor);
+                cursor = step.cursor();
+                if (step.systemFailure()) {
+                    backoff = backoff == 0 ? systemFailureBackoffMs : Math.min(backoff * 2, maxBackoffMs);
+                } else {
+                    backoff = 0;
+                    if (step.idle()) {
+                        sleep(50);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Bucket {}: unexpected error in cursor dispatch loop", cursor.bucket(), e);
+                backoff = systemFailureBackoffMs;
+            }
+        }
+    }
+
+    Step dispatchOnce(DispatchCursor cursor) {
+        List<OutboxEvent> batch = cursorRepo.findPending(cursor.bucket(), buckets, cursor.lastId(),
+                ingestHorizon.current(), cursor.lastReceivedAt().minus(receivedAtSlack), batchSize);
+        if (batch.isEmpty()) {
+            return new Step(cursor, true, false);
+        }
+
+        Map<UUID, List<OutboxEvent>> byPortfolio = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byPortfolio.computeIfAbsent(event.getPortfolioId(), k -> new ArrayList<>()).add(event);
+        }
+
+        Set<Long> handled = new HashSet<>();
+        Map<Long, String> poisonPills = new LinkedHashMap<>();
+        boolean systemFailure = false;
+        for (List<OutboxEvent> portfolioBatch : byPortfolio.values()) {
+            BatchProcessingResult result = processor.processBatch(portfolioBatch);
+            handled.addAll(result.getSuccessfulIds());
+            if (result.hasPoisonPill()) {
+                PoisonPillException ppe = result.getPoisonPill();
+                handled.add(ppe.getEventId());
+                poisonPills.put(ppe.getEventId(), ppe.getMessage());
+            }
+            if (result.hasSystemFailure()) {
+                systemFailure = true;
+                break;
+            }
+        }
+
+        DispatchCursor next = advance(cursor, batch, handled);
+        if (next.lastId() != cursor.lastId()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (OutboxEvent event : batch) {
+                    if (event.getId() > next.lastId()) {
+                        // Beyond the cursor: re-evaluated (and dead-lettered once) on the retry
+                        break;
+                    }
+                    String error = poisonPills.get(event.getId());
+                    if (error != null) {
+                        dlqWriter.writeOutboxRow(event, "Poison Pill: " + error);
+                        log.warn("Bucket {}: routed poison pill trade {} to DLQ", cursor.bucket(), event.getId());
+                    }
+                }
+                cursorRepo.advance(next);
+            });
+            dispatched.increment(handled.size() - poisonPills.size());
+        }
+        return new Step(next, false, systemFailure);
+    }
+
+    /**
+     * Moves the cursor over the longest ID-ordered prefix of the batch in which
+     * every trade was handled (published or dead-lettered).
+     */
+    static DispatchCursor advance(DispatchCursor cursor, List<OutboxEvent> batch, Set<Long> handled) {
+        long lastId = cursor.lastId();
+        LocalDateTime lastReceivedAt = cursor.lastReceivedAt();
+        for (OutboxEvent event : batch) {
+            if (!handled.contains(event.getId())) {
+                break;
+            }
+            lastId = event.getId();
+            if (event.getCreatedAt().isAfter(lastReceivedAt)) {
+                lastReceivedAt = event.getCreatedAt();
+            }
+        }
+        return new DispatchCursor(cursor.bucket(), lastId, lastReceivedAt);
+    }
+
+    private void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
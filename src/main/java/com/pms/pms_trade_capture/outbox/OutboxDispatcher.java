@@ -1,58 +1,96 @@
 package com.pms.pms_trade_capture.outbox;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 import com.pms.pms_trade_capture.dto.BatchProcessingResult;
 import com.pms.pms_trade_capture.exception.PoisonPillException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionTemplate;
 
-import com.pms.pms_trade_capture.domain.DlqEntry;
 import com.pms.pms_trade_capture.domain.OutboxEvent;
-import com.pms.pms_trade_capture.repository.DlqRepository;
 import com.pms.pms_trade_capture.repository.OutboxRepository;
+import com.pms.pms_trade_capture.repository.OutboxShardRepository;
+import com.pms.pms_trade_capture.service.DlqWriter;
 
 import lombok.SneakyThrows;
 
 /**
  * Outbox dispatcher that ensures strict ordering of events per portfolio using PostgreSQL advisory locks.
  * Processes events in portfolio-isolated batches to guarantee chronological order and prevent message reordering.
+ *
+ * With sharded dispatch, each shard of the hash-partitioned outbox is polled on
+ * its own by exactly one worker, so fetches, SENT updates and the resulting
+ * index maintenance and vacuum work proceed in parallel across shards.
  */
 @Component
 public class OutboxDispatcher implements SmartLifecycle {
     private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
 
     private final OutboxRepository outboxRepo;
-    private final DlqRepository dlqRepo;
+    private final DlqWriter dlqWriter;
     private final OutboxEventProcessor processor;
     private final AdaptiveBatchSizer batchSizer;
     private final Executor taskExecutor;
     private final TransactionTemplate transactionTemplate;
 
+    // Table name used when the whole outbox is polled through OutboxRepository
+    private static final String WHOLE_TABLE = "outbox_event";
+
+    private final OutboxShardRepository shardRepo;
+
     @Value("${app.outbox.system-failure-backoff-ms:1000}")
     private long systemFailureBackoffMs;
 
     @Value("${app.outbox.max-backoff-ms:30000}")
     private long maxBackoffMs;
 
+    // Poll each shard of the hash-partitioned outbox directly, spread over 'concurrency' workers
+    @Value("${app.outbox.sharded-dispatch:false}")
+    private boolean shardedDispatch;
+
+    @Value("${app.outbox.concurrency:1}")
+    private int workers;
+
+    // 'cursor' mode writes no outbox rows; CursorDispatcher publishes instead
+    @Value("${app.outbox.mode:table}")
+    private String outboxMode;
+
     private volatile boolean running = false;
-    private volatile long currentBackoff = 0;
 
+    /**
+     * Single worker polling the whole outbox table.
+     */
+    public OutboxDispatcher(OutboxRepository outboxRepo,
+            DlqWriter dlqWriter,
+            OutboxEventProcessor processor,
+            AdaptiveBatchSizer batchSizer,
+            Executor taskExecutor,
+            TransactionTemplate transactionTemplate) {
+        this(outboxRepo, null, dlqWriter, processor, batchSizer, taskExecutor, transactionTemplate);
+    }
+
+    @Autowired
     public OutboxDispatcher(OutboxRepository outboxRepo,
-            DlqRepository dlqRepo,
+            OutboxShardRepository shardRepo,
+            DlqWriter dlqWriter,
             OutboxEventProcessor processor,
             AdaptiveBatchSizer batchSizer,
             @Qualifier("outboxExecutor") Executor taskExecutor,
             TransactionTemplate transactionTemplate) {
         this.outboxRepo = outboxRepo;
+        this.shardRepo = shardRepo;
         this.processor = processor;
-        this.dlqRepo = dlqRepo;
+        this.dlqWriter = dlqWriter;
         this.batchSizer = batchSizer;
         this.taskExecutor = taskExecutor;
         this.transactionTemplate = transactionTemplate;
@@ -63,11 +101,32 @@ public class OutboxDispatcher implements SmartLifecycle {
     public void start() {
         if (running)
             return;
+        if ("cursor".equalsIgnoreCase(outboxMode)) {
+            log.info("Outbox mode is 'cursor': table dispatcher not started");
+            return;
+        }
         log.info("------------Starting Portfolio-Ordered Outbox Dispatcher...---------------");
         running = true;
 
-        // Submit the long-running loop to the Spring-managed thread pool
-        taskExecutor.execute(this::dispatchLoop);
+        List<String> shards = shardedDispatch && shardRepo != null ? shardRepo.listShards() : List.of();
+        if (shards.isEmpty()) {
+            // Submit the long-running loop to the Spring-managed thread pool
+            taskExecutor.execute(new Worker(List.of(WHOLE_TABLE), Map.of(WHOLE_TABLE, batchSizer)));
+            return;
+        }
+
+        // Shard i belongs to worker i % n: a portfolio is only ever polled by one worker
+        int n = Math.max(1, Math.min(workers, shards.size()));
+        for (int w = 0; w < n; w++) {
+            List<String> owned = new ArrayList<>();
+            Map<String, AdaptiveBatchSizer> sizers = new HashMap<>();
+            for (int i = w; i < shards.size(); i += n) {
+                owned.add(shards.get(i));
+                sizers.put(shards.get(i), batchSizer.copy());
+            }
+            taskExecutor.execute(new Worker(owned, sizers));
+        }
+        log.info("Sharded outbox dispatch: {} shards over {} workers", shards.size(), n);
     }
 
     @Override
@@ -92,106 +151,163 @@ public class OutboxDispatcher implements SmartLifecycle {
     }
 
     /**
-     * Main dispatch loop that processes outbox events using advisory locks for portfolio isolation.
-     * Groups events by portfolio to maintain ordering and processes each portfolio's batch safely.
+     * Dispatch loop over a fixed set of outbox tables (the whole outbox, or the
+     * shards owned by this worker). Each table keeps its own adaptive batch size;
+     * the system-failure backoff applies to the worker.
      */
-    private void dispatchLoop() {
-        while (running) {
-            try {
-                // Apply backoff if previous iteration had system failure
-                if (currentBackoff > 0) {
-                    log.warn("System failure backoff active: sleeping {}ms", currentBackoff);
-                    sleep(currentBackoff);
-                }
+    private final class Worker implements Runnable {
+        private final List<String> tables;
+        private final Map<String, AdaptiveBatchSizer> sizers;
+        private long currentBackoff = 0;
+
+        Worker(List<String> tables, Map<String, AdaptiveBatchSizer> sizers) {
+            this.tables = tables;
+            this.sizers = sizers;
+        }
 
-                long startTime = System.currentTimeMillis();
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    // Apply backoff if previous iteration had system failure
+                    if (currentBackoff > 0) {
+                        log.warn("System failure backoff active: sleeping {}ms", currentBackoff);
+                        sleep(currentBackoff);
+                    }
 
-                // STEP 1: Fetch batch with advisory lock-based portfolio isolation
-                int limit = batchSizer.getCurrentSize();
-                List<OutboxEvent> batch = transactionTemplate.execute(status -> outboxRepo.findPendingBatch(limit));
+                    boolean idle = true;
+                    for (String table : tables) {
+                        if (!running) {
+                            break;
+                        }
+                        if (dispatch(table, sizers.get(table))) {
+                            idle = false;
+                        }
+                        if (currentBackoff > 0) {
+                            break;
+                        }
+                    }
 
-                if (batch == null || batch.isEmpty()) {
-                    // No work to do (or all portfolios locked by other pods)
-                    batchSizer.reset();
-                    currentBackoff = 0; // Reset backoff on idle
-                    sleep(50);
-                    continue;
+                    if (idle) {
+                        // No work to do (or all portfolios locked by other pods)
+                        currentBackoff = 0; // Reset backoff on idle
+                        sleep(50);
+                    }
+                } catch (Exception e) {
+                    log.error("Unexpected error in dispatch loop", e);
+                    // Defensive: backoff and continue
+                    currentBackoff = systemFailureBackoffMs;
+                    sleep(currentBackoff);
                 }
+            }
+        }
 
-                // STEP 2: Group by portfolio (maintains insertion order)
-                // Note: All events in batch are from portfolios THIS pod locked
-                var eventsByPortfolio = new java.util.LinkedHashMap<java.util.UUID, java.util.ArrayList<OutboxEvent>>();
-                for (OutboxEvent event : batch) {
-                    eventsByPortfolio.computeIfAbsent(event.getPortfolioId(), k -> new java.util.ArrayList<>())
-                            .add(event);
-                }
+        /**
+         * Processes one batch from the table using advisory locks for portfolio isolation.
+         * Groups events by portfolio to maintain ordering and processes each portfolio's batch safely.
+         *
+         * @return false if there was nothing to dispatch
+         */
+        private boolean dispatch(String table, AdaptiveBatchSizer sizer) {
+            long startTime = System.currentTimeMillis();
+
+            // STEP 1: Fetch batch with advisory lock-based portfolio isolation
+            int limit = sizer.getCurrentSize();
+            List<OutboxEvent> batch = transactionTemplate.execute(status -> findPendingBatch(table, limit));
+
+            if (batch == null || batch.isEmpty()) {
+                sizer.reset();
+                return false;
+            }
 
-                // STEP 3: Process each portfolio's batch (maintains strict ordering)
-                for (var entry : eventsByPortfolio.entrySet()) {
-                    java.util.UUID portfolioId = entry.getKey();
-                    List<OutboxEvent> portfolioBatch = entry.getValue();
-
-                    // Process this portfolio's events (prefix-safe, failure-classified)
-                    BatchProcessingResult result = processor.processBatch(portfolioBatch);
-
-                    // STEP 4: Handle results within transaction
-                    transactionTemplate.execute(status -> {
-                        // 4a. Mark successful prefix as SENT (SINGLE DB UPDATE per portfolio)
-                        if (!result.getSuccessfulIds().isEmpty()) {
-                            outboxRepo.markBatchAsSent(result.getSuccessfulIds());
-                            log.info("Portfolio {}: Marked {} events as SENT", portfolioId,
-                                    result.getSuccessfulIds().size());
-                        }
+            // STEP 2: Group by portfolio (maintains insertion order)
+            // Note: All events in batch are from portfolios THIS pod locked
+            var eventsByPortfolio = new java.util.LinkedHashMap<java.util.UUID, java.util.ArrayList<OutboxEvent>>();
+            for (OutboxEvent event : batch) {
+                eventsByPortfolio.computeIfAbsent(event.getPortfolioId(), k -> new java.util.ArrayList<>())
+                        .add(event);
+            }
 
-                        // 4b. Handle poison pill (if any)
-                        if (result.hasPoisonPill()) {
-                            PoisonPillException ppe = result.getPoisonPill();
-                            OutboxEvent poisonEvent = findEventById(portfolioBatch, ppe.getEventId());
-                            if (poisonEvent != null) {
-                                moveToDlq(poisonEvent, ppe.getMessage());
-                                log.warn("Portfolio {}: Routed poison pill {} to DLQ", portfolioId, ppe.getEventId());
-                            }
-                        }
+            // STEP 3: Process each portfolio's batch (maintains strict ordering)
+            for (var entry : eventsByPortfolio.entrySet()) {
+                java.util.UUID portfolioId = entry.getKey();
+                List<OutboxEvent> portfolioBatch = entry.getValue();
+
+                // Process this portfolio's events (prefix-safe, failure-classified)
+                BatchProcessingResult result = processor.processBatch(portfolioBatch);
+
+                // STEP 4: Handle results within transaction
+                transactionTemplate.execute(status -> {
+                    // 4a. Mark successful prefix as SENT (SINGLE DB UPDATE per portfolio)
+                    if (!result.getSuccessfulIds().isEmpty()) {
+                        markBatchAsSent(table, result.getSuccessfulIds());
+                        log.info("Portfolio {}: Marked {} events as SENT", portfolioId,
+                                result.getSuccessfulIds().size());
+                    }
 
-                        return null;
-                    });
-
-                    // STEP 5: Backoff strategy for system failures
-                    if (result.hasSystemFailure()) {
-                        // Exponential backoff
-                        currentBackoff = currentBackoff == 0 ? systemFailureBackoffMs
-                                : Math.min(currentBackoff * 2, maxBackoffMs);
-                        log.error("Portfolio {}: System failure detected. Backoff={}ms. Will retry on next iteration.",
-                                portfolioId, currentBackoff);
-                        break; // Stop processing other portfolios, apply backoff
-                    } else {
-                        // Success or poison pill (not a system issue)
-                        currentBackoff = 0; // Reset backoff
+                    // 4b. Trades rejected inside sent portfolio-batched rows
+                    for (BatchProcessingResult.Rejected rejected : result.getRejected()) {
+                        dlqWriter.write(rejected.payload(), "Poison Pill: " + rejected.reason());
+                        log.warn("Portfolio {}: Routed poison pill trade of row {} to DLQ", portfolioId,
+                                rejected.eventId());
+                    }
+
+                    // 4c. Handle poison pill (if any)
+                    if (result.hasPoisonPill()) {
+                        PoisonPillException ppe = result.getPoisonPill();
+                        OutboxEvent poisonEvent = findEventById(portfolioBatch, ppe.getEventId());
+                        if (poisonEvent != null) {
+                            moveToDlq(poisonEvent, ppe.getMessage());
+                            log.warn("Portfolio {}: Routed poison pill {} to DLQ", portfolioId, ppe.getEventId());
+                        }
                     }
-                }
 
-                // Feedback for adaptive sizing (only if no system failure)
-                if (currentBackoff == 0) {
-                    long duration = System.currentTimeMillis() - startTime;
-                    batchSizer.adjust(duration, batch.size());
+                    return null;
+                });
+
+                // STEP 5: Backoff strategy for system failures
+                if (result.hasSystemFailure()) {
+                    // Exponential backoff
+                    currentBackoff = currentBackoff == 0 ? systemFailureBackoffMs
+                            : Math.min(currentBackoff * 2, maxBackoffMs);
+                    log.error("Portfolio {}: System failure detected. Backoff={}ms. Will retry on next iteration.",
+                            portfolioId, currentBackoff);
+                    break; // Stop processing other portfolios, apply backoff
+                } else {
+                    // Success or poison pill (not a system issue)
+                    currentBackoff = 0; // Reset backoff
                 }
+            }
 
-            } catch (Exception e) {
-                log.error("Unexpected error in dispatch loop", e);
-                // Defensive: backoff and continue
-                currentBackoff = systemFailureBackoffMs;
-                sleep(currentBackoff);
+            // Feedback for adaptive sizing (only if no system failure)
+            if (currentBackoff == 0) {
+                long duration = System.currentTimeMillis() - startTime;
+                sizer.adjust(duration, batch.size());
             }
+            return true;
+        }
+    }
+
+    private List<OutboxEvent> findPendingBatch(String table, int limit) {
+        return WHOLE_TABLE.equals(table) ? outboxRepo.findPendingBatch(limit)
+                : shardRepo.findPendingBatch(table, limit);
+    }
+
+    private void markBatchAsSent(String table, List<Long> ids) {
+        if (WHOLE_TABLE.equals(table)) {
+            outboxRepo.markBatchAsSent(ids);
+        } else {
+            shardRepo.markBatchAsSent(table, ids);
         }
     }
 
     /**
-     * Moves a poison pill event to the dead letter queue and removes it from the outbox.
+     * Moves a poison pill event to the dead letter queue (one entry per trade of a
+     * portfolio-batched row) and removes it from the outbox.
      * Must be called within a transaction.
      */
     private void moveToDlq(OutboxEvent event, String errorMsg) {
-        DlqEntry dlqEntry = new DlqEntry(event.getPayload(), "Poison Pill: " + errorMsg);
-        dlqRepo.save(dlqEntry);
+        dlqWriter.writeOutboxRow(event, "Poison Pill: " + errorMsg);
         outboxRepo.delete(event);
     }
 
@@ -1,11 +1,14 @@
 package com.pms.pms_trade_capture.outbox;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.errors.RecordTooLargeException;
 import org.apache.kafka.common.errors.SerializationException;
 import org.slf4j.Logger;
@@ -19,8 +22,12 @@ import org.springframework.stereotype.Component;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.pms.pms_trade_capture.domain.OutboxEvent;
 import com.pms.pms_trade_capture.dto.BatchProcessingResult;
+import com.pms.pms_trade_capture.dto.TradeEventScanner;
 import com.pms.pms_trade_capture.exception.PoisonPillException;
 import com.pms.pms_trade_capture.exception.SystemFailureException;
+import com.pms.pms_trade_capture.utils.PayloadArrayCodec;
+import com.pms.pms_trade_capture.utils.PayloadCodec;
+import com.pms.pms_trade_capture.utils.PortfolioIdCache;
 import com.pms.rttm.client.clients.RttmClient;
 import com.pms.rttm.client.dto.DlqEventPayload;
 import com.pms.rttm.client.enums.EventStage;
@@ -34,8 +41,11 @@ import com.pms.trade_capture.proto.TradeEventProto;
 public class OutboxEventProcessor {
     private static final Logger log = LoggerFactory.getLogger(OutboxEventProcessor.class);
 
-    private final KafkaTemplate<String, TradeEventProto> kafkaTemplate;
+    private final KafkaTemplate<byte[], TradeEventProto> kafkaTemplate;
+    private final KafkaTemplate<byte[], byte[]> rawKafkaTemplate;
     private final RttmClient rttmClient;
+    private final PortfolioIdCache portfolioIdCache;
+    private final PayloadCodec payloadCodec;
 
     @Value("${app.outbox.trade-topic}")
     private String tradeTopic;
@@ -49,11 +59,21 @@ public class OutboxEventProcessor {
     @Value("${app.dlq-topic-outbox:trade-capture-dlq}")
     private String rttmDlqTopicOutbox;
 
+    // 'pass-through' publishes the stored bytes as-is instead of parsing them first
+    @Value("${app.ingest.payload-mode:parsed}")
+    private String payloadMode;
+
     public OutboxEventProcessor(
-            @Qualifier("tradeEventKafkaTemplate") KafkaTemplate<String, TradeEventProto> kafkaTemplate,
-            RttmClient rttmClient) {
+            @Qualifier("tradeEventKafkaTemplate") KafkaTemplate<byte[], TradeEventProto> kafkaTemplate,
+            @Qualifier("rawTradeEventKafkaTemplate") KafkaTemplate<byte[], byte[]> rawKafkaTemplate,
+            RttmClient rttmClient,
+            PortfolioIdCache portfolioIdCache,
+            PayloadCodec payloadCodec) {
         this.kafkaTemplate = kafkaTemplate;
+        this.rawKafkaTemplate = rawKafkaTemplate;
         this.rttmClient = rttmClient;
+        this.portfolioIdCache = portfolioIdCache;
+        this.payloadCodec = payloadCodec;
     }
 
     /**
@@ -65,10 +85,16 @@ public class OutboxEventProcessor {
      */
     public BatchProcessingResult processBatch(List<OutboxEvent> events) {
         List<Long> successfulIds = new ArrayList<>();
+        List<BatchProcessingResult.Rejected> rejected = new ArrayList<>();
 
         for (OutboxEvent event : events) {
             try {
-                sendToKafka(event);
+                if (event.isBatched()) {
+                    // Reported only once the whole row is through: a retried row is re-evaluated
+                    rejected.addAll(sendBatchedRow(event));
+                } else {
+                    sendToKafka(event.getId(), event.getPortfolioId(), decodePayload(event));
+                }
                 successfulIds.add(event.getId());
 
             } catch (PoisonPillException ppe) {
@@ -77,21 +103,73 @@ public class OutboxEventProcessor {
                 log.error("Poison pill detected: Event ID={}, Error={}", event.getId(), ppe.getMessage());
                 
                 // Send DLQ event to RTTM
-                sendDlqEventToRttm(event, ppe.getMessage());
+                sendDlqEventToRttm(event, event.getTradeId().toString(), ppe.getMessage());
                 
-                return BatchProcessingResult.withPoisonPill(successfulIds, ppe);
+                return BatchProcessingResult.withPoisonPill(successfulIds, ppe).withRejected(rejected);
 
             } catch (SystemFailureException sfe) {
                 // SYSTEM FAILURE: Kafka is down or network issues
                 // STOP batch immediately, do NOT update DB for failed events
                 // Return successful prefix only
                 log.error("System failure detected: {}. Stopping batch to preserve ordering.", sfe.getMessage());
-                return BatchProcessingResult.systemFailure(successfulIds);
+                return BatchProcessingResult.systemFailure(successfulIds).withRejected(rejected);
             }
         }
 
         // All events sent successfully
-        return BatchProcessingResult.success(successfulIds);
+        return BatchProcessingResult.success(successfulIds).withRejected(rejected);
+    }
+
+    /**
+     * Fans a portfolio-batched row out to one Kafka record per trade, in order.
+     * A trade that is a poison pill on its own is skipped and returned, so it
+     * does not hold back the rest of the portfolio's row; a row whose array is
+     * corrupt is a poison pill as a whole.
+     *
+     * @return the rejected trades of the row
+     * @throws SystemFailureException if a send fails transiently; the row is retried from its start
+     */
+    private List<BatchProcessingResult.Rejected> sendBatchedRow(OutboxEvent row)
+            throws PoisonPillException, SystemFailureException {
+        List<byte[]> payloads;
+        try {
+            payloads = PayloadArrayCodec.decode(decodePayload(row), row.getTradeCount());
+        } catch (IOException e) {
+            throw new PoisonPillException(row.getId(), "Invalid batched payload", e);
+        }
+
+        List<BatchProcessingResult.Rejected> rejected = new ArrayList<>(0);
+        for (int i = 0; i < payloads.size(); i++) {
+            byte[] payload = payloads.get(i);
+            try {
+                sendToKafka(row.getId(), row.getPortfolioId(), payload);
+            } catch (PoisonPillException ppe) {
+                log.error("Poison pill detected: Event ID={} trade {}/{}, Error={}",
+                        row.getId(), i + 1, payloads.size(), ppe.getMessage());
+                sendDlqEventToRttm(row, scanTradeId(payload), ppe.getMessage());
+                rejected.add(new BatchProcessingResult.Rejected(row.getId(), payload, ppe.getMessage()));
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Stored payload to wire bytes (PayloadCodec); a frame that cannot be decoded is a poison pill.
+     */
+    private byte[] decodePayload(OutboxEvent event) throws PoisonPillException {
+        try {
+            return payloadCodec.decode(event.getPayload());
+        } catch (IllegalArgumentException e) {
+            throw new PoisonPillException(event.getId(), "Undecodable stored payload: " + e.getMessage(), e);
+        }
+    }
+
+    private static String scanTradeId(byte[] payload) {
+        try {
+            return TradeEventScanner.scan(payload).getTradeId();
+        } catch (InvalidProtocolBufferException e) {
+            return "UNKNOWN";
+        }
     }
 
     /**
@@ -100,28 +178,44 @@ public class OutboxEventProcessor {
      * @throws PoisonPillException if the event data is permanently corrupted
      * @throws SystemFailureException if Kafka is unavailable or network issues occur
      */
-    private void sendToKafka(OutboxEvent event) throws PoisonPillException, SystemFailureException {
+    private void sendToKafka(Long eventId, UUID portfolioId, byte[] payload)
+            throws PoisonPillException, SystemFailureException {
         try {
-            // 1. Deserialize protobuf (can throw InvalidProtocolBufferException = poison pill)
-            TradeEventProto proto = TradeEventProto.parseFrom(event.getPayload());
-
-            String key = event.getPortfolioId().toString();
-
-            // 2. Blocking send with timeout
-            SendResult<String, TradeEventProto> result = kafkaTemplate.send(tradeTopic, key, proto)
-                    .get(kafkaSendTimeoutMs, TimeUnit.MILLISECONDS);
+            // Interned, pre-encoded key shared with every event of this portfolio
+            byte[] key = portfolioIdCache.intern(portfolioId).getKeyBytes();
+            RecordMetadata metadata;
+
+            if ("pass-through".equalsIgnoreCase(payloadMode)) {
+                // 1. Validate framing only; the stored bytes go to Kafka unchanged
+                if (!TradeEventScanner.isWellFormed(payload)) {
+                    throw new PoisonPillException(eventId, "Invalid protobuf payload", null);
+                }
+
+                // 2. Blocking send with timeout
+                SendResult<byte[], byte[]> result = rawKafkaTemplate.send(tradeTopic, key, payload)
+                        .get(kafkaSendTimeoutMs, TimeUnit.MILLISECONDS);
+                metadata = result.getRecordMetadata();
+            } else {
+                // 1. Deserialize protobuf (can throw InvalidProtocolBufferException = poison pill)
+                TradeEventProto proto = TradeEventProto.parseFrom(payload);
+
+                // 2. Blocking send with timeout
+                SendResult<byte[], TradeEventProto> result = kafkaTemplate.send(tradeTopic, key, proto)
+                        .get(kafkaSendTimeoutMs, TimeUnit.MILLISECONDS);
+                metadata = result.getRecordMetadata();
+            }
 
             log.debug("Sent event {} to Kafka topic {} partition {} offset {}", 
-                     event.getId(), tradeTopic,
-                     result.getRecordMetadata().partition(),
-                     result.getRecordMetadata().offset());
+                     eventId, tradeTopic,
+                     metadata.partition(),
+                     metadata.offset());
 
         } catch (InvalidProtocolBufferException e) {
             // Corrupt payload in DB = POISON PILL
-            throw new PoisonPillException(event.getId(), "Invalid protobuf payload", e);
+            throw new PoisonPillException(eventId, "Invalid protobuf payload", e);
 
         } catch (ExecutionException e) {
-            classifyAndThrow(event.getId(), e.getCause());
+            classifyAndThrow(eventId, e.getCause());
 
         } catch (TimeoutException e) {
             // Kafka send timeout = SYSTEM FAILURE (broker slow/down)
@@ -186,11 +280,11 @@ public class OutboxEventProcessor {
     /**
      * Send DLQ event to RTTM when poison pill is detected
      */
-    private void sendDlqEventToRttm(OutboxEvent event, String errorReason) {
+    private void sendDlqEventToRttm(OutboxEvent event, String tradeId, String errorReason) {
         try {
             DlqEventPayload dlqEvent = DlqEventPayload.builder()
                     .serviceName(serviceName)
-                    .tradeId(event.getTradeId().toString())
+                    .tradeId(tradeId)
                     .topicName(rttmDlqTopicOutbox)
                     .originalTopic(tradeTopic)
                     .reason(errorReason)
@@ -199,10 +293,10 @@ public class OutboxEventProcessor {
 
             rttmClient.sendDlqEvent(dlqEvent);
             log.info("RTTM[DLQ_OUTBOX] tradeId={} eventId={} topic={} reason={}", 
-                    event.getTradeId(), event.getId(), rttmDlqTopicOutbox, errorReason);
+                    tradeId, event.getId(), rttmDlqTopicOutbox, errorReason);
         } catch (Exception ex) {
             log.warn("RTTM[DLQ_OUTBOX] FAILED tradeId={} eventId={}: {}", 
-                    event.getTradeId(), event.getId(), ex.getMessage());
+                    tradeId, event.getId(), ex.getMessage());
         }
     }
 }
@@ -0,0 +1,153 @@
+package com.pms.pms_trade_capture.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.pms.pms_trade_capture.domain.OutboxState;
+import com.pms.pms_trade_capture.repository.OutboxMaintenanceRepository;
+import com.pms.pms_trade_capture.repository.OutboxMaintenanceRepository.TableStats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps outbox_event bounded. SENT rows older than {@code sent-ttl} are deleted
+ * in short, separately committed batches so no purge transaction holds locks or
+ * an old snapshot for long, which is what lets autovacuum keep up.
+ *
+ * Throttling against dispatch:
+ * - a run is skipped while the PENDING backlog is above {@code pending-threshold}
+ *   (the dispatcher is catching up and needs the I/O)
+ * - between batches the purge sleeps at least as long as the last batch took,
+ *   capping it at roughly half of one connection's time
+ * - at most {@code max-batches-per-run} batches per run
+ *
+ * Exposes trade.outbox.table.bytes, trade.outbox.tuples (live/dead),
+ * trade.outbox.rows (pending/sent) and trade.outbox.purged.
+ */
+@Component
+public class OutboxRetentionService {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRetentionService.class);
+
+    private final OutboxMaintenanceRepository maintenanceRepo;
+    private final Counter purged;
+
+    private final AtomicLong tableBytes = new AtomicLong();
+    private final AtomicLong liveTuples = new AtomicLong();
+    private final AtomicLong deadTuples = new AtomicLong();
+    private final AtomicLong pendingRows = new AtomicLong();
+    private final AtomicLong sentRows = new AtomicLong();
+
+    @Value("${app.outbox.retention.enabled:true}")
+    private boolean enabled;
+
+    // How long SENT rows are kept for troubleshooting before they may be purged
+    @Value("${app.outbox.retention.sent-ttl:PT1H}")
+    private Duration sentTtl;
+
+    @Value("${app.outbox.retention.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.outbox.retention.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.outbox.retention.min-pause-ms:50}")
+    private long minPauseMs;
+
+    @Value("${app.outbox.retention.pending-threshold:50000}")
+    private long pendingThreshold;
+
+    public OutboxRetentionService(OutboxMaintenanceRepository maintenanceRepo, MeterRegistry registry) {
+        this.maintenanceRepo = maintenanceRepo;
+        this.purged = Counter.builder("trade.outbox.purged")
+                .description("SENT outbox events deleted by the retention job")
+                .register(registry);
+        Gauge.builder("trade.outbox.table.bytes", tableBytes, AtomicLong::get)
+                .description("outbox_event size including indexes and TOAST")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("trade.outbox.tuples", liveTuples, AtomicLong::get)
+                .tag("state", "live")
+                .register(registry);
+        Gauge.builder("trade.outbox.tuples", deadTuples, AtomicLong::get)
+                .tag("state", "dead")
+                .description("Dead tuples in outbox_event not yet reclaimed by vacuum")
+                .register(registry);
+        Gauge.builder("trade.outbox.rows", pendingRows, AtomicLong::get)
+                .tag("status", "pending")
+                .register(registry);
+        Gauge.builder("trade.outbox.rows", sentRows, AtomicLong::get)
+                .tag("status", "sent")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${app.outbox.retention.interval-ms:30000}",
+            fixedDelayString = "${app.outbox.retention.interval-ms:30000}")
+    public void run() {
+        try {
+            refreshStats();
+            if (enabled) {
+                purge();
+            }
+        } catch (Exception e) {
+            log.warn("Outbox retention run failed: {}", e.getMessage());
+        }
+    }
+
+    void refreshStats() {
+        TableStats stats = maintenanceRepo.tableStats();
+        tableBytes.set(stats.totalBytes());
+        liveTuples.set(stats.liveTuples());
+        deadTuples.set(stats.deadTuples());
+        pendingRows.set(maintenanceRepo.countByState(OutboxState.PENDING));
+        sentRows.set(maintenanceRepo.countByState(OutboxState.SENT));
+    }
+
+    /**
+     * @return rows deleted in this run
+     */
+    int purge() {
+        if (pendingRows.get() > pendingThreshold) {
+            log.debug("Outbox purge skipped: {} events pending dispatch", pendingRows.get());
+            return 0;
+        }
+        LocalDateTime sentBefore = LocalDateTime.now().minus(sentTtl);
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            long start = System.nanoTime();
+            int deleted = maintenanceRepo.purgeSent(sentBefore, batchSize);
+            total += deleted;
+            purged.increment(deleted);
+            if (deleted < batchSize) {
+                break;
+            }
+            long tookMs = (System.nanoTime() - start) / 1_000_000;
+            if (!sleep(Math.max(minPauseMs, tookMs))) {
+                break;
+            }
+        }
+        if (total > 0) {
+            sentRows.addAndGet(-total);
+            log.info("Outbox retention purged {} SENT events older than {}", total, sentBefore);
+        }
+        return total;
+    }
+
+    private boolean sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
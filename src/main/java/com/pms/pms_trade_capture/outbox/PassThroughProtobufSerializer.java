@@ -0,0 +1,51 @@
+package com.pms.pms_trade_capture.outbox;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import com.pms.trade_capture.proto.TradeEventProto;
+
+import io.confluent.kafka.serializers.protobuf.KafkaProtobufSerializer;
+
+/**
+ * Kafka value serializer for already-encoded TradeEventProto bytes.
+ *
+ * Produces exactly what {@link KafkaProtobufSerializer} would write for the
+ * parsed message: the Confluent wire header (magic byte, schema id, message
+ * indexes) followed by the protobuf bytes. The header is obtained once per
+ * topic by serializing the empty default instance through the Confluent
+ * serializer (so schema registration and id lookup behave the same), after
+ * which every record is a plain header + payload copy.
+ */
+public class PassThroughProtobufSerializer implements Serializer<byte[]> {
+
+    private final KafkaProtobufSerializer<TradeEventProto> delegate = new KafkaProtobufSerializer<>();
+    private final Map<String, byte[]> headersByTopic = new ConcurrentHashMap<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, byte[] payload) {
+        if (payload == null) {
+            return null;
+        }
+        // Empty default instance serializes to the wire header only
+        byte[] header = headersByTopic.computeIfAbsent(topic,
+                t -> delegate.serialize(t, TradeEventProto.getDefaultInstance()));
+
+        byte[] framed = new byte[header.length + payload.length];
+        System.arraycopy(header, 0, framed, 0, header.length);
+        System.arraycopy(payload, 0, framed, header.length, payload.length);
+        return framed;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,94 @@
+package com.pms.pms_trade_capture.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.pms.pms_trade_capture.domain.DispatchCursor;
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+
+/**
+ * Cursor outbox mode: per-bucket dispatch progress and the ID-ordered scan of
+ * safe_store_trade that replaces outbox polling.
+ */
+@Repository
+public class DispatchCursorRepository {
+
+    private static final String FIND = "SELECT last_id, last_received_at FROM dispatch_cursor WHERE bucket = ?";
+
+    // First start in cursor mode: everything already stored was written with outbox rows
+    private static final String INITIALIZE = """
+            INSERT INTO dispatch_cursor (bucket, last_id, last_received_at, updated_at)
+            VALUES (?, (SELECT COALESCE(max(id), 0) FROM safe_store_trade), now(), now())
+            ON CONFLICT (bucket) DO NOTHING
+            """;
+
+    private static final String ADVANCE = """
+            UPDATE dispatch_cursor
+            SET last_id = ?, last_received_at = GREATEST(last_received_at, ?), updated_at = now()
+            WHERE bucket = ? AND last_id < ?
+            """;
+
+    // Range scan on the (id, received_at) primary key of the recent partitions only.
+    // The bucket uses the same hash as the dispatcher's advisory locks.
+    private static final String FIND_PENDING = """
+            SELECT id, received_at, portfolio_id, trade_id, raw_payload
+            FROM safe_store_trade
+            WHERE id > ? AND id < ?
+              AND received_at >= ?
+              AND is_valid
+              AND mod(abs(hashtext(portfolio_id::text)::bigint), ?) = ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DispatchCursorRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<DispatchCursor> find(int bucket) {
+        List<DispatchCursor> cursors = jdbcTemplate.query(FIND,
+                (rs, row) -> new DispatchCursor(bucket, rs.getLong(1), rs.getObject(2, LocalDateTime.class)),
+                bucket);
+        return cursors.stream().findFirst();
+    }
+
+    /**
+     * Creates the bucket's cursor at the current end of the safe store unless it exists.
+     */
+    public DispatchCursor findOrInitialize(int bucket) {
+        jdbcTemplate.update(INITIALIZE, bucket);
+        return find(bucket).orElseThrow();
+    }
+
+    /**
+     * Never moves a cursor backwards.
+     */
+    public void advance(DispatchCursor cursor) {
+        jdbcTemplate.update(ADVANCE, cursor.lastId(), cursor.lastReceivedAt(), cursor.bucket(), cursor.lastId());
+    }
+
+    /**
+     * Valid trades of the bucket with {@code afterId < id < beforeId}, in ID order,
+     * shaped as outbox events: the event ID is the safe store ID, the payload the
+     * raw inbound bytes and createdAt the receive time.
+     */
+    public List<OutboxEvent> findPending(int bucket, int buckets, long afterId, long beforeId,
+            LocalDateTime receivedSince, int limit) {
+        return jdbcTemplate.query(FIND_PENDING, (rs, row) -> {
+            OutboxEvent event = new OutboxEvent();
+            event.setId(rs.getLong(1));
+            event.setCreatedAt(rs.getObject(2, LocalDateTime.class));
+            event.setPortfolioId(rs.getObject(3, UUID.class));
+            event.setTradeId(rs.getObject(4, UUID.class));
+            event.setPayload(rs.getBytes(5));
+            return event;
+        }, afterId, beforeId, receivedSince, buckets, bucket, limit);
+    }
+}
@@ -0,0 +1,375 @@
+package com.pms.pms_trade_capture.repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+import com.pms.pms_trade_capture.domain.SafeStoreTrade;
+import com.pms.pms_trade_capture.utils.BlockIdAllocator;
+import com.pms.pms_trade_capture.utils.IdAllocators;
+
+/**
+ * Plain JDBC statements for the ingest path: the idempotent writes, where JPA's
+ * persist-or-fail semantics do not fit (ON CONFLICT, per-row insert outcome),
+ * and the entity-free batch writer used by the 'jdbc' write engine.
+ *
+ * IDs come from the same prefetched sequence blocks the entities use
+ * ({@link IdAllocators}), so no statement here calls nextval().
+ *
+ * safe_store_trade is partitioned by received_at and trade_id is only unique
+ * within a partition. Duplicate checks therefore look back a bounded window
+ * ({@code app.safe-store.partitions.dedup-lookback}, which must cover the stream
+ * replay horizon): the trade_id lookups are pruned to the partitions inside it,
+ * so their cost does not grow with the audit history.
+ */
+@Repository
+public class IngestJdbcRepository {
+
+    // One statement per batch; RETURNING reports exactly which rows went in, whatever
+    // the driver does with batch update counts (reWriteBatchedInserts). DISTINCT ON
+    // keeps the first of several rows with one trade ID, which NOT EXISTS cannot see.
+    private static final String INSERT_SAFE_STORE_IGNORE_DUPLICATES = """
+            INSERT INTO safe_store_trade
+                (id, received_at, portfolio_id, trade_id, symbol, side, price_per_stock,
+                 quantity, raw_payload, is_valid, event_timestamp, symbol_id, side_code)
+            SELECT DISTINCT ON (t.trade_id)
+                   t.id, t.received_at, t.portfolio_id, t.trade_id, t.symbol, t.side, t.price_per_stock,
+                   t.quantity, t.raw_payload, t.is_valid, t.event_timestamp, t.symbol_id, t.side_code
+            FROM unnest(?::int8[], ?::timestamp[], ?::uuid[], ?::uuid[], ?::varchar[], ?::varchar[], ?::float8[],
+                        ?::int8[], ?::bytea[], ?::bool[], ?::timestamp[], ?::int4[], ?::int2[])
+                 WITH ORDINALITY AS t(id, received_at, portfolio_id, trade_id, symbol, side, price_per_stock,
+                                      quantity, raw_payload, is_valid, event_timestamp, symbol_id, side_code, ord)
+            WHERE NOT EXISTS (SELECT 1 FROM safe_store_trade s WHERE s.trade_id = t.trade_id AND s.received_at >= ?)
+            ORDER BY t.trade_id, t.ord
+            ON CONFLICT DO NOTHING
+            RETURNING id
+            """;
+
+    // Non-idempotent write: the cross-partition replay check rides in the insert, and
+    // a short RETURNING count fails the batch like the global unique key used to
+    private static final String INSERT_SAFE_STORE_REJECTING_REPLAYS = """
+            WITH trades AS (
+                INSERT INTO safe_store_trade
+                    (id, received_at, portfolio_id, trade_id, symbol, side, price_per_stock,
+                     quantity, raw_payload, is_valid, event_timestamp, symbol_id, side_code)
+                SELECT t.*
+                FROM unnest(?::int8[], ?::timestamp[], ?::uuid[], ?::uuid[], ?::varchar[], ?::varchar[], ?::float8[],
+                            ?::int8[], ?::bytea[], ?::bool[], ?::timestamp[], ?::int4[], ?::int2[])
+                     AS t(id, received_at, portfolio_id, trade_id, symbol, side, price_per_stock,
+                          quantity, raw_payload, is_valid, event_timestamp, symbol_id, side_code)
+                WHERE NOT t.is_valid
+                   OR NOT EXISTS (SELECT 1 FROM safe_store_trade s WHERE s.trade_id = t.trade_id AND s.received_at >= ?)
+                RETURNING 1
+            )
+            SELECT count(*) FROM trades
+            """;
+
+    private static final String INSERT_OUTBOX = """
+            INSERT INTO outbox_event (id, created_at, portfolio_id, trade_id, payload, state, trade_count)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Both tables in one statement: each column travels as one array parameter, so
+    // the statement text and plan are the same for every batch size
+    // the statement text and plan are the same for every batch size. The outbox rows
+    // are only written if no trade was held back by the replay check.
+    private static final String INSERT_ALL_UNNEST = """
+            WITH trades AS (
+                INSERT INTO safe_store_trade
+                    (id, received_at, portfolio_id, trade_id, symbol, side, price_per_stock,
+                     quantity, raw_payload, is_valid, event_timestamp, symbol_id, side_code)
+                SELECT t.*
+                FROM unnest(?::int8[], ?::timestamp[], ?::uuid[], ?::uuid[], ?::varchar[], ?::varchar[], ?::float8[],
+                            ?::int8[], ?::bytea[], ?::bool[], ?::timestamp[], ?::int4[], ?::int2[])
+                     AS t(id, received_at, portfolio_id, trade_id, symbol, side, price_per_stock,
+                          quantity, raw_payload, is_valid, event_timestamp, symbol_id, side_code)
+                WHERE NOT t.is_valid
+                   OR NOT EXISTS (SELECT 1 FROM safe_store_trade s WHERE s.trade_id = t.trade_id AND s.received_at >= ?)
+                RETURNING 1
+            ), outbox AS (
+                INSERT INTO outbox_event (id, created_at, portfolio_id, trade_id, payload, state, trade_count)
+                SELECT o.*
+                FROM unnest(?::int8[], ?::timestamp[], ?::uuid[], ?::uuid[], ?::bytea[], ?::int2[], ?::int4[]) AS o
+                WHERE (SELECT count(*) FROM trades) = ?
+                RETURNING 1
+            )
+            SELECT (SELECT count(*) FROM trades), (SELECT count(*) FROM outbox)
+            """;
+
+    private static final String FIND_EXISTING_TRADE_IDS =
+            "SELECT trade_id FROM safe_store_trade WHERE trade_id = ANY(?) AND received_at >= ?";
+
+    private static final String FIND_RECENT_TRADE_IDS = """
+            SELECT trade_id FROM safe_store_trade
+            WHERE received_at > ? AND is_valid
+            ORDER BY received_at DESC
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocators idAllocators;
+    private final Duration dedupLookback;
+
+    public IngestJdbcRepository(JdbcTemplate jdbcTemplate, IdAllocators idAllocators,
+            @Value("${app.safe-store.partitions.dedup-lookback:P3D}") Duration dedupLookback) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocators = idAllocators;
+        this.dedupLookback = dedupLookback;
+    }
+
+    /**
+     * Inserts the trades, silently skipping trade IDs that already exist within
+     * the dedup lookback (other partitions) or in the target partition itself.
+     *
+     * @return per-row outcome, true if the row was inserted
+     */
+    public boolean[] insertSafeStoreIgnoringDuplicates(List<SafeStoreTrade> trades) {
+        assignIds(trades);
+        TradeColumns columns = new TradeColumns(trades);
+        LocalDateTime horizon = dedupHorizon();
+        Set<Long> insertedIds = new HashSet<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_SAFE_STORE_IGNORE_DUPLICATES);
+            int p = columns.bind(con, ps, 1);
+            ps.setObject(p, horizon);
+            return ps;
+        }, rs -> {
+            insertedIds.add(rs.getLong(1));
+        });
+
+        boolean[] inserted = new boolean[trades.size()];
+        for (int i = 0; i < inserted.length; i++) {
+            inserted[i] = insertedIds.contains(trades.get(i).getId());
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts the trades; a valid trade whose ID is already persisted within the
+     * dedup lookback fails the call (see {@link #insertAll}), with no extra query.
+     */
+    public void insertSafeStoreRejectingReplays(List<SafeStoreTrade> trades) {
+        assignIds(trades);
+        TradeColumns columns = new TradeColumns(trades);
+        LocalDateTime horizon = dedupHorizon();
+        Long inserted = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_SAFE_STORE_REJECTING_REPLAYS);
+            int p = columns.bind(con, ps, 1);
+            ps.setObject(p, horizon);
+            return ps;
+        }, rs -> rs.next() ? rs.getLong(1) : 0L);
+        rejectIfShort(inserted == null ? 0L : inserted, trades.size());
+    }
+
+    public void insertOutbox(List<OutboxEvent> events) {
+        assignOutboxIds(events);
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OutboxEvent e = events.get(i);
+                ps.setLong(1, e.getId());
+                ps.setObject(2, e.getCreatedAt());
+                ps.setObject(3, e.getPortfolioId());
+                ps.setObject(4, e.getTradeId());
+                ps.setBytes(5, e.getPayload());
+                ps.setShort(6, e.getState());
+                ps.setInt(7, e.getTradeCount());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    /**
+     * Inserts trades and outbox events in a single round trip without creating
+     * managed entities. A trade ID already in the target partition fails the
+     * statement; a valid trade ID persisted in another partition inside the dedup
+     * lookback is held back by the statement and fails the call with a
+     * DataIntegrityViolationException, with no outbox row written. Either way
+     * bisection isolates the replayed trade.
+     *
+     * @return total number of rows inserted
+     */
+    public long insertAll(List<SafeStoreTrade> trades, List<OutboxEvent> events) {
+        assignIds(trades);
+        assignOutboxIds(events);
+        TradeColumns columns = new TradeColumns(trades);
+
+        int m = events.size();
+        Long[] outboxIds = new Long[m];
+        LocalDateTime[] createdAt = new LocalDateTime[m];
+        UUID[] outboxPortfolioIds = new UUID[m];
+        UUID[] outboxTradeIds = new UUID[m];
+        byte[][] payloads = new byte[m][];
+        Short[] states = new Short[m];
+        Integer[] tradeCounts = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            OutboxEvent e = events.get(i);
+            outboxIds[i] = e.getId();
+            createdAt[i] = e.getCreatedAt();
+            outboxPortfolioIds[i] = e.getPortfolioId();
+            outboxTradeIds[i] = e.getTradeId();
+            payloads[i] = e.getPayload();
+            states[i] = e.getState();
+            tradeCounts[i] = e.getTradeCount();
+        }
+
+        LocalDateTime horizon = dedupHorizon();
+        long[] inserted = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_ALL_UNNEST);
+            int p = columns.bind(con, ps, 1);
+            ps.setObject(p++, horizon);
+            ps.setArray(p++, con.createArrayOf("int8", outboxIds));
+            ps.setArray(p++, con.createArrayOf("timestamp", createdAt));
+            ps.setArray(p++, con.createArrayOf("uuid", outboxPortfolioIds));
+            ps.setArray(p++, con.createArrayOf("uuid", outboxTradeIds));
+            ps.setArray(p++, con.createArrayOf("bytea", payloads));
+            ps.setArray(p++, con.createArrayOf("int2", states));
+            ps.setArray(p++, con.createArrayOf("int4", tradeCounts));
+            ps.setLong(p, trades.size());
+            return ps;
+        }, rs -> rs.next() ? new long[] { rs.getLong(1), rs.getLong(2) } : new long[2]);
+        rejectIfShort(inserted[0], trades.size());
+        return inserted[0] + inserted[1];
+    }
+
+    private static void rejectIfShort(long inserted, int expected) {
+        if (inserted < expected) {
+            throw new DataIntegrityViolationException((expected - inserted) + " of " + expected
+                    + " trade IDs already persisted within the dedup lookback");
+        }
+    }
+
+    /**
+     * safe_store_trade columns as one array per column, in table order, for unnest().
+     */
+    private static final class TradeColumns {
+        final Long[] ids;
+        final LocalDateTime[] receivedAt;
+        final UUID[] portfolioIds;
+        final UUID[] tradeIds;
+        final String[] symbols;
+        final String[] sides;
+        final Double[] prices;
+        final Long[] quantities;
+        final byte[][] rawPayloads;
+        final Boolean[] valid;
+        final LocalDateTime[] eventTimestamps;
+        final Integer[] symbolIds;
+        final Short[] sideCodes;
+
+        TradeColumns(List<SafeStoreTrade> trades) {
+            int n = trades.size();
+            ids = new Long[n];
+            receivedAt = new LocalDateTime[n];
+            portfolioIds = new UUID[n];
+            tradeIds = new UUID[n];
+            symbols = new String[n];
+            sides = new String[n];
+            prices = new Double[n];
+            quantities = new Long[n];
+            rawPayloads = new byte[n][];
+            valid = new Boolean[n];
+            eventTimestamps = new LocalDateTime[n];
+            symbolIds = new Integer[n];
+            sideCodes = new Short[n];
+            for (int i = 0; i < n; i++) {
+                SafeStoreTrade t = trades.get(i);
+                ids[i] = t.getId();
+                receivedAt[i] = t.getReceivedAt();
+                portfolioIds[i] = t.getPortfolioId();
+                tradeIds[i] = t.getTradeId();
+                symbols[i] = t.getSymbol();
+                sides[i] = t.getSide();
+                prices[i] = t.getPricePerStock();
+                quantities[i] = t.getQuantity();
+                rawPayloads[i] = t.getRawPayload();
+                valid[i] = t.isValid();
+                eventTimestamps[i] = t.getEventTimestamp();
+                symbolIds[i] = t.getSymbolId();
+                sideCodes[i] = t.getSideCode();
+            }
+        }
+
+        /**
+         * @return the next parameter index
+         */
+        int bind(Connection con, PreparedStatement ps, int p) throws SQLException {
+            ps.setArray(p++, con.createArrayOf("int8", ids));
+            ps.setArray(p++, con.createArrayOf("timestamp", receivedAt));
+            ps.setArray(p++, con.createArrayOf("uuid", portfolioIds));
+            ps.setArray(p++, con.createArrayOf("uuid", tradeIds));
+            ps.setArray(p++, con.createArrayOf("varchar", symbols));
+            ps.setArray(p++, con.createArrayOf("varchar", sides));
+            ps.setArray(p++, con.createArrayOf("float8", prices));
+            ps.setArray(p++, con.createArrayOf("int8", quantities));
+            ps.setArray(p++, con.createArrayOf("bytea", rawPayloads));
+            ps.setArray(p++, con.createArrayOf("bool", valid));
+            ps.setArray(p++, con.createArrayOf("timestamp", eventTimestamps));
+            ps.setArray(p++, con.createArrayOf("int4", symbolIds));
+            ps.setArray(p++, con.createArrayOf("int2", sideCodes));
+            return p;
+        }
+    }
+
+    private void assignIds(List<SafeStoreTrade> trades) {
+        BlockIdAllocator allocator = idAllocators.safeStoreTrade();
+        for (SafeStoreTrade t : trades) {
+            if (t.getId() == null) {
+                t.setId(allocator.next());
+            }
+        }
+    }
+
+    private void assignOutboxIds(List<OutboxEvent> events) {
+        BlockIdAllocator allocator = idAllocators.outboxEvent();
+        for (OutboxEvent e : events) {
+            if (e.getId() == null) {
+                e.setId(allocator.next());
+            }
+        }
+    }
+
+    private LocalDateTime dedupHorizon() {
+        return LocalDateTime.now().minus(dedupLookback);
+    }
+
+    /**
+     * @return the subset of {@code tradeIds} persisted within the dedup lookback
+     */
+    public Set<UUID> findExistingTradeIds(Collection<UUID> tradeIds) {
+        Set<UUID> existing = new HashSet<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FIND_EXISTING_TRADE_IDS);
+            Array array = con.createArrayOf("uuid", tradeIds.toArray());
+            ps.setArray(1, array);
+            ps.setObject(2, dedupHorizon());
+            return ps;
+        }, rs -> {
+            existing.add(rs.getObject(1, UUID.class));
+        });
+        return existing;
+    }
+
+    public List<UUID> findRecentTradeIds(LocalDateTime since, int limit) {
+        return jdbcTemplate.queryForList(FIND_RECENT_TRADE_IDS, UUID.class, since, limit);
+    }
+}
@@ -0,0 +1,70 @@
+package com.pms.pms_trade_capture.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Housekeeping statements for outbox_event: bounded purge of SENT rows and the
+ * size/bloat figures behind the outbox metrics. Runs outside the dispatch path.
+ */
+@Repository
+public class OutboxMaintenanceRepository {
+
+    // Walks idx_outbox_sent_at (partial, SENT only) oldest first. SKIP LOCKED: rows
+    // a dispatcher transaction still holds are left for the next round. The
+    // portfolio_id (shard key) lets each delete go straight to its shard.
+    private static final String PURGE_SENT = """
+            DELETE FROM outbox_event
+            WHERE (id, portfolio_id) IN (
+                SELECT id, portfolio_id FROM outbox_event
+                WHERE state = 1 AND sent_at < ?
+                ORDER BY sent_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            """;
+
+    private static final String COUNT_BY_STATE = "SELECT count(*) FROM outbox_event WHERE state = ?";
+
+    // Summed over the shards (pg_partition_tree also covers an unpartitioned table)
+    private static final String TABLE_STATS = """
+            SELECT COALESCE(sum(pg_total_relation_size(s.relid)), 0),
+                   COALESCE(sum(s.n_live_tup), 0), COALESCE(sum(s.n_dead_tup), 0)
+            FROM pg_partition_tree('outbox_event') t
+            JOIN pg_stat_user_tables s ON s.relid = t.relid
+            """;
+
+    public record TableStats(long totalBytes, long liveTuples, long deadTuples) {
+        static final TableStats EMPTY = new TableStats(0, 0, 0);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxMaintenanceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Deletes up to {@code limit} events marked SENT before {@code sentBefore}.
+     *
+     * @return number of rows deleted
+     */
+    public int purgeSent(LocalDateTime sentBefore, int limit) {
+        return jdbcTemplate.update(PURGE_SENT, sentBefore, limit);
+    }
+
+    /**
+     * @param state an {@link com.pms.pms_trade_capture.domain.OutboxState} code
+     */
+    public long countByState(short state) {
+        Long count = jdbcTemplate.queryForObject(COUNT_BY_STATE, Long.class, state);
+        return count == null ? 0L : count;
+    }
+
+    public TableStats tableStats() {
+        TableStats stats = jdbcTemplate.query(TABLE_STATS,
+                rs -> rs.next() ? new TableStats(rs.getLong(1), rs.getLong(2), rs.getLong(3)) : null);
+        return stats == null ? TableStats.EMPTY : stats;
+    }
+}
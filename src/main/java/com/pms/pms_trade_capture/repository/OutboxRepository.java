@@ -23,7 +23,7 @@ public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
      */
     @Query(value = """
             SELECT * FROM outbox_event
-            WHERE status = 'PENDING'
+            WHERE state = 0
             AND pg_try_advisory_xact_lock(hashtext(portfolio_id::text))
             ORDER BY created_at ASC, id ASC
             LIMIT :limit
@@ -35,7 +35,7 @@ public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
      */
     @Modifying
     @Transactional
-    @Query(value = "UPDATE outbox_event SET status = 'SENT' WHERE id = :id", nativeQuery = true)
+    @Query(value = "UPDATE outbox_event SET state = 1, sent_at = CURRENT_TIMESTAMP WHERE id = :id", nativeQuery = true)
     void markSent(Long id);
 
     /**
@@ -43,15 +43,6 @@ public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
      * Must be called within a transaction.
      */
     @Modifying
-    @Query(value = "UPDATE outbox_event SET status = 'SENT', sent_at = CURRENT_TIMESTAMP WHERE id IN (:ids)", nativeQuery = true)
+    @Query(value = "UPDATE outbox_event SET state = 1, sent_at = CURRENT_TIMESTAMP WHERE id IN (:ids)", nativeQuery = true)
     void markBatchAsSent(@Param("ids") List<Long> ids);
-
-    /**
-     * Increments retry attempts for an event. Deprecated - avoid N+1 query patterns.
-     */
-    @Deprecated
-    @Modifying
-    @Transactional
-    @Query(value = "UPDATE outbox_event SET attempts = attempts + 1 WHERE id = :id", nativeQuery = true)
-    void incrementAttempts(Long id);
 }
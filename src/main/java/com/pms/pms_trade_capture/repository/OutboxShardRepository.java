@@ -0,0 +1,99 @@
+package com.pms.pms_trade_capture.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+
+/**
+ * Dispatch queries against a single outbox shard. outbox_event is hash-partitioned
+ * by portfolio_id, so every portfolio lives in exactly one shard table and each
+ * shard has its own index tails, row locks and autovacuum schedule. Polling a
+ * shard directly keeps a worker's scans and updates inside that one table.
+ *
+ * Ingest writes are unaffected: rows inserted into outbox_event are routed to
+ * the owning shard by PostgreSQL.
+ */
+@Repository
+public class OutboxShardRepository {
+
+    private static final Pattern SHARD_NAME = Pattern.compile("outbox_event_s\\d+");
+
+    private static final String LIST_SHARDS = """
+            SELECT c.relname
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'outbox_event'::regclass
+            ORDER BY c.relname
+            """;
+
+    // Same as OutboxRepository.findPendingBatch, scoped to one shard
+    private static final String FIND_PENDING = """
+            SELECT id, created_at, portfolio_id, trade_id, payload, state, trade_count
+            FROM %s
+            WHERE state = 0
+            AND pg_try_advisory_xact_lock(hashtext(portfolio_id::text))
+            ORDER BY created_at ASC, id ASC
+            LIMIT ?
+            """;
+
+    private static final String MARK_SENT = "UPDATE %s SET state = 1, sent_at = CURRENT_TIMESTAMP WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxShardRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the shard tables of outbox_event, empty if the table is not partitioned
+     */
+    public List<String> listShards() {
+        return jdbcTemplate.queryForList(LIST_SHARDS, String.class).stream()
+                .filter(name -> SHARD_NAME.matcher(name).matches())
+                .toList();
+    }
+
+    /**
+     * Must be called in a transaction (the advisory locks are transaction scoped).
+     */
+    public List<OutboxEvent> findPendingBatch(String shard, int limit) {
+        return jdbcTemplate.query(FIND_PENDING.formatted(checked(shard)), OutboxShardRepository::mapEvent, limit);
+    }
+
+    /**
+     * Must be called within a transaction.
+     */
+    public void markBatchAsSent(String shard, List<Long> ids) {
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement(MARK_SENT.formatted(checked(shard)));
+            ps.setArray(1, con.createArrayOf("int8", ids.toArray()));
+            return ps;
+        });
+    }
+
+    private static String checked(String shard) {
+        if (!SHARD_NAME.matcher(shard).matches()) {
+            throw new IllegalArgumentException("Not an outbox shard: " + shard);
+        }
+        return shard;
+    }
+
+    private static OutboxEvent mapEvent(ResultSet rs, int row) throws SQLException {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(rs.getLong(1));
+        event.setCreatedAt(rs.getObject(2, LocalDateTime.class));
+        event.setPortfolioId(rs.getObject(3, UUID.class));
+        event.setTradeId(rs.getObject(4, UUID.class));
+        event.setPayload(rs.getBytes(5));
+        event.setState(rs.getShort(6));
+        event.setTradeCount(rs.getInt(7));
+        return event;
+    }
+}
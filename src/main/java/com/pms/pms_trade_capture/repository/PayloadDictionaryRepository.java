@@ -0,0 +1,69 @@
+package com.pms.pms_trade_capture.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Trained zstd dictionaries for payload storage (PayloadCodec), and the row
+ * sample they are trained from. Dictionaries are never deleted: stored frames
+ * reference them by ID.
+ */
+@Repository
+public class PayloadDictionaryRepository {
+
+    private static final String FIND = "SELECT dict_id, dictionary FROM payload_dictionary WHERE dict_id = ?";
+
+    private static final String FIND_LATEST = """
+            SELECT dict_id, dictionary FROM payload_dictionary
+            ORDER BY created_at DESC
+            LIMIT 1
+            """;
+
+    private static final String INSERT = """
+            INSERT INTO payload_dictionary (dict_id, dictionary, sample_count, created_at)
+            VALUES (?, ?, ?, now())
+            ON CONFLICT (dict_id) DO NOTHING
+            """;
+
+    // Newest partitions first; the payloads of valid trades are what gets compressed
+    private static final String SAMPLE_PAYLOADS = """
+            SELECT raw_payload FROM safe_store_trade
+            WHERE is_valid AND received_at >= ?
+            ORDER BY received_at DESC
+            LIMIT ?
+            """;
+
+    public record Dictionary(long id, byte[] dictionary) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PayloadDictionaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<Dictionary> find(long dictId) {
+        return jdbcTemplate.query(FIND, (rs, row) -> new Dictionary(rs.getLong(1), rs.getBytes(2)), dictId)
+                .stream().findFirst();
+    }
+
+    public Optional<Dictionary> findLatest() {
+        return jdbcTemplate.query(FIND_LATEST, (rs, row) -> new Dictionary(rs.getLong(1), rs.getBytes(2)))
+                .stream().findFirst();
+    }
+
+    public void save(long dictId, byte[] dictionary, int sampleCount) {
+        jdbcTemplate.update(INSERT, dictId, dictionary, sampleCount);
+    }
+
+    /**
+     * @return stored payloads of recent valid trades, as stored (possibly encoded)
+     */
+    public List<byte[]> sampleRawPayloads(LocalDateTime receivedSince, int limit) {
+        return jdbcTemplate.query(SAMPLE_PAYLOADS, (rs, row) -> rs.getBytes(1), receivedSince, limit);
+    }
+}
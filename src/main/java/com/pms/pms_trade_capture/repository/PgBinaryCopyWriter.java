@@ -0,0 +1,192 @@
+package com.pms.pms_trade_capture.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Encoder for PostgreSQL's binary COPY format, streamed into a {@link CopyIn}.
+ *
+ * Rows are encoded into a reusable buffer that is flushed to the server every
+ * {@code FLUSH_BYTES}, so memory stays flat regardless of batch size.
+ * Only the column types used by the ingest tables are supported.
+ */
+final class PgBinaryCopyWriter {
+
+    private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    // PostgreSQL timestamps count microseconds from 2000-01-01T00:00:00
+    private static final long PG_EPOCH_SECONDS = LocalDateTime.of(2000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private final CopyIn copyIn;
+    private byte[] buf = new byte[FLUSH_BYTES + 1024];
+    private int pos;
+
+    PgBinaryCopyWriter(CopyIn copyIn) throws SQLException {
+        this.copyIn = copyIn;
+        put(SIGNATURE, 0, SIGNATURE.length);
+        writeInt(0); // flags
+        writeInt(0); // header extension length
+    }
+
+    void startRow(int fieldCount) throws SQLException {
+        if (pos >= FLUSH_BYTES) {
+            flush();
+        }
+        writeShort(fieldCount);
+    }
+
+    void writeBigint(long value) {
+        writeInt(8);
+        writeLong(value);
+    }
+
+    void writeInt4(int value) {
+        writeInt(4);
+        writeInt(value);
+    }
+
+    void writeInt4(Integer value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        writeInt4(value.intValue());
+    }
+
+    void writeInt2(Short value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        writeInt(2);
+        writeShort(value);
+    }
+
+    void writeDouble(double value) {
+        writeInt(8);
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    void writeBoolean(boolean value) {
+        writeInt(1);
+        ensure(1);
+        buf[pos++] = (byte) (value ? 1 : 0);
+    }
+
+    void writeUuid(UUID value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        writeInt(16);
+        writeLong(value.getMostSignificantBits());
+        writeLong(value.getLeastSignificantBits());
+    }
+
+    /** timestamp without time zone: the wall-clock value is sent as-is. */
+    void writeTimestamp(LocalDateTime value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        long seconds = value.toEpochSecond(ZoneOffset.UTC) - PG_EPOCH_SECONDS;
+        writeInt(8);
+        writeLong(seconds * 1_000_000L + value.getNano() / 1_000);
+    }
+
+    void writeText(String value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        put(bytes, 0, bytes.length);
+    }
+
+    void writeBytea(byte[] value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        writeInt(value.length);
+        put(value, 0, value.length);
+    }
+
+    void writeNull() {
+        writeInt(-1);
+    }
+
+    /**
+     * Writes the trailer and completes the COPY.
+     *
+     * @return number of rows the server loaded
+     */
+    long finish() throws SQLException {
+        writeShort(-1);
+        flush();
+        return copyIn.endCopy();
+    }
+
+    void cancel() {
+        try {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        } catch (SQLException ignored) {
+            // Connection is rolled back by the surrounding transaction anyway
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (pos > 0) {
+            copyIn.writeToCopy(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    private void writeShort(int v) {
+        ensure(2);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+    }
+
+    private void writeInt(int v) {
+        ensure(4);
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+    }
+
+    private void writeLong(long v) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[pos++] = (byte) (v >>> shift);
+        }
+    }
+
+    private void put(byte[] src, int off, int len) {
+        ensure(len);
+        System.arraycopy(src, off, buf, pos, len);
+        pos += len;
+    }
+
+    private void ensure(int extra) {
+        if (pos + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+    }
+
+    // Visible for tests
+    byte[] pending() {
+        return Arrays.copyOf(buf, pos);
+    }
+}
@@ -0,0 +1,47 @@
+package com.pms.pms_trade_capture.repository;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.pms.pms_trade_capture.domain.StreamCheckpoint;
+
+/**
+ * Per-stream ingest checkpoint in PostgreSQL. Advanced inside the batch
+ * transaction, so the stored offset can never run ahead of the persisted rows
+ * (unlike the broker-side offset, which is stored after the commit).
+ */
+@Repository
+public class StreamCheckpointRepository {
+
+    // GREATEST: a late or retried writer never moves the checkpoint backwards
+    private static final String ADVANCE = """
+            INSERT INTO ingest_stream_checkpoint (stream, committed_offset, updated_at)
+            VALUES (?, ?, now())
+            ON CONFLICT (stream) DO UPDATE
+            SET committed_offset = GREATEST(ingest_stream_checkpoint.committed_offset, EXCLUDED.committed_offset),
+                updated_at = now()
+            """;
+
+    private static final String FIND = "SELECT committed_offset FROM ingest_stream_checkpoint WHERE stream = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StreamCheckpointRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Must run in the transaction that persisted the covered messages.
+     */
+    public void advance(StreamCheckpoint checkpoint) {
+        jdbcTemplate.update(ADVANCE, checkpoint.stream(), checkpoint.offset());
+    }
+
+    public OptionalLong find(String stream) {
+        List<Long> offsets = jdbcTemplate.queryForList(FIND, Long.class, stream);
+        return offsets.isEmpty() ? OptionalLong.empty() : OptionalLong.of(offsets.get(0));
+    }
+}
@@ -0,0 +1,63 @@
+package com.pms.pms_trade_capture.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * symbol_dictionary: the integer IDs safe_store_trade stores instead of symbol text.
+ */
+@Repository
+public class SymbolDictionaryRepository {
+
+    private static final String FIND_ALL = "SELECT symbol_id, symbol FROM symbol_dictionary";
+
+    private static final String INSERT_MISSING = """
+            INSERT INTO symbol_dictionary (symbol)
+            SELECT unnest(?::varchar[])
+            ON CONFLICT (symbol) DO NOTHING
+            """;
+
+    // Separate statement: sees the rows other instances registered concurrently
+    private static final String FIND_BY_SYMBOLS =
+            "SELECT symbol_id, symbol FROM symbol_dictionary WHERE symbol = ANY(?::varchar[])";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SymbolDictionaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** @return symbol to ID */
+    public Map<String, Integer> findAll() {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query(FIND_ALL, (RowCallbackHandler) rs -> ids.put(rs.getString(2), rs.getInt(1)));
+        return ids;
+    }
+
+    /**
+     * Adds the symbols that are not in the dictionary yet. Must run in its own
+     * transaction: IDs handed to the cache have to be committed.
+     *
+     * @return symbol to ID for all given symbols
+     */
+    public Map<String, Integer> register(Collection<String> symbols) {
+        String[] values = symbols.toArray(String[]::new);
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement(INSERT_MISSING);
+            ps.setArray(1, con.createArrayOf("varchar", values));
+            return ps;
+        });
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(FIND_BY_SYMBOLS);
+            ps.setArray(1, con.createArrayOf("varchar", values));
+            return ps;
+        }, (RowCallbackHandler) rs -> ids.put(rs.getString(2), rs.getInt(1)));
+        return ids;
+    }
+}
@@ -0,0 +1,134 @@
+package com.pms.pms_trade_capture.repository;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+import com.pms.pms_trade_capture.domain.SafeStoreTrade;
+import com.pms.pms_trade_capture.utils.BlockIdAllocator;
+import com.pms.pms_trade_capture.utils.IdAllocators;
+
+/**
+ * Bulk-load engine: streams a batch into safe_store_trade and outbox_event with
+ * binary COPY on the connection of the current transaction, bypassing the JPA
+ * persistence context and Hibernate's per-statement batching.
+ *
+ * IDs come from the per-table prefetched blocks, so the COPY needs no sequence
+ * round trip.
+ *
+ * The cross-partition replay check (see IngestJdbcRepository) is part of the
+ * trade COPY: its WHERE clause skips valid trades already persisted within the
+ * dedup lookback (a subquery is not allowed there, hence the SQL function from
+ * Liquibase v4), and a short row count fails the batch before the outbox is
+ * loaded.
+ */
+@Repository
+public class TradeCopyRepository {
+
+    private static final String COPY_SAFE_STORE = """
+            COPY safe_store_trade (id, received_at, portfolio_id, trade_id, symbol, side, price_per_stock,
+                                   quantity, raw_payload, is_valid, event_timestamp, symbol_id, side_code)
+            FROM STDIN (FORMAT BINARY)
+            WHERE NOT is_valid OR NOT safe_store_trade_seen(trade_id, '%s')
+            """;
+
+    private static final String COPY_OUTBOX = """
+            COPY outbox_event (id, created_at, portfolio_id, trade_id, payload, state, trade_count)
+            FROM STDIN (FORMAT BINARY)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocators idAllocators;
+    private final Duration dedupLookback;
+
+    public TradeCopyRepository(JdbcTemplate jdbcTemplate, IdAllocators idAllocators,
+            @Value("${app.safe-store.partitions.dedup-lookback:P3D}") Duration dedupLookback) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocators = idAllocators;
+        this.dedupLookback = dedupLookback;
+    }
+
+    /**
+     * Loads both lists; must run inside the caller's transaction.
+     */
+    public void copyAll(List<SafeStoreTrade> trades, List<OutboxEvent> events) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            CopyManager copyManager = con.unwrap(PGConnection.class).getCopyAPI();
+            if (!trades.isEmpty()) {
+                copySafeStore(copyManager, trades);
+            }
+            if (!events.isEmpty()) {
+                copyOutbox(copyManager, events);
+            }
+            return null;
+        });
+    }
+
+    private void copySafeStore(CopyManager copyManager, List<SafeStoreTrade> trades) throws SQLException {
+        BlockIdAllocator ids = idAllocators.safeStoreTrade();
+        // COPY takes no bind parameters; the horizon is a formatted timestamp, not input
+        String copy = COPY_SAFE_STORE.formatted(LocalDateTime.now().minus(dedupLookback));
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(copyManager.copyIn(copy));
+        try {
+            for (int i = 0; i < trades.size(); i++) {
+                SafeStoreTrade t = trades.get(i);
+                t.setId(ids.next());
+                writer.startRow(13);
+                writer.writeBigint(t.getId());
+                writer.writeTimestamp(t.getReceivedAt());
+                writer.writeUuid(t.getPortfolioId());
+                writer.writeUuid(t.getTradeId());
+                writer.writeText(t.getSymbol());
+                writer.writeText(t.getSide());
+                writer.writeDouble(t.getPricePerStock());
+                writer.writeBigint(t.getQuantity());
+                writer.writeBytea(t.getRawPayload());
+                writer.writeBoolean(t.isValid());
+                writer.writeTimestamp(t.getEventTimestamp());
+                writer.writeInt4(t.getSymbolId());
+                writer.writeInt2(t.getSideCode());
+            }
+            long loaded = writer.finish();
+            if (loaded < trades.size()) {
+                throw new DataIntegrityViolationException((trades.size() - loaded) + " of " + trades.size()
+                        + " trade IDs already persisted within the dedup lookback");
+            }
+        } catch (SQLException | RuntimeException e) {
+            writer.cancel();
+            throw e;
+        }
+    }
+
+    private void copyOutbox(CopyManager copyManager, List<OutboxEvent> events) throws SQLException {
+        BlockIdAllocator ids = idAllocators.outboxEvent();
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(copyManager.copyIn(COPY_OUTBOX));
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                OutboxEvent e = events.get(i);
+                e.setId(ids.next());
+                writer.startRow(7);
+                writer.writeBigint(e.getId());
+                writer.writeTimestamp(e.getCreatedAt());
+                writer.writeUuid(e.getPortfolioId());
+                writer.writeUuid(e.getTradeId());
+                writer.writeBytea(e.getPayload());
+                writer.writeInt2(e.getState());
+                writer.writeInt4(e.getTradeCount());
+            }
+            writer.finish();
+        } catch (SQLException | RuntimeException e) {
+            writer.cancel();
+            throw e;
+        }
+    }
+}
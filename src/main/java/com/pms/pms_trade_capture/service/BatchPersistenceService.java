@@ -1,29 +1,49 @@
 package com.pms.pms_trade_capture.service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.pms.pms_trade_capture.domain.DlqEntry;
+import com.pms.pms_trade_capture.config.DbWorkload;
 import com.pms.pms_trade_capture.domain.OutboxEvent;
 import com.pms.pms_trade_capture.domain.PendingStreamMessage;
 import com.pms.pms_trade_capture.domain.SafeStoreTrade;
+import com.pms.pms_trade_capture.domain.SideCode;
+import com.pms.pms_trade_capture.domain.StreamCheckpoint;
 import com.pms.pms_trade_capture.dto.TradeEventMapper;
-import com.pms.pms_trade_capture.repository.DlqRepository;
+import com.pms.pms_trade_capture.dto.ValidatedTrade;
+import com.pms.pms_trade_capture.repository.IngestJdbcRepository;
 import com.pms.pms_trade_capture.repository.OutboxRepository;
-import com.pms.pms_trade_capture.repository.SafeStoreRepository;
+import com.pms.pms_trade_capture.repository.StreamCheckpointRepository;
+import com.pms.pms_trade_capture.repository.TradeCopyRepository;
+import com.pms.pms_trade_capture.service.metrics.RttmEventEmitter;
 import com.pms.pms_trade_capture.utils.AppMetrics;
-import com.pms.rttm.client.clients.RttmClient;
+import com.pms.pms_trade_capture.utils.IngestHorizon;
+import com.pms.pms_trade_capture.utils.PayloadArrayCodec;
+import com.pms.pms_trade_capture.utils.PayloadCodec;
+import com.pms.pms_trade_capture.utils.PortfolioIdCache;
+import com.pms.pms_trade_capture.utils.RecentTradeIdFilter;
+import com.pms.pms_trade_capture.utils.SymbolDictionary;
+import com.pms.pms_trade_capture.utils.UuidCodec;
 import com.pms.rttm.client.dto.DlqEventPayload;
 import com.pms.rttm.client.enums.EventStage;
-import com.pms.trade_capture.proto.TradeEventProto;
 
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 
@@ -31,11 +51,55 @@ import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 public class BatchPersistenceService {
     private static final Logger log = LoggerFactory.getLogger(BatchPersistenceService.class);
 
-    private final SafeStoreRepository safeStoreRepository;
     private final OutboxRepository outboxRepository;
-    private final DlqRepository dlqRepository;
+    private final DlqWriter dlqWriter;
     private final AppMetrics metrics;
-    private final RttmClient rttmClient;
+    private final RttmEventEmitter rttmEmitter;
+    private final PortfolioIdCache portfolioIdCache;
+    private final IngestJdbcRepository ingestJdbcRepository;
+    private final RecentTradeIdFilter recentTradeIds;
+    private final TradeCopyRepository tradeCopyRepository;
+    private final StreamCheckpointRepository checkpointRepository;
+    private final TransactionTemplate dlqTransaction;
+    private final IngestHorizon ingestHorizon;
+    private final PayloadCodec payloadCodec;
+    private final SymbolDictionary symbolDictionary;
+
+    // Idempotent mode: ON CONFLICT DO NOTHING + outbox rows only for new trades
+    @Value("${app.ingest.idempotent.enabled:false}")
+    private boolean idempotentWrites;
+
+    @Value("${app.ingest.idempotent.filter.warm-up-limit:1000000}")
+    private int warmUpLimit;
+
+    @Value("${app.ingest.idempotent.filter.window-ms:600000}")
+    private long filterWindowMs;
+
+    // 'jpa' (outbox saveAll), 'jdbc' (multi-row unnest insert), 'copy' (binary COPY)
+    // or 'auto' (COPY from copy.min-batch-size, JPA below)
+    @Value("${app.ingest.write-engine:jpa}")
+    private String writeEngine;
+
+    @Value("${app.ingest.copy.min-batch-size:200}")
+    private int copyMinBatchSize;
+
+    // 'table': one outbox_event row per valid trade. 'cursor': no outbox row, the
+    // dispatcher reads safe_store_trade in ID order (CursorDispatcher)
+    @Value("${app.outbox.mode:table}")
+    private String outboxMode;
+
+    // 'single': one outbox row per trade. 'portfolio-batch': one row per portfolio
+    // per flush carrying its trades in order, at most max-trades-per-row each
+    @Value("${app.outbox.row-format:single}")
+    private String outboxRowFormat;
+
+    @Value("${app.outbox.max-trades-per-row:100}")
+    private int maxTradesPerRow;
+
+    // Valid trades store symbol_id / side_code instead of the text columns (opt-in:
+    // readers must go through safe_store_trade_decoded)
+    @Value("${app.safe-store.symbol-dictionary.enabled:false}")
+    private boolean symbolDictionaryEnabled;
 
     @Value("${spring.application.name}")
     private String serviceName;
@@ -45,16 +109,33 @@ public class BatchPersistenceService {
 
     private static final String CB_NAME = "pmsDb";
 
-    public BatchPersistenceService(SafeStoreRepository safeStoreRepository,
-            OutboxRepository outboxRepository,
-            DlqRepository dlqRepository,
+    public BatchPersistenceService(OutboxRepository outboxRepository,
+            DlqWriter dlqWriter,
             AppMetrics metrics,
-            RttmClient rttmClient) {
-        this.safeStoreRepository = safeStoreRepository;
+            RttmEventEmitter rttmEmitter,
+            PortfolioIdCache portfolioIdCache,
+            IngestJdbcRepository ingestJdbcRepository,
+            RecentTradeIdFilter recentTradeIds,
+            TradeCopyRepository tradeCopyRepository,
+            StreamCheckpointRepository checkpointRepository,
+            PlatformTransactionManager transactionManager,
+            IngestHorizon ingestHorizon,
+            PayloadCodec payloadCodec,
+            SymbolDictionary symbolDictionary) {
         this.outboxRepository = outboxRepository;
-        this.dlqRepository = dlqRepository;
+        this.dlqWriter = dlqWriter;
         this.metrics = metrics;
-        this.rttmClient = rttmClient;
+        this.rttmEmitter = rttmEmitter;
+        this.portfolioIdCache = portfolioIdCache;
+        this.ingestJdbcRepository = ingestJdbcRepository;
+        this.recentTradeIds = recentTradeIds;
+        this.tradeCopyRepository = tradeCopyRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.dlqTransaction = new TransactionTemplate(transactionManager);
+        this.dlqTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ingestHorizon = ingestHorizon;
+        this.payloadCodec = payloadCodec;
+        this.symbolDictionary = symbolDictionary;
     }
 
     /**
@@ -66,37 +147,184 @@ public class BatchPersistenceService {
     @Transactional
     @CircuitBreaker(name = CB_NAME)
     public void persistBatch(List<PendingStreamMessage> batch) {
+        persistBatch(batch, null);
+    }
+
+    /**
+     * Same as {@link #persistBatch(List)}, also advancing the stream checkpoint in
+     * the same transaction: either the rows and the checkpoint commit, or neither.
+     *
+     * @param checkpoint offset covered once this batch commits, or null
+     */
+    @Transactional
+    @CircuitBreaker(name = CB_NAME)
+    public void persistBatch(List<PendingStreamMessage> batch, StreamCheckpoint checkpoint) {
+        if (cursorDispatch()) {
+            ingestHorizon.joinCurrentTransaction();
+        }
+        if (checkpoint != null) {
+            checkpointRepository.advance(checkpoint);
+        }
+        if (idempotentWrites) {
+            persistIdempotent(batch);
+            return;
+        }
         List<SafeStoreTrade> safeTrades = new ArrayList<>();
         List<OutboxEvent> outboxEvents = new ArrayList<>();
         for (PendingStreamMessage msg : batch) {
             prepareEntities(msg, safeTrades, outboxEvents);
         }
+        encodeSymbols(safeTrades);
+        outboxEvents = outboxRows(outboxEvents);
+        if (useCopy(batch.size())) {
+            // Same transaction: a failed COPY rolls back both tables
+            tradeCopyRepository.copyAll(safeTrades, outboxEvents);
+            metrics.incrementIngestCopyBatch();
+        } else {
+            writeEntities(safeTrades, outboxEvents);
+        }
+        metrics.incrementIngestSuccess(safeTrades.size());
+    }
+
+    private void writeEntities(List<SafeStoreTrade> safeTrades, List<OutboxEvent> outboxEvents) {
+        if ("jdbc".equalsIgnoreCase(writeEngine)) {
+            // Entities stay detached: nothing is attached to the persistence context
+            if (!safeTrades.isEmpty() || !outboxEvents.isEmpty())
+                ingestJdbcRepository.insertAll(safeTrades, outboxEvents);
+            return;
+        }
+        // The trade insert carries the replay check (see IngestJdbcRepository); a
+        // replayed trade fails it before any outbox row is written
         if (!safeTrades.isEmpty())
-            safeStoreRepository.saveAll(safeTrades);
+            ingestJdbcRepository.insertSafeStoreRejectingReplays(safeTrades);
         if (!outboxEvents.isEmpty())
             outboxRepository.saveAll(outboxEvents);
-        metrics.incrementIngestSuccess(safeTrades.size());
+    }
+
+    /**
+     * The outbox rows to write for a flush's events, payloads in storage encoding.
+     */
+    private List<OutboxEvent> outboxRows(List<OutboxEvent> events) {
+        List<OutboxEvent> rows = toOutboxRows(events);
+        for (OutboxEvent row : rows) {
+            row.setPayload(payloadCodec.encode(row.getPayload()));
+        }
+        return rows;
+    }
+
+    /**
+     * Portfolio-batch row format: folds a flush's events into one row per portfolio
+     * (split at max-trades-per-row), each holding the portfolio's payloads in
+     * order. Cuts outbox inserts, index entries and mark-sent updates by the
+     * fan-in; OutboxEventProcessor fans the row back out to one record per trade.
+     */
+    List<OutboxEvent> toOutboxRows(List<OutboxEvent> events) {
+        if (events.size() < 2 || !"portfolio-batch".equalsIgnoreCase(outboxRowFormat)) {
+            return events;
+        }
+        Map<UUID, List<OutboxEvent>> byPortfolio = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            byPortfolio.computeIfAbsent(event.getPortfolioId(), k -> new ArrayList<>()).add(event);
+        }
+        List<OutboxEvent> rows = new ArrayList<>(byPortfolio.size());
+        for (List<OutboxEvent> portfolioEvents : byPortfolio.values()) {
+            for (int from = 0; from < portfolioEvents.size(); from += maxTradesPerRow) {
+                List<OutboxEvent> chunk = portfolioEvents.subList(from,
+                        Math.min(portfolioEvents.size(), from + maxTradesPerRow));
+                rows.add(chunk.size() == 1 ? chunk.get(0) : batchedRow(chunk));
+            }
+        }
+        return rows;
+    }
+
+    private static OutboxEvent batchedRow(List<OutboxEvent> events) {
+        List<byte[]> payloads = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            payloads.add(event.getPayload());
+        }
+        OutboxEvent first = events.get(0);
+        OutboxEvent row = new OutboxEvent(first.getPortfolioId(), first.getTradeId(),
+                PayloadArrayCodec.encode(payloads));
+        row.setTradeCount(events.size());
+        return row;
+    }
+
+    /**
+     * Replaces the symbol and side text of valid trades with their dictionary ID
+     * and side code. Symbols new to this instance are registered once for the
+     * whole flush; a flush of known symbols resolves them from memory only.
+     * Invalid rows keep their placeholder text.
+     */
+    private void encodeSymbols(List<SafeStoreTrade> safeTrades) {
+        if (!symbolDictionaryEnabled) {
+            return;
+        }
+        Set<String> symbols = new LinkedHashSet<>();
+        for (SafeStoreTrade t : safeTrades) {
+            if (t.isValid()) {
+                symbols.add(t.getSymbol());
+            }
+        }
+        if (symbols.isEmpty()) {
+            return;
+        }
+        symbolDictionary.registerAll(symbols);
+        for (SafeStoreTrade t : safeTrades) {
+            if (!t.isValid()) {
+                continue;
+            }
+            Integer symbolId = symbolDictionary.idOf(t.getSymbol());
+            if (symbolId != null) {
+                t.setSymbolId(symbolId);
+                t.setSymbol(null);
+            }
+            byte sideCode = SideCode.of(t.getSide());
+            if (sideCode != SideCode.NONE) {
+                t.setSideCode((short) sideCode);
+                t.setSide(null);
+            }
+        }
+    }
+
+    private boolean cursorDispatch() {
+        return "cursor".equalsIgnoreCase(outboxMode);
+    }
+
+    /**
+     * Large (catch-up) batches go through binary COPY; small steady-state batches
+     * keep the JPA path, where COPY's extra round trips don't pay off.
+     */
+    boolean useCopy(int batchSize) {
+        return switch (writeEngine.toLowerCase()) {
+            case "copy" -> true;
+            case "auto" -> batchSize >= copyMinBatchSize;
+            default -> false;
+        };
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     @CircuitBreaker(name = CB_NAME)
     public boolean persistSingleSafely(PendingStreamMessage msg) {
         try {
+            if (cursorDispatch()) {
+                ingestHorizon.joinCurrentTransaction();
+            }
+            if (idempotentWrites) {
+                persistIdempotent(List.of(msg));
+                return true;
+            }
             List<SafeStoreTrade> safeTrades = new ArrayList<>();
             List<OutboxEvent> outboxEvents = new ArrayList<>();
             prepareEntities(msg, safeTrades, outboxEvents);
-
-            if (!safeTrades.isEmpty())
-                safeStoreRepository.saveAll(safeTrades);
-            if (!outboxEvents.isEmpty())
-                outboxRepository.saveAll(outboxEvents);
+            encodeSymbols(safeTrades);
+            writeEntities(safeTrades, outboxRows(outboxEvents));
 
             metrics.incrementIngestSuccess(1);
             return true;
         } catch (Exception e) {
             // If circuit breaker is open, this method won't execute
             // Check if it's a data integrity issue vs connection problem
-            if (e instanceof org.springframework.dao.DataIntegrityViolationException
+            if (e instanceof DataIntegrityViolationException
                     || e instanceof IllegalArgumentException) {
                 log.warn("Data integrity error for seq {}. Moving to DLQ.", msg.getOffset());
                 saveToDlq(msg, "Data Error: " + e.getMessage());
@@ -106,36 +334,132 @@ public class BatchPersistenceService {
         }
     }
 
+    /**
+     * Idempotent write: replayed trades are neither rejected nor re-published.
+     *
+     * 1. Trade IDs the recent-ID filter has possibly seen are confirmed with one
+     *    indexed lookup and dropped if present (the common replay case).
+     * 2. The rest is inserted only if the trade ID is absent from the partitions
+     *    inside the dedup lookback, so a duplicate the filter missed (e.g. after a
+     *    restart) is skipped instead of failing the batch.
+     * 3. Outbox rows are written only for rows that were actually inserted.
+     */
+    private void persistIdempotent(List<PendingStreamMessage> batch) {
+        List<SafeStoreTrade> safeTrades = new ArrayList<>(batch.size());
+        // Aligned with safeTrades; null for invalid rows and in cursor mode
+        List<OutboxEvent> outboxCandidates = new ArrayList<>(batch.size());
+        List<OutboxEvent> single = new ArrayList<>(1);
+        for (PendingStreamMessage msg : batch) {
+            prepareEntities(msg, safeTrades, single);
+            outboxCandidates.add(single.isEmpty() ? null : single.get(0));
+            single.clear();
+        }
+        encodeSymbols(safeTrades);
+
+        List<UUID> suspects = new ArrayList<>();
+        for (SafeStoreTrade t : safeTrades) {
+            if (t.isValid() && recentTradeIds.mightContain(t.getTradeId())) {
+                suspects.add(t.getTradeId());
+            }
+        }
+        Set<UUID> existing = suspects.isEmpty() ? Set.of() : ingestJdbcRepository.findExistingTradeIds(suspects);
+
+        List<SafeStoreTrade> toInsert = new ArrayList<>(safeTrades.size());
+        List<OutboxEvent> toInsertOutbox = new ArrayList<>(safeTrades.size());
+        for (int i = 0; i < safeTrades.size(); i++) {
+            SafeStoreTrade t = safeTrades.get(i);
+            if (t.isValid() && existing.contains(t.getTradeId())) {
+                continue;
+            }
+            toInsert.add(t);
+            toInsertOutbox.add(outboxCandidates.get(i));
+        }
+
+        int inserted = 0;
+        List<OutboxEvent> outboxEvents = new ArrayList<>(toInsert.size());
+        if (!toInsert.isEmpty()) {
+            boolean[] rowInserted = ingestJdbcRepository.insertSafeStoreIgnoringDuplicates(toInsert);
+            for (int i = 0; i < rowInserted.length; i++) {
+                if (rowInserted[i]) {
+                    inserted++;
+                    if (toInsertOutbox.get(i) != null) {
+                        outboxEvents.add(toInsertOutbox.get(i));
+                    }
+                }
+            }
+        }
+        if (!outboxEvents.isEmpty())
+            ingestJdbcRepository.insertOutbox(outboxRows(outboxEvents));
+
+        // Inserted or not, every valid trade ID is now in the safe store
+        for (SafeStoreTrade t : safeTrades) {
+            if (t.isValid()) {
+                recentTradeIds.put(t.getTradeId());
+            }
+        }
+
+        metrics.incrementIngestSuccess(inserted);
+        metrics.incrementIngestDuplicate(safeTrades.size() - inserted);
+    }
+
+    /**
+     * Seeds the recent-ID filter from the last window of persisted trades so the
+     * replay right after a restart is filtered too. No-op outside idempotent mode.
+     */
+    public void warmUpRecentTradeIds() {
+        if (!idempotentWrites) {
+            return;
+        }
+        try {
+            List<UUID> recent = ingestJdbcRepository.findRecentTradeIds(
+                    LocalDateTime.now().minus(Duration.ofMillis(filterWindowMs)), warmUpLimit);
+            recent.forEach(recentTradeIds::put);
+            log.info("Recent trade ID filter warmed up with {} IDs", recent.size());
+        } catch (Exception e) {
+            // Only an optimization: ON CONFLICT still guarantees idempotency
+            log.warn("Recent trade ID filter warm-up failed: {}", e.getMessage());
+        }
+    }
+
     private void prepareEntities(PendingStreamMessage msg, List<SafeStoreTrade> safeTrades,
             List<OutboxEvent> outboxEvents) {
         if (msg.isValid()) {
-            SafeStoreTrade safeTrade = TradeEventMapper.pendingMessageToSafeStoreTrade(msg);
+            SafeStoreTrade safeTrade;
+            ValidatedTrade validated = msg.getValidated();
+            if (validated != null) {
+                // Validated on the stream thread: UUIDs already parsed, values normalized
+                safeTrade = TradeEventMapper.validatedToSafeStoreTrade(validated, msg.getRawMessageBytes());
+            } else {
+                // Portfolio UUID is interned; the same instances back both rows
+                safeTrade = TradeEventMapper.pendingMessageToSafeStoreTrade(msg,
+                        portfolioIdCache.intern(msg.getPortfolioId()).getId(), UuidCodec.parse(msg.getTradeId()));
+            }
+            UUID portfolioId = safeTrade.getPortfolioId();
+            UUID tradeId = safeTrade.getTradeId();
             safeTrade.setValid(true);
+            safeTrade.setRawPayload(payloadCodec.encode(safeTrade.getRawPayload()));
             safeTrades.add(safeTrade);
-            TradeEventProto proto = msg.getTrade();
-            outboxEvents.add(new OutboxEvent(UUID.fromString(proto.getPortfolioId()),
-                    UUID.fromString(proto.getTradeId()),
-                    proto.toByteArray()));
+            if (cursorDispatch()) {
+                // Dispatched from safe_store_trade.raw_payload; no second copy of the bytes
+                return;
+            }
+            // Pass-through mode: inbound bytes are the canonical payload, no re-encode
+            byte[] payload = msg.isPassThrough() ? msg.getRawMessageBytes() : msg.getTrade().toByteArray();
+            outboxEvents.add(new OutboxEvent(portfolioId, tradeId, payload));
         } else {
-            safeTrades.add(SafeStoreTrade.createInvalid(msg.getRawMessageBytes()));
-            saveToDlq(msg, "Invalid Trade Message detected at offset " + msg.getOffset());
+            safeTrades.add(SafeStoreTrade.createInvalid(payloadCodec.encode(msg.getRawMessageBytes())));
+            writeDlq(msg, msg.getParseError() != null ? msg.getParseError()
+                    : "Invalid Trade Message detected at offset " + msg.getOffset());
         }
     }
 
     // --- LEVEL 3: DLQ (Last Line of DB Defense) ---
     // Runs in its own transaction to ensure it commits even if everything else
-    // failed.
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    // failed, on the DLQ connection pool so a DLQ storm cannot starve ingest.
     public void saveToDlq(PendingStreamMessage msg, String errorReason) {
         try {
-            DlqEntry entry = new DlqEntry(msg.getRawMessageBytes(), errorReason);
-            dlqRepository.save(entry);
-            
-            // Send DLQ event to RTTM with trade ID if available
-            sendDlqEventToRttm(msg, errorReason);
-            
-            log.warn("DLQ: Message {} saved | Reason: {}", msg.getOffset(), errorReason);
-            
+            DbWorkload.DLQ.run(() -> dlqTransaction.executeWithoutResult(
+                    status -> writeDlq(msg, errorReason)));
         } catch (Exception e) {
             // --- LEVEL 4: NUCLEAR OPTION (Disk Log) ---
             // If we can't write to DB, we MUST log the payload bytes to disk/console.
@@ -147,6 +471,19 @@ public class BatchPersistenceService {
         }
     }
 
+    /**
+     * DLQ write joining the caller's transaction: an invalid message's DLQ entry
+     * commits or rolls back together with its safe store row.
+     */
+    private void writeDlq(PendingStreamMessage msg, String errorReason) {
+        dlqWriter.write(msg.getRawMessageBytes(), errorReason);
+
+        // Send DLQ event to RTTM with trade ID if available
+        sendDlqEventToRttm(msg, errorReason);
+
+        log.warn("DLQ: Message {} saved | Reason: {}", msg.getOffset(), errorReason);
+    }
+
     /**
      * Convenience method for direct DLQ persistence (used by backpressure overflow
      * handling).
@@ -173,8 +510,8 @@ public class BatchPersistenceService {
             String tradeId = "UNKNOWN";
             
             // Try to extract trade ID from valid message
-            if (msg.isValid() && msg.getTrade() != null) {
-                tradeId = msg.getTrade().getTradeId();
+            if (msg.isValid()) {
+                tradeId = msg.getTradeId();
             }
             
             DlqEventPayload dlqEvent = DlqEventPayload.builder()
@@ -185,12 +522,12 @@ public class BatchPersistenceService {
                     .eventStage(EventStage.RECEIVED)
                     .build();
             
-            rttmClient.sendDlqEvent(dlqEvent);
+            rttmEmitter.emit(dlqEvent);
             log.info("RTTM[DLQ_INGESTION] tradeId={} offset={} topic={} reason={}", 
                     tradeId, msg.getOffset(), rttmDlqTopicIngestion, reason);
         } catch (Exception e) {
             log.warn("RTTM[DLQ_INGESTION] FAILED tradeId={}: {}", 
-                    msg.isValid() && msg.getTrade() != null ? msg.getTrade().getTradeId() : "UNKNOWN", 
+                    msg.isValid() ? msg.getTradeId() : "UNKNOWN",
                     e.getMessage());
         }
     }
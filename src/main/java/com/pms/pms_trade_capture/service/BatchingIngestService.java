@@ -1,13 +1,8 @@
 package com.pms.pms_trade_capture.service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,15 +12,21 @@ import org.springframework.context.SmartLifecycle;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import com.pms.pms_trade_capture.config.RabbitStreamConfig;
 import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+import com.pms.pms_trade_capture.service.metrics.RttmEventEmitter;
+import com.pms.pms_trade_capture.stream.StreamCheckpoints;
 import com.pms.pms_trade_capture.stream.StreamConsumerManager;
+import com.pms.pms_trade_capture.utils.AppMetrics;
 import com.rabbitmq.stream.MessageHandler;
-import com.pms.rttm.client.clients.RttmClient;
-import com.pms.rttm.client.dto.ErrorEventPayload;
-import com.pms.rttm.client.enums.EventStage;
-
-import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 
+/**
+ * Routes stream messages to one {@link IngestPipeline} per consumed stream.
+ *
+ * In single stream mode there is exactly one pipeline. In super stream mode
+ * every partition gets its own buffer, flusher and offset tracking so ingest
+ * throughput scales with the partition count.
+ */
 @Service
 public class BatchingIngestService implements SmartLifecycle {
     private static final Logger log = LoggerFactory.getLogger(BatchingIngestService.class);
@@ -34,36 +35,45 @@ public class BatchingIngestService implements SmartLifecycle {
     private final StreamOffsetManager offsetManager;
     private final StreamConsumerManager consumerManager;
     private final ScheduledExecutorService scheduler;
-    private final RttmClient rttmClient;
-
-    private final ReentrantLock bufferLock = new ReentrantLock();
-
-    private final BlockingQueue<PendingStreamMessage> messageBuffer = new LinkedBlockingQueue<>(10000);
+    private final RttmEventEmitter rttmEmitter;
+    private final RabbitStreamConfig rabbitConfig;
+    private final StreamCheckpoints checkpoints;
+    private final AppMetrics metrics;
 
     @Value("${app.ingest.batch.max-size:500}")
     private int maxBatchSize;
 
     @Value("${app.ingest.batch.flush-interval-ms:100}")
     private long flushIntervalMs;
-    
-    @Value("${app.ingest.batch.drain-size:500}")
-    private int drainSize;
-    
+
     @Value("${app.ingest.batch.resume-threshold:1000}")
     private int resumeThreshold;
-    
+
     @Value("${app.ingest.batch.circuit-retry-delay-ms:5000}")
     private long circuitRetryDelayMs;
 
+    // >1: batches are split by portfolio and written concurrently, offsets
+    // committed through an ordered watermark
+    @Value("${app.ingest.flush.workers:1}")
+    private int flushWorkers;
+
+    // 'queue' (LinkedBlockingQueue) or 'ring' (preallocated SPSC ring buffer)
+    @Value("${app.ingest.buffer.mode:queue}")
+    private String bufferMode;
+
+    @Value("${app.ingest.buffer.capacity:10000}")
+    private int bufferCapacity;
+
+    // Ring mode only: blocking | sleeping | yielding | busy-spin
+    @Value("${app.ingest.buffer.wait-strategy:blocking}")
+    private String waitStrategy;
+
     @Value("${spring.application.name}")
     private String serviceName;
 
-    // Single Ordered Buffer (Fixes Offset Gap Bug)
-    // private final List<PendingStreamMessage> currentBatch = new ArrayList<>();
-    // private final Object batchLock = new Object();
-
-    // Handle to the running task, so we can cancel it specifically
-    private volatile ScheduledFuture<?> flushTask;
+    // Stream name -> pipeline. Insertion ordered; the first entry is the default route.
+    private volatile Map<String, IngestPipeline> pipelines = Map.of();
+    private volatile IngestPipeline defaultPipeline;
     private volatile boolean running = false;
 
     public BatchingIngestService(
@@ -71,43 +81,54 @@ public class BatchingIngestService implements SmartLifecycle {
             StreamOffsetManager offsetManager,
             @Qualifier("ingestScheduler") ScheduledExecutorService scheduler,
             @Lazy StreamConsumerManager consumerManager,
-            RttmClient rttmClient) {
+            RttmEventEmitter rttmEmitter,
+            RabbitStreamConfig rabbitConfig,
+            StreamCheckpoints checkpoints,
+            AppMetrics metrics) {
         this.consumerManager = consumerManager;
         this.persistenceService = persistenceService;
         this.offsetManager = offsetManager;
         this.scheduler = scheduler;
-        this.rttmClient = rttmClient;
+        this.rttmEmitter = rttmEmitter;
+        this.rabbitConfig = rabbitConfig;
+        this.checkpoints = checkpoints;
+        this.metrics = metrics;
     }
 
     @Override
     public void start() {
-        log.info("Starting Batching Ingest Task...");
-
-        // Schedule the task on the injected executor
-        this.flushTask = scheduler.scheduleWithFixedDelay(
-                this::flushOnTime,
-                flushIntervalMs,
-                flushIntervalMs / 2,
-                TimeUnit.MILLISECONDS);
+        log.info("Starting Batching Ingest Task(s) (buffer: {}, capacity: {})...", bufferMode, bufferCapacity);
+
+        // Before any message arrives: lets the post-restart replay hit the duplicate filter
+        persistenceService.warmUpRecentTradeIds();
+
+        Map<String, IngestPipeline> created = new LinkedHashMap<>();
+        for (String stream : rabbitConfig.getPartitionStreams()) {
+            IngestBuffer buffer = IngestBuffer.create(bufferMode, bufferCapacity, waitStrategy);
+            IngestPipeline pipeline = new IngestPipeline(stream, persistenceService, offsetManager, buffer,
+                    consumerManager, rttmEmitter, metrics, serviceName, maxBatchSize, resumeThreshold,
+                    circuitRetryDelayMs, flushWorkers, checkpoints.isEnabled());
+            // Flusher loop runs on the injected executor (one thread per stream)
+            pipeline.start(scheduler, flushIntervalMs);
+            created.put(stream, pipeline);
+        }
+        this.pipelines = created;
+        this.defaultPipeline = created.values().iterator().next();
 
         this.running = true;
-        log.info("Batching Ingest Task scheduled.");
+        log.info("Batching Ingest Task(s) scheduled for streams: {}", created.keySet());
     }
 
     @Override
     public void stop() {
-        log.info("Stopping Batching Ingest Task...");
+        log.info("Stopping Batching Ingest Task(s)...");
         this.running = false;
 
-        // 1. Cancel the periodic task (Don't shutdown the executor, it's a shared bean)
-        if (flushTask != null) {
-            flushTask.cancel(false); // false = let it finish if currently running
+        for (IngestPipeline pipeline : pipelines.values()) {
+            pipeline.stop();
         }
 
-        // 2. CRITICAL: Manual Final Flush to drain buffer
-        flushBatch("Shutdown-Drain");
-
-        log.info("Batching Ingest Task stopped and buffer drained.");
+        log.info("Batching Ingest Task(s) stopped and buffers drained.");
     }
 
     @Override
@@ -128,175 +149,27 @@ public class BatchingIngestService implements SmartLifecycle {
     }
 
     /**
-     * Add message to buffer with timeout-based backpressure.
-     * If buffer is full after timeout, route message directly to DLQ to prevent
-     * data loss.
-     * This ensures we never block the RabbitMQ Stream consumer indefinitely.
+     * Add message to the buffer of the pipeline owning the message's stream.
+     * Messages without a stream context (admin replay) go to the default pipeline.
      */
     public void addMessage(PendingStreamMessage message) {
-        if (messageBuffer.offer(message)) {
-            return;
-        }
-
-        log.warn("⚠️ Buffer full! Pausing consumer and BLOCKING. Offset: {}", message.getOffset());
-        consumerManager.pause(); //! Backpressure: Pause consumer until we clear space
-
-        try {
-            messageBuffer.put(message); // Blocks here until flushBatch clears space
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Thread interrupted during backpressure wait.", e);
-            persistenceService.saveToDlq(message, "App Shutdown/Interrupted");
-        }
-    }
-
-    private void flushOnTime() {
-        if (!running || messageBuffer.isEmpty())
-            return;
-        flushBatch("Time-Threshold");
-    }
-
-    private void flushBatch(String trigger) {
-        bufferLock.lock();
-        List<PendingStreamMessage> batchToProcess = new ArrayList<>();
-        try {
-            messageBuffer.drainTo(batchToProcess, drainSize);
-        } finally {
-            bufferLock.unlock();
-        }
-
-        if (batchToProcess.isEmpty())
+        IngestPipeline pipeline = pipelineFor(message);
+        if (pipeline == null) {
+            log.warn("Ingest not started yet. Routing offset {} to DLQ.", message.getOffset());
+            persistenceService.saveToDlq(message, "Ingest pipeline not started");
             return;
-
-        // --- RETRY LOOP FOR SYSTEM OUTAGES ---
-        boolean processed = false;
-        while (!processed) {
-            try {
-                processBatchLogic(batchToProcess);
-                processed = true; // Success
-
-                // Resume consumer if we cleared enough space
-                if (messageBuffer.size() < resumeThreshold)
-                    consumerManager.resume();
-
-            } catch (CallNotPermittedException e) {
-                // CIRCUIT OPEN: DB is Dead.
-                log.error("CIRCUIT OPEN: Pausing Consumer & Waiting {}ms...", circuitRetryDelayMs);
-                consumerManager.pause();
-                try {
-                    Thread.sleep(circuitRetryDelayMs);
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                }
-                // Continue loop -> Retry same batch
-
-            } catch (Exception e) {
-                log.error("Fatal Unexpected Error in Flush Loop", e);
-                processed = true; // Abort to prevent infinite loop on bugs
-            }
         }
+        pipeline.addMessage(message);
     }
 
-    private void processBatchLogic(List<PendingStreamMessage> batch) {
-        // Safety: Empty batch check (defensive programming)
-        if (batch == null || batch.isEmpty()) {
-            log.warn("processBatchLogic called with empty batch. Skipping.");
-            return;
-        }
-
-        try {
-            // 1. FAST PATH (Batch)
-            persistenceService.persistBatch(batch);
-            
-            // CRITICAL: Commit offset for the LAST message in batch
-            // This advances RabbitMQ stream regardless of validity
-            // Invalid messages are in SafeStore + DLQ, NOT in Outbox (correct behavior)
-            commitOffset(batch.get(batch.size() - 1));
-
-        } catch (CallNotPermittedException e) {
-            throw e; // Propagate to retry loop
-
-        } catch (Exception e) {
-            log.warn("Batch Failed. Switching to Safe Path. Error: {}", e.getMessage());
-            sendErrorEvent("Batch persistence failed", e.getMessage(), batch);
-
-            // 2. SAFE PATH (Single Item Fallback)
-            PendingStreamMessage lastSuccess = null;
-
-            for (PendingStreamMessage msg : batch) {
-                try {
-                    persistenceService.persistSingleSafely(msg);
-                    lastSuccess = msg; // Track progress regardless of DLQ or DB Success
-                } catch (CallNotPermittedException cbEx) {
-                    throw cbEx; // DB died mid-loop -> Stop & Retry
-                } catch (Exception ex) {
-                    log.error("Unexpected error in safe path", ex);
-                    sendErrorEvent("Single item persistence failed", ex.getMessage(), List.of(msg));
-                }
-            }
-
-            // Commit offset for last successfully processed message (or last attempted)
-            if (lastSuccess != null) {
-                commitOffset(lastSuccess);
-            }
-        }
-    }
-
-    private void commitOffset(PendingStreamMessage msg) {
-        MessageHandler.Context context = msg.getContext();
+    private IngestPipeline pipelineFor(PendingStreamMessage message) {
+        MessageHandler.Context context = message.getContext();
         if (context != null) {
-            context.storeOffset();
-        }
-    }
-
-    /**
-     * Send error event to RTTM when ingestion fails
-     * Includes trade IDs when available for better error tracking
-     */
-    private void sendErrorEvent(String errorType, String errorMessage, List<PendingStreamMessage> messages) {
-        try {
-            // Extract trade IDs from valid messages in the batch
-            StringBuilder tradeIds = new StringBuilder();
-            int validCount = 0;
-            
-            for (PendingStreamMessage msg : messages) {
-                if (msg.isValid() && msg.getTrade() != null) {
-                    if (validCount > 0) {
-                        tradeIds.append(", ");
-                    }
-                    tradeIds.append(msg.getTrade().getTradeId());
-                    validCount++;
-                    
-                    // Limit to first 10 trade IDs to avoid huge payloads
-                    if (validCount >= 10) {
-                        tradeIds.append(" (and ").append(messages.size() - validCount).append(" more)");
-                        break;
-                    }
-                }
-            }
-            
-            // Build error event with trade context
-            String detailedMessage = errorMessage;
-            if (validCount > 0) {
-                detailedMessage = String.format("%s (affected trades: %s, batch size: %d)", 
-                                               errorMessage, tradeIds.toString(), messages.size());
-            } else {
-                detailedMessage = String.format("%s (batch size: %d, all invalid)", 
-                                               errorMessage, messages.size());
+            IngestPipeline pipeline = pipelines.get(context.stream());
+            if (pipeline != null) {
+                return pipeline;
             }
-            
-            ErrorEventPayload errorEvent = ErrorEventPayload.builder()
-                    .serviceName(serviceName)
-                    .errorType(errorType)
-                    .errorMessage(detailedMessage)
-                    .eventStage(EventStage.RECEIVED)
-                    .build();
-
-            rttmClient.sendErrorEvent(errorEvent);
-            log.warn("RTTM[ERROR] type={} batchSize={} validTrades={} message={}", 
-                    errorType, messages.size(), validCount, errorMessage);
-        } catch (Exception ex) {
-            log.warn("RTTM[ERROR] FAILED: {}", ex.getMessage());
         }
+        return defaultPipeline;
     }
 }
@@ -0,0 +1,78 @@
+package com.pms.pms_trade_capture.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.pms.pms_trade_capture.domain.DlqEntry;
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+import com.pms.pms_trade_capture.repository.DlqRepository;
+import com.pms.pms_trade_capture.utils.PayloadArrayCodec;
+import com.pms.pms_trade_capture.utils.PayloadCodec;
+
+/**
+ * Writes dlq_entry rows. An entry holds the payload of one trade as it arrived
+ * on the stream, stored through PayloadCodec like every other payload column,
+ * so a DLQ reader decodes every entry the same way whatever outbox row format
+ * or compression setting produced it.
+ *
+ * Joins the caller's transaction.
+ */
+@Component
+public class DlqWriter {
+    private static final Logger log = LoggerFactory.getLogger(DlqWriter.class);
+
+    private final DlqRepository dlqRepository;
+    private final PayloadCodec payloadCodec;
+
+    public DlqWriter(DlqRepository dlqRepository, PayloadCodec payloadCodec) {
+        this.dlqRepository = dlqRepository;
+        this.payloadCodec = payloadCodec;
+    }
+
+    /**
+     * @param payload plain trade payload (wire bytes)
+     */
+    public void write(byte[] payload, String errorDetail) {
+        dlqRepository.save(new DlqEntry(payloadCodec.encode(payload), errorDetail));
+    }
+
+    /**
+     * Dead-letters a whole outbox row: one entry per trade, so a portfolio-batched
+     * row ends up as the same entries its trades would have produced as single
+     * rows. Bytes that cannot be decoded that far are kept as they are (after the
+     * storage frame, if that much decodes) rather than lost.
+     *
+     * @return the number of entries written
+     */
+    public int writeOutboxRow(OutboxEvent row, String errorDetail) {
+        byte[] payload;
+        try {
+            payload = payloadCodec.decode(row.getPayload());
+        } catch (IllegalArgumentException e) {
+            log.warn("Outbox row {} has an undecodable payload frame; dead-lettering the stored bytes", row.getId());
+            write(row.getPayload(), errorDetail);
+            return 1;
+        }
+        if (!row.isBatched()) {
+            write(payload, errorDetail);
+            return 1;
+        }
+
+        List<byte[]> trades;
+        try {
+            trades = PayloadArrayCodec.decode(payload, row.getTradeCount());
+        } catch (IOException e) {
+            log.warn("Outbox row {} has a corrupt payload array; dead-lettering it as one entry", row.getId());
+            write(payload, errorDetail);
+            return 1;
+        }
+        for (byte[] trade : trades) {
+            write(trade, errorDetail);
+        }
+        return trades.size();
+    }
+}
@@ -0,0 +1,68 @@
+package com.pms.pms_trade_capture.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+
+/**
+ * Hand-off between the stream client thread (producer) and the ingest flusher (consumer).
+ *
+ * Implementations:
+ * - 'queue': bounded LinkedBlockingQueue (multi-producer, one node per message)
+ * - 'ring': preallocated single-producer/single-consumer ring with a configurable
+ *   {@link RingWaitStrategy}; no per-message allocation or lock on the hot path
+ *
+ * {@link #offer} and {@link #put} are reserved for the one thread delivering a
+ * stream's messages. Any other thread (admin replay) must use {@link #addExternal}.
+ * {@link #drainTo} must only be called by one consumer at a time.
+ */
+interface IngestBuffer {
+
+    /**
+     * Enqueue without waiting.
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(PendingStreamMessage message);
+
+    /**
+     * Enqueue, waiting for the consumer to free capacity if needed.
+     */
+    void put(PendingStreamMessage message) throws InterruptedException;
+
+    /**
+     * Enqueue from a thread other than the stream's producer thread.
+     */
+    void addExternal(PendingStreamMessage message) throws InterruptedException;
+
+    /**
+     * Moves up to {@code maxElements} messages, in arrival order, into {@code sink}.
+     *
+     * @return number of messages moved
+     */
+    int drainTo(List<PendingStreamMessage> sink, int maxElements);
+
+    /**
+     * Like {@link #drainTo(List, int)}, but first waits up to {@code timeout} for a
+     * message to arrive if the buffer is empty. Returns as soon as anything is
+     * available; it never waits for a full batch.
+     *
+     * @return number of messages moved (0 on timeout)
+     */
+    int drainTo(List<PendingStreamMessage> sink, int maxElements, long timeout, TimeUnit unit)
+            throws InterruptedException;
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    static IngestBuffer create(String mode, int capacity, String waitStrategy) {
+        if ("ring".equalsIgnoreCase(mode)) {
+            return new RingIngestBuffer(capacity, RingWaitStrategy.of(waitStrategy));
+        }
+        return new QueueIngestBuffer(capacity);
+    }
+}
@@ -0,0 +1,600 @@
+package com.pms.pms_trade_capture.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.pms.pms_trade_capture.config.DbWorkload;
+import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+import com.pms.pms_trade_capture.domain.StreamCheckpoint;
+import com.pms.pms_trade_capture.service.metrics.RttmEventEmitter;
+import com.pms.pms_trade_capture.stream.StreamConsumerManager;
+import com.pms.pms_trade_capture.utils.AppMetrics;
+import com.pms.rttm.client.dto.ErrorEventPayload;
+import com.pms.rttm.client.enums.EventStage;
+import com.rabbitmq.stream.MessageHandler;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+
+/**
+ * Buffer + flusher + offset tracking for a single (partition) stream.
+ *
+ * One pipeline exists per stream consumed by this instance. Messages of one
+ * stream are flushed strictly in arrival order by exactly one flush task, so
+ * per-portfolio order holds as long as a portfolio always maps to the same
+ * partition (which the super stream's hash routing guarantees).
+ *
+ * The flusher is event driven (smart batching): it wakes as soon as a message
+ * is buffered, takes everything that has accumulated up to max-size and
+ * persists it. While a batch is being written new messages pile up and form
+ * the next, larger batch, so latency stays low when idle and batches fill up
+ * under load. The linger interval only bounds how long the flusher sleeps
+ * between checks of its running flag.
+ *
+ * With more than one flush worker, each drained batch is split by portfolio
+ * onto N writer threads (one DB connection each) and the flusher immediately
+ * moves on to the next batch. A portfolio always maps to the same writer, so
+ * per-portfolio order holds; the stream offset is committed through an
+ * {@link OffsetWatermark} once every earlier batch has been persisted.
+ *
+ * Every batch transaction also advances the stream's database checkpoint: to
+ * the batch's last offset with a single writer, to the watermark (the offset
+ * all earlier batches are known to be persisted up to) with parallel writers.
+ *
+ * A write that fails with an Error (neither persisted nor dead-lettered) halts
+ * the pipeline: the flusher stops draining, so buffer capacity and stream
+ * credits are no longer released and the broker stops delivering. The stream
+ * resumes from its last committed offset after a restart. The halted state and
+ * the number of batches held by the watermark are exported as gauges.
+ */
+class IngestPipeline {
+    private static final Logger log = LoggerFactory.getLogger(IngestPipeline.class);
+
+    private final String stream;
+    private final BatchPersistenceService persistenceService;
+    private final StreamOffsetManager offsetManager;
+    private final StreamConsumerManager consumerManager;
+    private final RttmEventEmitter rttmEmitter;
+    private final AppMetrics metrics;
+    private final String serviceName;
+
+    private final int maxBatchSize;
+    private final int resumeThreshold;
+    private final long circuitRetryDelayMs;
+    private final int flushWorkers;
+    private final boolean checkpointEnabled;
+
+    // Highest offset reported as persisted; the parallel writers' checkpoint
+    private volatile long committedOffset = -1;
+
+    // Parallel mode only (flushWorkers > 1)
+    private ExecutorService[] writers;
+    private OffsetWatermark watermark;
+    private Semaphore inFlightBatches;
+
+    private final IngestBuffer messageBuffer;
+
+    // Handle to the flusher loop, so shutdown can wait for its final drain
+    private volatile Future<?> flushTask;
+    private volatile boolean running = false;
+    // Set once a write fails with an Error; never cleared
+    private volatile boolean halted = false;
+
+    IngestPipeline(String stream,
+            BatchPersistenceService persistenceService,
+            StreamOffsetManager offsetManager,
+            IngestBuffer messageBuffer,
+            StreamConsumerManager consumerManager,
+            RttmEventEmitter rttmEmitter,
+            AppMetrics metrics,
+            String serviceName,
+            int maxBatchSize,
+            int resumeThreshold,
+            long circuitRetryDelayMs,
+            int flushWorkers,
+            boolean checkpointEnabled) {
+        this.stream = stream;
+        this.persistenceService = persistenceService;
+        this.offsetManager = offsetManager;
+        this.messageBuffer = messageBuffer;
+        this.consumerManager = consumerManager;
+        this.rttmEmitter = rttmEmitter;
+        this.metrics = metrics;
+        this.serviceName = serviceName;
+        this.maxBatchSize = maxBatchSize;
+        this.resumeThreshold = resumeThreshold;
+        this.circuitRetryDelayMs = circuitRetryDelayMs;
+        this.flushWorkers = Math.max(1, flushWorkers);
+        this.checkpointEnabled = checkpointEnabled;
+    }
+
+    String getStream() {
+        return stream;
+    }
+
+    int getBufferedCount() {
+        return messageBuffer.size();
+    }
+
+    boolean isHalted() {
+        return halted;
+    }
+
+    /**
+     * @return batches dispatched to the writers whose offset is not committed yet
+     */
+    int getPendingBatches() {
+        return watermark == null ? 0 : watermark.pendingCount();
+    }
+
+    /**
+     * Starts the flusher loop on a thread of the (shared) ingest executor.
+     */
+    void start(ExecutorService executor, long lingerMs) {
+        if (flushWorkers > 1) {
+            writers = new ExecutorService[flushWorkers];
+            for (int i = 0; i < flushWorkers; i++) {
+                String name = "ingest-writer-" + stream + "-" + i;
+                writers[i] = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(DbWorkload.INGEST.bind(r), name);
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            watermark = new OffsetWatermark(this::commitOffset);
+            // Bounds how far the flusher can run ahead of the slowest writer
+            inFlightBatches = new Semaphore(flushWorkers * 2);
+        }
+        metrics.registerIngestPipeline(stream, this::getPendingBatches, this::isHalted);
+        this.running = true;
+        this.flushTask = executor.submit(() -> flushLoop(lingerMs));
+    }
+
+    void stop() {
+        this.running = false;
+
+        // The loop notices within one linger interval and drains the buffer before exiting
+        // (Don't shutdown the executor, it's a shared bean)
+        if (flushTask != null) {
+            try {
+                flushTask.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.error("Flusher for stream {} terminated abnormally", stream, e.getCause());
+            }
+        }
+
+        // Parallel mode: let writers finish what the final drain handed them
+        if (writers != null) {
+            for (ExecutorService writer : writers) {
+                writer.shutdown();
+            }
+            try {
+                for (ExecutorService writer : writers) {
+                    writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Add message to buffer with blocking backpressure.
+     * With credit flow control the broker never sends more than the buffer can hold,
+     * so the blocking put() is only a last-resort guard.
+     * If the thread is interrupted while waiting, the message is routed to the DLQ
+     * to prevent data loss.
+     * Messages without a stream context (admin replay) arrive on another thread and
+     * use the buffer's external path, so the stream thread stays the single producer.
+     */
+    void addMessage(PendingStreamMessage message) {
+        if (message.getContext() == null) {
+            try {
+                messageBuffer.addExternal(message);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                persistenceService.saveToDlq(message, "App Shutdown/Interrupted");
+            }
+            return;
+        }
+
+        if (messageBuffer.offer(message)) {
+            return;
+        }
+
+        log.warn("⚠️ Buffer full on stream {}! Pausing consumer and BLOCKING. Offset: {}", stream, message.getOffset());
+        consumerManager.pause(); //! Backpressure: Pause consumer until we clear space
+
+        try {
+            messageBuffer.put(message); // Blocks here until flushBatch clears space
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Thread interrupted during backpressure wait.", e);
+            persistenceService.saveToDlq(message, "App Shutdown/Interrupted");
+        }
+    }
+
+    private void flushLoop(long lingerMs) {
+        List<PendingStreamMessage> batchToProcess = new ArrayList<>(maxBatchSize);
+        try {
+            while (running && !halted) {
+                // Wakes on the first buffered message; never waits for a full batch
+                if (messageBuffer.drainTo(batchToProcess, maxBatchSize, lingerMs, TimeUnit.MILLISECONDS) > 0) {
+                    if (halted) {
+                        break; // Halted while waiting: leave the batch to the replay
+                    }
+                    flushBatch(batchToProcess);
+                    batchToProcess.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Flusher for stream {} interrupted", stream);
+        } catch (Error e) {
+            halt();
+            throw e;
+        }
+
+        // CRITICAL: Final drain so nothing buffered is lost on shutdown
+        // (unless halted: nothing past the failed batch can be committed, a restart replays it)
+        while (!halted && messageBuffer.drainTo(batchToProcess, maxBatchSize) > 0) {
+            flushBatch(batchToProcess);
+            batchToProcess.clear();
+        }
+    }
+
+    private void flushBatch(List<PendingStreamMessage> batchToProcess) {
+        // Buffer capacity freed: lets a credit-based consumer request more chunks
+        for (PendingStreamMessage msg : batchToProcess) {
+            markProcessed(msg);
+        }
+
+        if (writers != null) {
+            dispatchToWriters(batchToProcess);
+            return;
+        }
+
+        PendingStreamMessage toCommit = persistWithRetry(batchToProcess);
+        if (toCommit != null) {
+            commitOffset(toCommit);
+        }
+    }
+
+    /**
+     * Splits the batch by portfolio across the writers and returns without waiting.
+     * The batch's last offset is committed by the watermark once all parts (and all
+     * earlier batches) are persisted. A part that throws out of the writer (an Error)
+     * keeps the batch incomplete, so the watermark never moves past it, and halts the
+     * pipeline.
+     */
+    private void dispatchToWriters(List<PendingStreamMessage> batch) {
+        List<List<PendingStreamMessage>> parts = new ArrayList<>(flushWorkers);
+        for (int i = 0; i < flushWorkers; i++) {
+            parts.add(new ArrayList<>());
+        }
+        PendingStreamMessage commitMessage = null;
+        for (PendingStreamMessage msg : batch) {
+            parts.get(writerFor(msg)).add(msg);
+            if (msg.getContext() != null) {
+                commitMessage = msg;
+            }
+        }
+
+        inFlightBatches.acquireUninterruptibly();
+        long sequence = watermark.register(commitMessage);
+        AtomicInteger remaining = new AtomicInteger();
+        AtomicBoolean partFailed = new AtomicBoolean();
+        for (List<PendingStreamMessage> part : parts) {
+            if (!part.isEmpty()) {
+                remaining.incrementAndGet();
+            }
+        }
+        for (int i = 0; i < flushWorkers; i++) {
+            List<PendingStreamMessage> part = parts.get(i);
+            if (part.isEmpty()) {
+                continue;
+            }
+            writers[i].execute(() -> {
+                boolean persisted = false;
+                try {
+                    // Failed messages are dead-lettered inside; the watermark commits the batch end
+                    persistWithRetry(part);
+                    persisted = true;
+                } finally {
+                    if (!persisted) {
+                        partFailed.set(true);
+                        metrics.incrementIngestFail(part.size());
+                        log.error("Writer part of {} messages on stream {} failed (offsets {}..{}), holding the offset watermark",
+                                part.size(), stream, part.get(0).getOffset(), part.get(part.size() - 1).getOffset());
+                        halt();
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        try {
+                            // A failed part is neither persisted nor dead-lettered: the batch is never
+                            // completed, so no later offset is committed and a restart replays it
+                            if (!partFailed.get()) {
+                                watermark.complete(sequence);
+                            }
+                        } finally {
+                            inFlightBatches.release();
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops the flusher after a write that was neither persisted nor dead-lettered.
+     * Batches already handed to the writers still run, but no later offset can be
+     * committed, so draining on would only grow the watermark without bound.
+     */
+    private void halt() {
+        if (!halted) {
+            halted = true;
+            consumerManager.pause();
+            log.error("Ingest pipeline for stream {} HALTED after a failed write; consumption stops until restart", stream);
+        }
+    }
+
+    private int writerFor(PendingStreamMessage msg) {
+        String portfolioId = msg.getPortfolioId();
+        // Invalid messages carry no portfolio and have no ordering requirement
+        return portfolioId == null ? 0 : Math.floorMod(portfolioId.hashCode(), flushWorkers);
+    }
+
+    /**
+     * Persists the batch, retrying for as long as the DB circuit is open. A batch
+     * that fails for any other reason is dead-lettered rather than dropped.
+     *
+     * @return the message whose offset may be committed, or null
+     */
+    private PendingStreamMessage persistWithRetry(List<PendingStreamMessage> batchToProcess) {
+        // --- RETRY LOOP FOR SYSTEM OUTAGES ---
+        PendingStreamMessage toCommit = null;
+        boolean processed = false;
+        while (!processed) {
+            try {
+                toCommit = processBatchLogic(batchToProcess);
+                processed = true; // Success
+
+            } catch (CallNotPermittedException e) {
+                // CIRCUIT OPEN: DB is Dead.
+                log.error("CIRCUIT OPEN: Pausing Consumer & Waiting {}ms...", circuitRetryDelayMs);
+                consumerManager.pause();
+                try {
+                    Thread.sleep(circuitRetryDelayMs);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                // Continue loop -> Retry same batch
+
+            } catch (Exception e) {
+                log.error("Fatal Unexpected Error in Flush Loop", e);
+                // Abort to prevent infinite loop on bugs, but don't let the offset skip the batch
+                toCommit = deadLetter(batchToProcess, "Fatal Unexpected Error: " + e.getMessage());
+                processed = true;
+            }
+        }
+
+        // Resume consumer if we cleared enough space
+        if (messageBuffer.size() < resumeThreshold)
+            consumerManager.resume();
+
+        return toCommit;
+    }
+
+    /**
+     * Moves a batch that could not be persisted to the DLQ, so its offset can be
+     * committed without losing it (saveToDlq falls back to logging the raw bytes).
+     *
+     * @return the batch's last message
+     */
+    private PendingStreamMessage deadLetter(List<PendingStreamMessage> batch, String reason) {
+        if (batch.isEmpty()) {
+            return null;
+        }
+        metrics.incrementIngestFail(batch.size());
+        for (PendingStreamMessage msg : batch) {
+            persistenceService.saveToDlq(msg, reason);
+        }
+        return batch.get(batch.size() - 1);
+    }
+
+    /**
+     * @return the message whose offset may be committed for this batch, or null
+     */
+    private PendingStreamMessage processBatchLogic(List<PendingStreamMessage> batch) {
+        // Safety: Empty batch check (defensive programming)
+        if (batch == null || batch.isEmpty()) {
+            log.warn("processBatchLogic called with empty batch. Skipping.");
+            return null;
+        }
+
+        try {
+            // 1. FAST PATH (Batch)
+            persistenceService.persistBatch(batch, checkpointFor(batch));
+
+            // CRITICAL: Commit offset for the LAST message in batch
+            // This advances RabbitMQ stream regardless of validity
+            // Invalid messages are in SafeStore + DLQ, NOT in Outbox (correct behavior)
+            return batch.get(batch.size() - 1);
+
+        } catch (CallNotPermittedException e) {
+            throw e; // Propagate to retry loop
+
+        } catch (Exception e) {
+            log.warn("Batch Failed on stream {}. Switching to Safe Path. Error: {}", stream, e.getMessage());
+            sendErrorEvent("Batch persistence failed", e.getMessage(), batch);
+
+            // 2. SAFE PATH (Bisection): halve until the bad rows are isolated,
+            // healthy halves are still written as batches
+            BisectionState state = new BisectionState();
+            state.transactions = 1; // the failed batch attempt
+            int half = batch.size() / 2;
+            bisect(batch.subList(0, half), 1, state);
+            bisect(batch.subList(half, batch.size()), 1, state);
+
+            metrics.recordBatchRecovery(state.maxDepth, state.transactions);
+            log.info("Recovered batch of {} on stream {}: depth={}, transactions={}",
+                    batch.size(), stream, state.maxDepth, state.transactions);
+
+            // Commit offset for last successfully processed message (or last attempted)
+            return state.lastHandled;
+        }
+    }
+
+    /**
+     * Writes {@code part} as one batch; on failure splits it in two and recurses.
+     * A single failing message goes through persistSingleSafely (DLQ on data errors).
+     * Halves are processed left to right, preserving stream order.
+     */
+    private void bisect(List<PendingStreamMessage> part, int depth, BisectionState state) {
+        if (part.isEmpty()) {
+            return;
+        }
+        state.maxDepth = Math.max(state.maxDepth, depth);
+
+        if (part.size() == 1) {
+            PendingStreamMessage msg = part.get(0);
+            state.transactions++;
+            try {
+                persistenceService.persistSingleSafely(msg);
+                state.lastHandled = msg; // Track progress regardless of DLQ or DB Success
+            } catch (CallNotPermittedException cbEx) {
+                throw cbEx; // DB died mid-recovery -> Stop & Retry
+            } catch (Exception ex) {
+                log.error("Unexpected error in safe path", ex);
+                sendErrorEvent("Single item persistence failed", ex.getMessage(), List.of(msg));
+                // Neither a data error nor an outage: dead-letter it, never skip it
+                state.lastHandled = deadLetter(List.of(msg), "Unexpected Error: " + ex.getMessage());
+            }
+            return;
+        }
+
+        state.transactions++;
+        try {
+            persistenceService.persistBatch(part, checkpointFor(part));
+            state.lastHandled = part.get(part.size() - 1);
+            return;
+        } catch (CallNotPermittedException cbEx) {
+            throw cbEx;
+        } catch (Exception e) {
+            log.debug("Sub-batch of {} failed at depth {}: {}", part.size(), depth, e.getMessage());
+        }
+
+        int half = part.size() / 2;
+        bisect(part.subList(0, half), depth + 1, state);
+        bisect(part.subList(half, part.size()), depth + 1, state);
+    }
+
+    private static final class BisectionState {
+        int transactions;
+        int maxDepth;
+        PendingStreamMessage lastHandled;
+    }
+
+    /**
+     * Checkpoint to write with {@code part}. A single writer persists in stream
+     * order, so the part's last offset is covered once it commits. Parallel
+     * writers commit out of order and only write the watermark, which lags but
+     * never overstates what is persisted.
+     */
+    private StreamCheckpoint checkpointFor(List<PendingStreamMessage> part) {
+        if (!checkpointEnabled) {
+            return null;
+        }
+        long offset = -1;
+        if (writers != null) {
+            offset = committedOffset;
+        } else {
+            for (PendingStreamMessage msg : part) {
+                if (msg.getContext() != null) {
+                    offset = Math.max(offset, msg.getOffset());
+                }
+            }
+        }
+        return offset < 0 ? null : new StreamCheckpoint(stream, offset);
+    }
+
+    private void markProcessed(PendingStreamMessage msg) {
+        MessageHandler.Context context = msg.getContext();
+        if (context != null) {
+            context.processed();
+        }
+    }
+
+    /**
+     * Reports the message's offset as persisted; the offset manager coalesces
+     * the actual broker stores. Replay messages carry no stream offset.
+     */
+    private void commitOffset(PendingStreamMessage msg) {
+        if (msg.getContext() != null) {
+            committedOffset = Math.max(committedOffset, msg.getOffset());
+            offsetManager.commit(stream, msg.getOffset());
+        }
+    }
+
+    /**
+     * Send error event to RTTM when ingestion fails
+     * Includes trade IDs when available for better error tracking
+     */
+    private void sendErrorEvent(String errorType, String errorMessage, List<PendingStreamMessage> messages) {
+        try {
+            // Extract trade IDs from valid messages in the batch
+            StringBuilder tradeIds = new StringBuilder();
+            int validCount = 0;
+
+            for (PendingStreamMessage msg : messages) {
+                if (msg.isValid()) {
+                    if (validCount > 0) {
+                        tradeIds.append(", ");
+                    }
+                    tradeIds.append(msg.getTradeId());
+                    validCount++;
+
+                    // Limit to first 10 trade IDs to avoid huge payloads
+                    if (validCount >= 10) {
+                        tradeIds.append(" (and ").append(messages.size() - validCount).append(" more)");
+                        break;
+                    }
+                }
+            }
+
+            // Build error event with trade context
+            String detailedMessage = errorMessage;
+            if (validCount > 0) {
+                detailedMessage = String.format("%s (affected trades: %s, batch size: %d)",
+                                               errorMessage, tradeIds.toString(), messages.size());
+            } else {
+                detailedMessage = String.format("%s (batch size: %d, all invalid)",
+                                               errorMessage, messages.size());
+            }
+
+            ErrorEventPayload errorEvent = ErrorEventPayload.builder()
+                    .serviceName(serviceName)
+                    .errorType(errorType)
+                    .errorMessage(detailedMessage)
+                    .eventStage(EventStage.RECEIVED)
+                    .build();
+
+            rttmEmitter.emit(errorEvent);
+            log.warn("RTTM[ERROR] type={} batchSize={} validTrades={} message={}",
+                    errorType, messages.size(), validCount, errorMessage);
+        } catch (Exception ex) {
+            log.warn("RTTM[ERROR] FAILED: {}", ex.getMessage());
+        }
+    }
+}
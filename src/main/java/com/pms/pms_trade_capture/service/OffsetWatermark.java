@@ -0,0 +1,80 @@
+package com.pms.pms_trade_capture.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+
+/**
+ * Ordered commit tracker for batches that complete out of order.
+ *
+ * Batches are registered in drain (= stream offset) order. A batch's commit
+ * message is only handed to the committer once it and every batch registered
+ * before it have completed, so the stored offset is always the highest offset
+ * below which everything has been persisted (at-least-once on restart).
+ */
+class OffsetWatermark {
+
+    private final Consumer<PendingStreamMessage> committer;
+
+    // Pending batches in registration order; head is the oldest incomplete one
+    private final Deque<Slot> pending = new ArrayDeque<>();
+    private long nextSequence;
+
+    OffsetWatermark(Consumer<PendingStreamMessage> committer) {
+        this.committer = committer;
+    }
+
+    /**
+     * Registers the next batch.
+     *
+     * @param commitMessage message whose offset becomes committable with this batch
+     *                      (may be null if the batch has nothing to commit)
+     * @return handle to pass to {@link #complete(long)}
+     */
+    synchronized long register(PendingStreamMessage commitMessage) {
+        long sequence = nextSequence++;
+        pending.addLast(new Slot(sequence, commitMessage));
+        return sequence;
+    }
+
+    /**
+     * Marks a batch as persisted and commits the new watermark, if it moved.
+     * Commits happen under the tracker's lock so they are issued in offset order.
+     */
+    synchronized void complete(long sequence) {
+        for (Slot slot : pending) {
+            if (slot.sequence == sequence) {
+                slot.done = true;
+                break;
+            }
+        }
+
+        PendingStreamMessage watermark = null;
+        while (!pending.isEmpty() && pending.peekFirst().done) {
+            Slot head = pending.pollFirst();
+            if (head.commitMessage != null) {
+                watermark = head.commitMessage;
+            }
+        }
+        if (watermark != null) {
+            committer.accept(watermark);
+        }
+    }
+
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private static final class Slot {
+        final long sequence;
+        final PendingStreamMessage commitMessage;
+        boolean done;
+
+        Slot(long sequence, PendingStreamMessage commitMessage) {
+            this.sequence = sequence;
+            this.commitMessage = commitMessage;
+        }
+    }
+}
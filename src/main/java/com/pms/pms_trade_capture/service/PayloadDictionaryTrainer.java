@@ -0,0 +1,96 @@
+package com.pms.pms_trade_capture.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.pms.pms_trade_capture.repository.PayloadDictionaryRepository;
+import com.pms.pms_trade_capture.utils.PayloadCodec;
+
+/**
+ * Trains a zstd dictionary from the payloads of recently stored trades, stores
+ * it in payload_dictionary and makes it the active one of this instance (other
+ * instances pick it up on restart). Triggered from /admin/payload-dictionary.
+ */
+@Component
+public class PayloadDictionaryTrainer {
+    private static final Logger log = LoggerFactory.getLogger(PayloadDictionaryTrainer.class);
+
+    // zstd needs a few hundred samples for a dictionary worth having
+    static final int MIN_SAMPLES = 500;
+
+    public record TrainingResult(long dictionaryId, int samples, int dictionaryBytes,
+            long plainBytes, long compressedBytes) {
+
+        public double ratio() {
+            return compressedBytes == 0 ? 0 : (double) plainBytes / compressedBytes;
+        }
+    }
+
+    private final PayloadDictionaryRepository dictionaryRepository;
+    private final PayloadCodec payloadCodec;
+
+    @Value("${app.payload.compression.level:3}")
+    private int level;
+
+    @Value("${app.payload.compression.training.lookback:P1D}")
+    private Duration lookback;
+
+    public PayloadDictionaryTrainer(PayloadDictionaryRepository dictionaryRepository, PayloadCodec payloadCodec) {
+        this.dictionaryRepository = dictionaryRepository;
+        this.payloadCodec = payloadCodec;
+    }
+
+    /**
+     * @param sampleLimit    maximum number of recent payloads to train from
+     * @param dictionarySize target dictionary size in bytes
+     * @throws IllegalStateException if there are fewer than {@value #MIN_SAMPLES} payloads to sample
+     */
+    public TrainingResult train(int sampleLimit, int dictionarySize) {
+        // Samples may already be encoded with an older dictionary
+        List<byte[]> samples = dictionaryRepository
+                .sampleRawPayloads(LocalDateTime.now().minus(lookback), sampleLimit).stream()
+                .map(payloadCodec::decode)
+                .toList();
+        if (samples.size() < MIN_SAMPLES) {
+            throw new IllegalStateException("Only " + samples.size() + " payloads received in the last "
+                    + lookback + ", need " + MIN_SAMPLES);
+        }
+
+        long plainBytes = 0;
+        for (byte[] sample : samples) {
+            plainBytes += sample.length;
+        }
+        ZstdDictTrainer trainer = new ZstdDictTrainer((int) Math.min(plainBytes, Integer.MAX_VALUE), dictionarySize);
+        samples.forEach(trainer::addSample);
+        byte[] dictionary = trainer.trainSamples();
+        long dictionaryId = Zstd.getDictIdFromDict(dictionary);
+
+        // Same per-payload compression the codec will do, without the header bytes
+        long compressedBytes = 0;
+        ZstdDictCompress compress = new ZstdDictCompress(dictionary, level);
+        try {
+            for (byte[] sample : samples) {
+                compressedBytes += Zstd.compress(sample, compress).length;
+            }
+        } finally {
+            compress.close();
+        }
+
+        dictionaryRepository.save(dictionaryId, dictionary, samples.size());
+        payloadCodec.activate(dictionaryId, dictionary);
+        TrainingResult result = new TrainingResult(dictionaryId, samples.size(), dictionary.length,
+                plainBytes, compressedBytes);
+        log.info("Trained payload dictionary {} from {} samples: {} bytes, ratio {}", dictionaryId,
+                samples.size(), dictionary.length, String.format("%.2f", result.ratio()));
+        return result;
+    }
+}
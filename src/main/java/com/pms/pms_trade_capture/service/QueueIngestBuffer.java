@@ -0,0 +1,56 @@
+package com.pms.pms_trade_capture.service;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+
+/**
+ * Default ingest buffer backed by a bounded {@link LinkedBlockingQueue}.
+ */
+class QueueIngestBuffer implements IngestBuffer {
+
+    private final BlockingQueue<PendingStreamMessage> queue;
+
+    QueueIngestBuffer(int capacity) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public boolean offer(PendingStreamMessage message) {
+        return queue.offer(message);
+    }
+
+    @Override
+    public void put(PendingStreamMessage message) throws InterruptedException {
+        queue.put(message);
+    }
+
+    @Override
+    public void addExternal(PendingStreamMessage message) throws InterruptedException {
+        queue.put(message);
+    }
+
+    @Override
+    public int drainTo(List<PendingStreamMessage> sink, int maxElements) {
+        return queue.drainTo(sink, maxElements);
+    }
+
+    @Override
+    public int drainTo(List<PendingStreamMessage> sink, int maxElements, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        PendingStreamMessage first = queue.poll(timeout, unit);
+        if (first == null) {
+            return 0;
+        }
+        sink.add(first);
+        return 1 + queue.drainTo(sink, maxElements - 1);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,187 @@
+package com.pms.pms_trade_capture.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+
+/**
+ * Single-producer/single-consumer ring buffer (Disruptor-style).
+ *
+ * Slots are preallocated once; the producer publishes by advancing its sequence
+ * with a release store and the consumer claims every published slot in one go
+ * ({@link #drainTo}) before releasing them with a single store of its own
+ * sequence. The two sequences live on separate cache lines and each side keeps
+ * a cached copy of the other's sequence, so the hot path is free of locks,
+ * CAS and allocation.
+ *
+ * The logical capacity is kept as configured; the slot array is rounded up to a
+ * power of two so indexing is a mask.
+ *
+ * Messages from a thread other than the stream's producer ({@link #addExternal},
+ * e.g. admin replay) go through a small concurrent side queue that is drained
+ * ahead of the ring, keeping the ring strictly single-producer.
+ */
+class RingIngestBuffer implements IngestBuffer {
+
+    private final PendingStreamMessage[] slots;
+    private final int mask;
+    private final int capacity;
+    private final RingWaitStrategy waitStrategy;
+
+    // Next sequence to publish (written by producer only)
+    private final Sequence producerSequence = new Sequence();
+    // Next sequence to consume (written by consumer only)
+    private final Sequence consumerSequence = new Sequence();
+
+    // Producer-local view of the consumer sequence
+    private long cachedConsumerSequence;
+    // Consumer-local view of the producer sequence
+    private long cachedProducerSequence;
+
+    private final Queue<PendingStreamMessage> external = new ConcurrentLinkedQueue<>();
+
+    RingIngestBuffer(int capacity, RingWaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new PendingStreamMessage[size];
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public boolean offer(PendingStreamMessage message) {
+        long next = producerSequence.getPlain();
+        if (next - cachedConsumerSequence >= capacity) {
+            cachedConsumerSequence = consumerSequence.getAcquire();
+            if (next - cachedConsumerSequence >= capacity) {
+                return false;
+            }
+        }
+        slots[(int) next & mask] = message;
+        producerSequence.setRelease(next + 1);
+        waitStrategy.signal();
+        return true;
+    }
+
+    @Override
+    public void put(PendingStreamMessage message) throws InterruptedException {
+        while (!offer(message)) {
+            waitStrategy.await(this::hasCapacity, RingWaitStrategy.FOREVER);
+        }
+    }
+
+    @Override
+    public void addExternal(PendingStreamMessage message) {
+        external.offer(message);
+        waitStrategy.signal();
+    }
+
+    @Override
+    public int drainTo(List<PendingStreamMessage> sink, int maxElements) {
+        int drained = 0;
+        PendingStreamMessage ext;
+        while (drained < maxElements && (ext = external.poll()) != null) {
+            sink.add(ext);
+            drained++;
+        }
+
+        long current = consumerSequence.getPlain();
+        long available = cachedProducerSequence - current;
+        if (available < maxElements - drained) {
+            cachedProducerSequence = producerSequence.getAcquire();
+            available = cachedProducerSequence - current;
+        }
+        int batch = (int) Math.min(available, maxElements - drained);
+        if (batch <= 0) {
+            return drained;
+        }
+
+        for (int i = 0; i < batch; i++) {
+            int index = (int) (current + i) & mask;
+            sink.add(slots[index]);
+            slots[index] = null; // let the message be collected
+        }
+        consumerSequence.setRelease(current + batch);
+        waitStrategy.signal();
+        return drained + batch;
+    }
+
+    @Override
+    public int drainTo(List<PendingStreamMessage> sink, int maxElements, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        int drained = drainTo(sink, maxElements);
+        if (drained > 0 || !waitStrategy.await(this::hasData, unit.toNanos(timeout))) {
+            return drained;
+        }
+        return drainTo(sink, maxElements);
+    }
+
+    @Override
+    public int size() {
+        long size = producerSequence.getAcquire() - consumerSequence.getAcquire();
+        return (int) Math.max(0, Math.min(size, capacity)) + external.size();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private boolean hasData() {
+        return producerSequence.getAcquire() != consumerSequence.getPlain() || !external.isEmpty();
+    }
+
+    private boolean hasCapacity() {
+        return producerSequence.getPlain() - consumerSequence.getAcquire() < capacity;
+    }
+
+    // --- cache-line padded sequence (superclass padding keeps field order) ---
+
+    @SuppressWarnings("unused")
+    private static class LhsPadding {
+        protected long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private static class Value extends LhsPadding {
+        protected volatile long value;
+    }
+
+    @SuppressWarnings("unused")
+    private static class RhsPadding extends Value {
+        protected long p9, p10, p11, p12, p13, p14, p15;
+    }
+
+    static final class Sequence extends RhsPadding {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(Value.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long getPlain() {
+            return (long) VALUE.get(this);
+        }
+
+        long getAcquire() {
+            return (long) VALUE.getAcquire(this);
+        }
+
+        void setRelease(long v) {
+            VALUE.setRelease(this, v);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.pms.pms_trade_capture.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a {@link RingIngestBuffer} side waits for the other side to make progress
+ * (producer waiting for free slots, consumer waiting for published messages).
+ *
+ * - blocking: park on a condition; lowest CPU, highest wake-up latency
+ * - sleeping: spin, then yield, then park briefly; balanced default for most hosts
+ * - yielding: spin, then Thread.yield(); low latency, burns a core while waiting
+ * - busy-spin: Thread.onSpinWait() only; lowest latency, needs a dedicated core
+ */
+interface RingWaitStrategy {
+
+    /** Timeout value meaning "wait until ready". */
+    long FOREVER = Long.MAX_VALUE;
+
+    /**
+     * Waits until {@code ready} returns true or the timeout elapses.
+     *
+     * @return true if {@code ready} became true, false on timeout
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException;
+
+    /**
+     * Called after a side has advanced its sequence, to wake the other side.
+     */
+    void signal();
+
+    static RingWaitStrategy of(String name) {
+        if (name == null) {
+            return new Blocking();
+        }
+        return switch (name.toLowerCase()) {
+            case "sleeping" -> new Sleeping();
+            case "yielding" -> new Yielding();
+            case "busy-spin" -> new BusySpin();
+            case "blocking" -> new Blocking();
+            default -> throw new IllegalArgumentException("Unknown ring wait strategy: " + name);
+        };
+    }
+
+    final class Blocking implements RingWaitStrategy {
+        // Bounded park so a signal racing with the ready check can never strand a waiter
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition progressed = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            if (ready.getAsBoolean()) {
+                return true;
+            }
+            Deadline deadline = new Deadline(timeoutNanos);
+            waiters.incrementAndGet();
+            lock.lock();
+            try {
+                while (!ready.getAsBoolean()) {
+                    long remaining = deadline.remaining();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    progressed.awaitNanos(Math.min(remaining, MAX_PARK_NANOS));
+                }
+                return true;
+            } finally {
+                lock.unlock();
+                waiters.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void signal() {
+            // Only touch the lock when somebody is actually parked
+            if (waiters.get() > 0) {
+                lock.lock();
+                try {
+                    progressed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    final class Sleeping implements RingWaitStrategy {
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 100;
+        private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+        @Override
+        public boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            Deadline deadline = new Deadline(timeoutNanos);
+            int counter = 0;
+            while (!ready.getAsBoolean()) {
+                if (deadline.checkExpired()) {
+                    return false;
+                }
+                if (counter < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (counter < SPIN_TRIES + YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+                counter++;
+            }
+            return true;
+        }
+
+        @Override
+        public void signal() {
+        }
+    }
+
+    final class Yielding implements RingWaitStrategy {
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        public boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            Deadline deadline = new Deadline(timeoutNanos);
+            int counter = 0;
+            while (!ready.getAsBoolean()) {
+                if (deadline.checkExpired()) {
+                    return false;
+                }
+                if (counter++ < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void signal() {
+        }
+    }
+
+    final class BusySpin implements RingWaitStrategy {
+        @Override
+        public boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            Deadline deadline = new Deadline(timeoutNanos);
+            while (!ready.getAsBoolean()) {
+                if (deadline.checkExpired()) {
+                    return false;
+                }
+                Thread.onSpinWait();
+            }
+            return true;
+        }
+
+        @Override
+        public void signal() {
+        }
+    }
+
+    final class Deadline {
+        private final boolean forever;
+        private final long deadline;
+
+        Deadline(long timeoutNanos) {
+            this.forever = timeoutNanos == FOREVER;
+            this.deadline = forever ? 0 : System.nanoTime() + timeoutNanos;
+        }
+
+        long remaining() {
+            return forever ? Long.MAX_VALUE : deadline - System.nanoTime();
+        }
+
+        /**
+         * @throws InterruptedException if the waiting thread was interrupted
+         */
+        boolean checkExpired() throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return remaining() <= 0;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.pms.pms_trade_capture.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the range partitions of safe_store_trade (by received_at) ahead of the
+ * clock and expires old ones.
+ *
+ * On startup, before ingest begins, and then on a fixed delay it:
+ * - creates the next {@code premake} daily or hourly partitions, each with its
+ *   own unique index on trade_id (uniqueness is partition-local, see
+ *   IngestJdbcRepository for the cross-partition replay check)
+ * - detaches partitions whose whole range is older than {@code retention};
+ *   detached tables stay in place for archiving unless the action is 'drop'
+ *
+ * Existing ranges are read from the catalog, so partitions created by the
+ * migration, by another instance or by hand are respected. There is no default
+ * partition: a missing partition fails the insert loudly rather than silently
+ * growing an unbounded catch-all (watch {@code trade.db.partitions.ahead}).
+ */
+@Component
+public class SafeStorePartitionManager implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(SafeStorePartitionManager.class);
+
+    static final String PARENT = "safe_store_trade";
+
+    private static final String LIST_PARTITIONS = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid)
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'safe_store_trade'::regclass
+            """;
+
+    private static final Pattern BOUND = Pattern.compile(
+            "FROM \\((MINVALUE|'([^']+)')\\) TO \\((MAXVALUE|'([^']+)')\\)");
+
+    enum Interval {
+        DAILY(ChronoUnit.DAYS, "yyyyMMdd"),
+        HOURLY(ChronoUnit.HOURS, "yyyyMMddHH");
+
+        private final ChronoUnit unit;
+        private final DateTimeFormatter suffix;
+
+        Interval(ChronoUnit unit, String suffixPattern) {
+            this.unit = unit;
+            this.suffix = DateTimeFormatter.ofPattern(suffixPattern);
+        }
+
+        LocalDateTime floor(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        LocalDateTime next(LocalDateTime start) {
+            return start.plus(1, unit);
+        }
+
+        String partitionName(LocalDateTime start) {
+            return PARENT + "_p" + suffix.format(start);
+        }
+
+        static Interval parse(String value) {
+            return "hourly".equalsIgnoreCase(value) ? HOURLY : DAILY;
+        }
+    }
+
+    /** An attached partition; {@code from}/{@code to} are null for MINVALUE/MAXVALUE. */
+    record Partition(String name, LocalDateTime from, LocalDateTime to) {
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final Counter created;
+    private final Counter expired;
+    // Seconds of received_at still covered by partitions from now on
+    private final AtomicLong secondsAhead = new AtomicLong();
+
+    // 'daily' or 'hourly'
+    @Value("${app.safe-store.partitions.interval:daily}")
+    private String interval;
+
+    @Value("${app.safe-store.partitions.premake:7}")
+    private int premake;
+
+    @Value("${app.safe-store.partitions.retention:P90D}")
+    private Duration retention;
+
+    // 'detach' (keep the table for archiving) or 'drop'
+    @Value("${app.safe-store.partitions.expired-action:detach}")
+    private String expiredAction;
+
+    private volatile boolean running = false;
+
+    public SafeStorePartitionManager(JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this(jdbcTemplate, registry, Clock.systemDefaultZone());
+    }
+
+    SafeStorePartitionManager(JdbcTemplate jdbcTemplate, MeterRegistry registry, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.created = Counter.builder("trade.db.partitions.created")
+                .description("safe_store_trade partitions created ahead of time")
+                .register(registry);
+        this.expired = Counter.builder("trade.db.partitions.expired")
+                .description("safe_store_trade partitions detached or dropped after the retention period")
+                .register(registry);
+        Gauge.builder("trade.db.partitions.ahead", secondsAhead, AtomicLong::get)
+                .description("Seconds of future received_at covered by existing partitions")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        maintain();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Before the ingest pipelines (MAX - 1000) start writing
+        return Integer.MAX_VALUE - 4000;
+    }
+
+    @Scheduled(initialDelayString = "${app.safe-store.partitions.maintenance-interval-ms:3600000}",
+            fixedDelayString = "${app.safe-store.partitions.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        if (!running) {
+            return;
+        }
+        try {
+            List<Partition> partitions = listPartitions();
+            LocalDateTime now = LocalDateTime.now(clock);
+            createAhead(now, partitions);
+            expire(now, partitions);
+            secondsAhead.set(coveredUntil(now, partitions));
+        } catch (Exception e) {
+            // Retried on the next run; premake leaves days of headroom
+            log.error("safe_store_trade partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    /** Adds the missing partitions from the current period up to {@code premake} periods ahead. */
+    void createAhead(LocalDateTime now, List<Partition> partitions) {
+        Interval unit = Interval.parse(interval);
+        LocalDateTime start = unit.floor(now);
+        for (int i = 0; i <= premake; i++) {
+            LocalDateTime end = unit.next(start);
+            LocalDateTime from = start;
+            if (partitions.stream().noneMatch(p -> p.overlaps(from, end))) {
+                String name = unit.partitionName(start);
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + PARENT
+                        + " FOR VALUES FROM ('" + start + "') TO ('" + end + "')");
+                jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + name + "_trade_id_key ON "
+                        + name + " (trade_id)");
+                partitions.add(new Partition(name, start, end));
+                created.increment();
+                log.info("Created partition {} [{}, {})", name, start, end);
+            }
+            start = end;
+        }
+    }
+
+    /** Detaches (or drops) partitions whose upper bound is older than the retention period. */
+    void expire(LocalDateTime now, List<Partition> partitions) {
+        LocalDateTime cutoff = now.minus(retention);
+        boolean drop = "drop".equalsIgnoreCase(expiredAction);
+        for (Partition p : List.copyOf(partitions)) {
+            if (p.to() == null || p.to().isAfter(cutoff)) {
+                continue;
+            }
+            // CONCURRENTLY: ingest keeps writing to the parent while the partition is detached
+            jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + p.name() + " CONCURRENTLY");
+            if (drop) {
+                jdbcTemplate.execute("DROP TABLE " + p.name());
+            }
+            partitions.remove(p);
+            expired.increment();
+            log.info("{} expired partition {} (received_at < {})", drop ? "Dropped" : "Detached", p.name(), p.to());
+        }
+    }
+
+    private long coveredUntil(LocalDateTime now, List<Partition> partitions) {
+        LocalDateTime until = now;
+        boolean extended = true;
+        while (extended) {
+            extended = false;
+            for (Partition p : partitions) {
+                if (p.overlaps(until, until.plusNanos(1000))) {
+                    if (p.to() == null) {
+                        return Long.MAX_VALUE;
+                    }
+                    until = p.to();
+                    extended = true;
+                }
+            }
+        }
+        return Duration.between(now, until).toSeconds();
+    }
+
+    private List<Partition> listPartitions() {
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query(LIST_PARTITIONS, rs -> {
+            Partition p = parse(rs.getString(1), rs.getString(2));
+            if (p != null) {
+                partitions.add(p);
+            }
+        });
+        return partitions;
+    }
+
+    /** Parses a range bound as printed by pg_get_expr; null for anything else (e.g. DEFAULT). */
+    static Partition parse(String name, String bound) {
+        Matcher m = BOUND.matcher(bound == null ? "" : bound);
+        if (!m.find()) {
+            return null;
+        }
+        return new Partition(name, timestamp(m.group(2)), timestamp(m.group(4)));
+    }
+
+    private static LocalDateTime timestamp(String literal) {
+        return literal == null ? null : LocalDateTime.parse(literal.replace(' ', 'T'));
+    }
+}
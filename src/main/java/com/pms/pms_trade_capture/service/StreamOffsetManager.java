@@ -1,39 +1,199 @@
 package com.pms.pms_trade_capture.service;
 
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
 import com.rabbitmq.stream.Consumer;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Coalescing offset committer for stream consumers (manual tracking).
+ *
+ * Ingest reports the highest offset below which everything is persisted via
+ * {@link #commit(String, long)}; that only moves an in-memory watermark. The
+ * watermark is stored on the broker when it is {@code max-pending-messages}
+ * ahead of the last stored offset, or at the latest every {@code interval-ms}.
+ * A restart therefore replays at most that many messages (all idempotent
+ * re-inserts), while the broker sees a handful of store commands per second
+ * instead of one per batch.
+ *
+ * Offsets are tracked per stream, so each partition commits independently.
+ */
 @Component
-public class StreamOffsetManager {
+public class StreamOffsetManager implements SmartLifecycle {
     private static final Logger log = LoggerFactory.getLogger(StreamOffsetManager.class);
 
-    private final AtomicReference<Consumer> consumerRef = new AtomicReference<>();
+    private final Map<String, StreamOffsets> streams = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.rabbit.stream.offset-commit.interval-ms:1000}")
+    private long commitIntervalMs;
+
+    // 0 = store on every commit
+    @Value("${app.rabbit.stream.offset-commit.max-pending-messages:10000}")
+    private long maxPendingMessages;
+
+    private volatile ScheduledFuture<?> flushTask;
+    private volatile boolean running = false;
+
+    public StreamOffsetManager(@Qualifier("offsetCommitScheduler") ScheduledExecutorService scheduler,
+            MeterRegistry meterRegistry) {
+        this.scheduler = scheduler;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void registerStreamConsumer(String stream, Consumer consumer) {
+        offsetsFor(stream).consumer = consumer;
+    }
+
+    /**
+     * Stores any pending watermark before detaching the consumer. Only for a
+     * consumer that is being closed outside the normal shutdown, which detaches
+     * every consumer in {@link #stop()} after the final flush.
+     */
+    public void unregisterStreamConsumer(String stream) {
+        StreamOffsets offsets = streams.get(stream);
+        if (offsets != null) {
+            store(offsets);
+            offsets.consumer = null;
+        }
+    }
 
-    public void setStreamConsumer(Consumer consumer) {
-        this.consumerRef.set(consumer);
+    /**
+     * Advances the persisted watermark of a stream. Lower offsets than the
+     * current watermark are ignored.
+     */
+    public void commit(String stream, long offset) {
+        StreamOffsets offsets = offsetsFor(stream);
+        long persisted = offsets.persisted.accumulateAndGet(offset, Math::max);
+        if (persisted - offsets.lastStored.get() >= maxPendingMessages) {
+            store(offsets);
+        }
     }
 
-    public void commit(long offset) {
-        Consumer consumer = consumerRef.get();
-        if (consumer == null) {
-            log.warn("Cannot commit offset {}: Consumer not yet registered", offset);
-            return;
+    /**
+     * Stores every stream's pending watermark now.
+     */
+    public void flush() {
+        for (StreamOffsets offsets : streams.values()) {
+            store(offsets);
         }
+    }
+
+    public long getLastStoredOffset(String stream) {
+        StreamOffsets offsets = streams.get(stream);
+        return offsets == null ? -1 : offsets.lastStored.get();
+    }
+
+    private void store(StreamOffsets offsets) {
+        synchronized (offsets) {
+            long target = offsets.persisted.get();
+            if (target <= offsets.lastStored.get()) {
+                return;
+            }
+            Consumer consumer = offsets.consumer;
+            if (consumer == null) {
+                log.debug("Cannot store offset {} on stream {}: Consumer not registered", target, offsets.stream);
+                return;
+            }
 
-        try {
-            consumer.store(offset);
-            log.debug("Committed offset: {}", offset);
-        } catch (Exception e) {
-            // If storing offset fails, we log but DO NOT throw.
-            // Worst case: we replay this batch on restart.
-            // This is safer than crashing the app.
-            log.error("Failed to commit stream offset {}", offset, e);
+            try {
+                offsets.storeLatency.record(() -> consumer.store(target));
+                offsets.lastStored.set(target);
+                offsets.stores.increment();
+                log.debug("Stored offset {} on stream {}", target, offsets.stream);
+            } catch (Exception e) {
+                // If storing offset fails, we log but DO NOT throw.
+                // Worst case: we replay from the previous stored offset on restart.
+                // This is safer than crashing the app.
+                log.error("Failed to store stream offset {} on stream {}", target, offsets.stream, e);
+            }
         }
     }
 
-}
\ No newline at end of file
+    private StreamOffsets offsetsFor(String stream) {
+        return streams.computeIfAbsent(stream, s -> new StreamOffsets(s, meterRegistry));
+    }
+
+    @Override
+    public void start() {
+        this.flushTask = scheduler.scheduleWithFixedDelay(this::flush,
+                commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
+        this.running = true;
+        log.info("Offset committer started (interval={}ms, maxPending={})", commitIntervalMs, maxPendingMessages);
+    }
+
+    /**
+     * Runs after the ingest drain, whose commits only moved the in-memory
+     * watermark: stores it on the still-open consumers, then detaches them so
+     * nothing touches a consumer once StreamConsumerManager closes it.
+     */
+    @Override
+    public void stop() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        for (StreamOffsets offsets : streams.values()) {
+            store(offsets);
+            offsets.consumer = null;
+        }
+        this.running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before the consumers/ingest; stop after the ingest drain (MAX - 1000)
+        // and before the consumers are closed (StreamConsumerManager.destroy)
+        return Integer.MAX_VALUE - 1500;
+    }
+
+    private static final class StreamOffsets {
+        final String stream;
+        final AtomicLong persisted = new AtomicLong(-1);
+        final AtomicLong lastStored = new AtomicLong(-1);
+        final Timer storeLatency;
+        final Counter stores;
+        volatile Consumer consumer;
+
+        StreamOffsets(String stream, MeterRegistry registry) {
+            this.stream = stream;
+            this.storeLatency = Timer.builder("trade.ingest.offset.store.latency")
+                    .description("Time to store a stream offset on the broker")
+                    .tag("stream", stream)
+                    .register(registry);
+            this.stores = Counter.builder("trade.ingest.offset.stores")
+                    .description("Offset store commands sent to the broker")
+                    .tag("stream", stream)
+                    .register(registry);
+            Gauge.builder("trade.ingest.offset.last.stored", lastStored, AtomicLong::get)
+                    .description("Last offset stored on the broker")
+                    .tag("stream", stream)
+                    .register(registry);
+            Gauge.builder("trade.ingest.offset.persisted", persisted, AtomicLong::get)
+                    .description("Highest offset below which every message is persisted")
+                    .tag("stream", stream)
+                    .register(registry);
+        }
+    }
+}
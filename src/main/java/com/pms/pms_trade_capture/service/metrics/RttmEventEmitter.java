@@ -0,0 +1,243 @@
+package com.pms.pms_trade_capture.service.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.pms.rttm.client.clients.RttmClient;
+import com.pms.rttm.client.dto.DlqEventPayload;
+import com.pms.rttm.client.dto.ErrorEventPayload;
+import com.pms.rttm.client.dto.TradeEventPayload;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Asynchronous RTTM telemetry emitter.
+ *
+ * Ingest threads only enqueue into a bounded lock-free queue and return; a
+ * background thread drains up to {@code batch-size} events at a time, sends them
+ * through the client's async API and waits for the whole batch once. RTTM
+ * latency, retries or outages therefore never stall trade capture.
+ *
+ * Overflow policy when the queue is full:
+ * - drop-oldest (default): evict the oldest queued event, keep the newest
+ * - drop-newest: reject the incoming event
+ * Both are counted in {@code rttm.emitter.dropped}, as are events still queued
+ * when shutdown runs out of time: stop() spends at most {@code send-timeout-ms}
+ * in total on the worker and the final drain, however many batches are left.
+ */
+@Component
+public class RttmEventEmitter implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RttmEventEmitter.class);
+
+    private final RttmClient rttmClient;
+
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() is O(n); track depth separately
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final Counter dropped;
+    private final Counter sent;
+    private final Counter failed;
+
+    @Value("${app.rttm.emitter.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.rttm.emitter.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.rttm.emitter.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${app.rttm.emitter.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    @Value("${app.rttm.emitter.overflow-policy:drop-oldest}")
+    private String overflowPolicy;
+
+    private volatile Thread worker;
+    private volatile boolean running = false;
+
+    public RttmEventEmitter(RttmClient rttmClient, MeterRegistry registry) {
+        this.rttmClient = rttmClient;
+        this.dropped = Counter.builder("rttm.emitter.dropped")
+                .description("Telemetry events dropped because the emitter queue was full or shutdown timed out")
+                .register(registry);
+        this.sent = Counter.builder("rttm.emitter.sent")
+                .description("Telemetry events delivered to RTTM")
+                .register(registry);
+        this.failed = Counter.builder("rttm.emitter.failed")
+                .description("Telemetry events the RTTM client failed to deliver")
+                .register(registry);
+        Gauge.builder("rttm.emitter.queue.depth", depth, AtomicInteger::get)
+                .description("Telemetry events waiting to be sent")
+                .register(registry);
+    }
+
+    public void emit(TradeEventPayload event) {
+        enqueue(event);
+    }
+
+    public void emit(DlqEventPayload event) {
+        enqueue(event);
+    }
+
+    public void emit(ErrorEventPayload event) {
+        enqueue(event);
+    }
+
+    /**
+     * Reserves a slot before touching the queue, so concurrent producers can never
+     * take the queue past capacity and every rejected or evicted event is counted
+     * exactly once.
+     */
+    private void enqueue(Object event) {
+        int reserved = depth.incrementAndGet();
+        if (reserved > capacity) {
+            // Over capacity: give back the slot, or trade it for the oldest event
+            if (!"drop-oldest".equalsIgnoreCase(overflowPolicy) || queue.poll() == null) {
+                // poll() == null: the slots belong to producers that have not offered yet
+                depth.decrementAndGet();
+                dropped.increment();
+                return;
+            }
+            depth.decrementAndGet();
+            dropped.increment();
+        }
+        queue.offer(event);
+        if (reserved >= batchSize) {
+            Thread t = worker;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread t = new Thread(this::emitLoop, "rttm-emitter");
+        t.setDaemon(true);
+        worker = t;
+        t.start();
+        log.info("RTTM emitter started (capacity={}, batchSize={}, overflow={})", capacity, batchSize, overflowPolicy);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        Thread t = worker;
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join(sendTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Final drain of whatever the ingest shutdown flush produced, within the
+        // same budget: with RTTM down every batch would wait out its own timeout
+        long remainingMs;
+        while ((remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) > 0
+                && !Thread.currentThread().isInterrupted()
+                && sendBatch(remainingMs) > 0) {
+            // keep draining
+        }
+        int abandoned = 0;
+        while (queue.poll() != null) {
+            depth.decrementAndGet();
+            abandoned++;
+        }
+        if (abandoned > 0) {
+            dropped.increment(abandoned);
+            log.warn("RTTM emitter stopped with {} events undelivered (shutdown timeout {} ms)", abandoned,
+                    sendTimeoutMs);
+        } else {
+            log.info("RTTM emitter stopped.");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before and stop after the ingest pipeline (MAX - 1000) so its
+        // shutdown-drain telemetry is still delivered
+        return Integer.MAX_VALUE - 2000;
+    }
+
+    private void emitLoop() {
+        while (running) {
+            try {
+                if (sendBatch(sendTimeoutMs) < batchSize) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                }
+            } catch (Exception e) {
+                log.warn("RTTM emitter loop error: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sends up to one batch and waits for all of it, at most {@code timeoutMs}.
+     *
+     * @return number of events taken from the queue
+     */
+    private int sendBatch(long timeoutMs) {
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>(Math.min(batchSize, depth.get()));
+        Object event;
+        while (inFlight.size() < batchSize && (event = queue.poll()) != null) {
+            depth.decrementAndGet();
+            inFlight.add(sendAsync(event).whenComplete((ok, ex) -> {
+                if (ex != null) {
+                    failed.increment();
+                } else {
+                    sent.increment();
+                }
+            }));
+        }
+        if (inFlight.isEmpty()) {
+            return 0;
+        }
+        try {
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0]))
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("RTTM batch of {} events not fully delivered: {}", inFlight.size(), e.getMessage());
+        }
+        return inFlight.size();
+    }
+
+    private CompletableFuture<Void> sendAsync(Object event) {
+        try {
+            return switch (event) {
+                case TradeEventPayload trade -> rttmClient.sendTradeEventAsync(trade);
+                case DlqEventPayload dlq -> rttmClient.sendDlqEventAsync(dlq);
+                case ErrorEventPayload error -> rttmClient.sendErrorEventAsync(error);
+                default -> CompletableFuture.failedFuture(
+                        new IllegalArgumentException("Unsupported telemetry event " + event.getClass()));
+            };
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.pms.pms_trade_capture.stream;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.stream.ConsumerFlowStrategy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Manual credit flow strategy for one stream consumer.
+ *
+ * The broker only sends a chunk when the consumer holds a credit. A credit is
+ * given back once every message of a chunk has left the ingest buffer
+ * ({@code context.processed()} is called on drain), and only while the number
+ * of in-flight messages is below {@code maxInFlightMessages}. Otherwise the
+ * credit is deferred until the flusher frees capacity. A slow database
+ * therefore throttles delivery at the broker instead of parking the client
+ * dispatch thread.
+ */
+public class CreditFlowController implements ConsumerFlowStrategy {
+    private static final Logger log = LoggerFactory.getLogger(CreditFlowController.class);
+
+    private final String stream;
+    private final int initialCredits;
+    private final long maxInFlightMessages;
+
+    // Messages delivered by the broker but not yet drained from the buffer
+    private final AtomicLong inFlightMessages = new AtomicLong();
+    // Chunks delivered but not fully drained (each one consumed a credit)
+    private final AtomicInteger inFlightChunks = new AtomicInteger();
+    // Completed chunks whose credit is held back until capacity frees up
+    private final Queue<ConsumerFlowStrategy.Context> deferredCredits = new ConcurrentLinkedQueue<>();
+
+    private final Counter creditsGranted;
+    private final Counter creditsDeferred;
+
+    public CreditFlowController(String stream, int initialCredits, long maxInFlightMessages,
+            MeterRegistry registry) {
+        this.stream = stream;
+        this.initialCredits = initialCredits;
+        this.maxInFlightMessages = maxInFlightMessages;
+
+        this.creditsGranted = Counter.builder("trade.ingest.flow.credits.granted")
+                .description("Credits granted back to the stream broker")
+                .tag("stream", stream)
+                .register(registry);
+        this.creditsDeferred = Counter.builder("trade.ingest.flow.credits.deferred")
+                .description("Credits held back because the ingest buffer was saturated")
+                .tag("stream", stream)
+                .register(registry);
+        Gauge.builder("trade.ingest.flow.inflight.messages", inFlightMessages, AtomicLong::get)
+                .description("Messages received from the broker and not yet drained from the buffer")
+                .tag("stream", stream)
+                .register(registry);
+        Gauge.builder("trade.ingest.flow.inflight.chunks", inFlightChunks, AtomicInteger::get)
+                .description("Chunks received from the broker and not yet fully drained")
+                .tag("stream", stream)
+                .register(registry);
+        Gauge.builder("trade.ingest.flow.credits.pending", deferredCredits, Queue::size)
+                .description("Credits waiting for buffer capacity")
+                .tag("stream", stream)
+                .register(registry);
+    }
+
+    @Override
+    public int initialCredits() {
+        return initialCredits;
+    }
+
+    /**
+     * Called by the client for every chunk delivered to the consumer.
+     */
+    @Override
+    public MessageProcessedCallback start(ConsumerFlowStrategy.Context chunkContext) {
+        long chunkSize = Math.max(1, chunkContext.messageCount());
+        inFlightMessages.addAndGet(chunkSize);
+        inFlightChunks.incrementAndGet();
+
+        AtomicLong processed = new AtomicLong();
+        return messageContext -> onProcessed(chunkContext, processed, chunkSize);
+    }
+
+    private void onProcessed(ConsumerFlowStrategy.Context chunkContext, AtomicLong processed, long chunkSize) {
+        long inFlight = inFlightMessages.decrementAndGet();
+        if (processed.incrementAndGet() == chunkSize) {
+            inFlightChunks.decrementAndGet();
+            if (inFlight < maxInFlightMessages) {
+                grant(chunkContext);
+            } else {
+                deferredCredits.add(chunkContext);
+                creditsDeferred.increment();
+                log.debug("Credit deferred on stream {}: {} messages in flight", stream, inFlight);
+            }
+        }
+        releaseDeferred();
+    }
+
+    /**
+     * Grants held-back credits while the in-flight count is below the limit.
+     */
+    private void releaseDeferred() {
+        ConsumerFlowStrategy.Context deferred;
+        while (inFlightMessages.get() < maxInFlightMessages && (deferred = deferredCredits.poll()) != null) {
+            grant(deferred);
+        }
+    }
+
+    private void grant(ConsumerFlowStrategy.Context chunkContext) {
+        try {
+            chunkContext.credits(1);
+            creditsGranted.increment();
+        } catch (Exception e) {
+            // Subscription was recovered in the meantime; the new one starts with fresh credits
+            log.warn("Failed to grant credit on stream {}: {}", stream, e.getMessage());
+        }
+    }
+
+    public long getInFlightMessages() {
+        return inFlightMessages.get();
+    }
+
+    public int getInFlightChunks() {
+        return inFlightChunks.get();
+    }
+
+    public int getDeferredCredits() {
+        return deferredCredits.size();
+    }
+}
@@ -0,0 +1,76 @@
+package com.pms.pms_trade_capture.stream;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.pms.pms_trade_capture.repository.StreamCheckpointRepository;
+import com.rabbitmq.stream.OffsetSpecification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Resume positions from the PostgreSQL checkpoint.
+ *
+ * Loaded once per stream when its consumer is created: the consumer starts at
+ * checkpoint + 1, and any message at or below the checkpoint that is still
+ * delivered (e.g. when the broker-side stored offset takes precedence) is
+ * skipped before it is parsed.
+ */
+@Component
+public class StreamCheckpoints {
+    private static final Logger log = LoggerFactory.getLogger(StreamCheckpoints.class);
+
+    private final StreamCheckpointRepository repository;
+    private final Map<String, Long> resumeFloor = new ConcurrentHashMap<>();
+    private final Counter skipped;
+
+    @Value("${app.rabbit.stream.checkpoint.enabled:true}")
+    private boolean enabled;
+
+    public StreamCheckpoints(StreamCheckpointRepository repository, MeterRegistry registry) {
+        this.repository = repository;
+        this.skipped = Counter.builder("trade.ingest.checkpoint.skipped")
+                .description("Redelivered messages skipped because their offset is already checkpointed")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads the stream's checkpoint and returns where its consumer should start.
+     */
+    public OffsetSpecification startOffset(String stream) {
+        if (!enabled) {
+            return OffsetSpecification.first();
+        }
+        OptionalLong checkpoint = repository.find(stream);
+        if (checkpoint.isEmpty()) {
+            log.info("No ingest checkpoint for stream {}, starting from the first offset", stream);
+            return OffsetSpecification.first();
+        }
+        resumeFloor.put(stream, checkpoint.getAsLong());
+        log.info("Resuming stream {} after checkpointed offset {}", stream, checkpoint.getAsLong());
+        return OffsetSpecification.offset(checkpoint.getAsLong() + 1);
+    }
+
+    /**
+     * @return true if the message is covered by the checkpoint loaded at startup
+     */
+    public boolean isAlreadyPersisted(String stream, long offset) {
+        Long floor = resumeFloor.get(stream);
+        if (floor == null || offset > floor) {
+            return false;
+        }
+        skipped.increment();
+        return true;
+    }
+}
@@ -1,75 +1,151 @@
 package com.pms.pms_trade_capture.stream;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
 import com.pms.pms_trade_capture.config.RabbitStreamConfig;
 import com.pms.pms_trade_capture.service.StreamOffsetManager;
 import com.rabbitmq.stream.Consumer;
+import com.rabbitmq.stream.ConsumerBuilder;
 import com.rabbitmq.stream.Environment;
-import com.rabbitmq.stream.OffsetSpecification;
-
+import com.rabbitmq.stream.Message;
+import com.rabbitmq.stream.MessageHandler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Owns the stream consumers (one per partition stream).
+ *
+ * Shutdown happens in two steps so the final offsets still reach the broker:
+ * stop() (first lifecycle phase to stop) only stops handing messages to ingest;
+ * the consumers stay open and registered while the ingest pipelines drain and
+ * {@link StreamOffsetManager} stores the last watermark, and are closed on bean
+ * destruction, after every lifecycle phase has stopped. Messages delivered in
+ * between are skipped, never committed, and re-read after the restart.
+ */
 @Component
-public class StreamConsumerManager implements SmartLifecycle {
+public class StreamConsumerManager implements SmartLifecycle, DisposableBean {
     private static final Logger log = LoggerFactory.getLogger(StreamConsumerManager.class);
 
     private final Environment environment;
     private final RabbitStreamConfig rabbitConfig;
     private final TradeStreamHandler tradeStreamHandler;
     private final StreamOffsetManager offsetManager;
+    private final StreamCheckpoints checkpoints;
+    private final MeterRegistry meterRegistry;
 
-    private volatile Consumer consumer;
+    // One consumer per partition stream (a single entry outside super stream mode)
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
     private volatile boolean running = false;
+    // Cleared by stop(): deliveries after that are not handed to ingest
+    private volatile boolean accepting = false;
     private final AtomicBoolean isPaused = new AtomicBoolean(false);
 
     public StreamConsumerManager(Environment environment,
             RabbitStreamConfig rabbitConfig,
             TradeStreamHandler tradeStreamHandler,
-            StreamOffsetManager offsetManager) {
+            StreamOffsetManager offsetManager,
+            StreamCheckpoints checkpoints,
+            MeterRegistry meterRegistry) {
         this.environment = environment;
         this.rabbitConfig = rabbitConfig;
         this.tradeStreamHandler = tradeStreamHandler;
         this.offsetManager = offsetManager;
+        this.checkpoints = checkpoints;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public void start() {
-        log.info("Starting RabbitMQ stream Consumer: {}", rabbitConfig.getStreamName());
+        List<String> streams = rabbitConfig.getPartitionStreams();
+        log.info("Starting RabbitMQ stream Consumer(s) on: {} (flow control: {})", streams,
+                rabbitConfig.isCreditFlowControl() ? "credits" : "blocking");
+        accepting = true;
         try {
-            this.consumer = environment.consumerBuilder()
-                    .stream(rabbitConfig.getStreamName())
-                    .name(rabbitConfig.getConsumerName())
-                    .offset(OffsetSpecification.first())
-                    .messageHandler(tradeStreamHandler)
-                    .autoTrackingStrategy()
-                    .builder().build();
-
-            offsetManager.setStreamConsumer(consumer);
+            for (String stream : streams) {
+                ConsumerBuilder builder = environment.consumerBuilder()
+                        .stream(stream)
+                        .name(rabbitConfig.getConsumerName())
+                        // checkpoint + 1 from the database, first() without a checkpoint
+                        .offset(checkpoints.startOffset(stream))
+                        .messageHandler(this::handle)
+                        // Offsets are stored by StreamOffsetManager once persisted
+                        .manualTrackingStrategy()
+                        .builder();
+
+                if (rabbitConfig.isCreditFlowControl()) {
+                    // Credits are returned as the ingest buffer drains (see IngestPipeline)
+                    builder = builder.flow()
+                            .strategy(new CreditFlowController(stream, rabbitConfig.getInitialCredits(),
+                                    rabbitConfig.getMaxInFlightMessages(), meterRegistry))
+                            .builder();
+                }
+
+                Consumer consumer = builder.build();
+
+                offsetManager.registerStreamConsumer(stream, consumer);
+                consumers.add(consumer);
+            }
 
             this.running = true;
 
-            log.info("Consumer Started Successfully. Listening for trades...");
+            log.info("{} Consumer(s) Started Successfully. Listening for trades...", consumers.size());
 
         } catch (Exception e) {
             // In SmartLifecycle, an exception here will stop the app startup,
             // which is correct behavior (we can't run without the stream).
             log.error("Failed to start RabbitMQ Stream Consumer", e);
+            accepting = false;
+            for (String stream : streams) {
+                offsetManager.unregisterStreamConsumer(stream);
+            }
+            closeConsumers();
             throw new RuntimeException("Stream start failed", e);
         }
     }
 
+    private void handle(MessageHandler.Context context, Message message) {
+        if (accepting) {
+            tradeStreamHandler.handle(context, message);
+        }
+    }
+
+    /**
+     * Stops the intake only; see the class comment for why the consumers stay open.
+     */
     @Override
     public void stop() {
-        log.info("Stopping RabbitMQ Stream Consumer...");
-        if (consumer != null) {
-            consumer.close();
-        }
+        log.info("Stopping RabbitMQ Stream Consumer(s): no new messages to ingest");
+        accepting = false;
         this.running = false;
-        log.info("Consumer stopped.");
+    }
+
+    /**
+     * Runs after StreamOffsetManager's stop() has stored the final offsets and
+     * detached the consumers.
+     */
+    @Override
+    public void destroy() {
+        closeConsumers();
+        log.info("Consumer(s) closed.");
+    }
+
+    private void closeConsumers() {
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.close();
+            } catch (Exception e) {
+                log.warn("Error closing stream consumer: {}", e.getMessage());
+            }
+        }
+        consumers.clear();
     }
 
     @Override
@@ -99,8 +175,9 @@ public class StreamConsumerManager implements SmartLifecycle {
     /**
      * Pause tracking for backpressure visibility.
      * RabbitMQ Streams don't support consumer.pause() like Kafka.
-     * Instead, we handle backpressure at the message handler level
-     * by rejecting messages when the buffer is full.
+     * In 'blocking' flow control the message handler blocks when the buffer is full;
+     * in 'credits' flow control the broker simply stops delivering until credits
+     * are returned by {@link CreditFlowController}.
      */
     public void pause() {
         if (isPaused.compareAndSet(false, true)) {
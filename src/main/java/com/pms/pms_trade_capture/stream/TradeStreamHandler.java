@@ -7,8 +7,10 @@ import org.springframework.stereotype.Component;
 
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+import com.pms.pms_trade_capture.dto.ScannedTrade;
+import com.pms.pms_trade_capture.dto.TradeEventScanner;
 import com.pms.pms_trade_capture.service.BatchingIngestService;
-import com.pms.rttm.client.clients.RttmClient;
+import com.pms.pms_trade_capture.service.metrics.RttmEventEmitter;
 import com.pms.rttm.client.dto.TradeEventPayload;
 import com.pms.rttm.client.enums.EventStage;
 import com.pms.rttm.client.enums.EventType;
@@ -20,40 +22,63 @@ public class TradeStreamHandler implements MessageHandler {
     private static final Logger log = LoggerFactory.getLogger(TradeStreamHandler.class);
 
     private final TradeStreamParser tradeStreamParser;
+    private final TradeValidator tradeValidator;
+    private final StreamCheckpoints checkpoints;
     private final BatchingIngestService ingestService;
-    private final RttmClient rttmClient;
+    private final RttmEventEmitter rttmEmitter;
 
     @Value("${spring.application.name}")
     private String serviceName;
 
+    // 'parsed' (full TradeEventProto) or 'pass-through' (scan fields, keep raw bytes as payload)
+    @Value("${app.ingest.payload-mode:parsed}")
+    private String payloadMode;
+
     public TradeStreamHandler(TradeStreamParser tradeStreamParser, 
+                             TradeValidator tradeValidator,
+                             StreamCheckpoints checkpoints,
                              BatchingIngestService ingestService,
-                             RttmClient rttmClient) {
+                             RttmEventEmitter rttmEmitter) {
         this.tradeStreamParser = tradeStreamParser;
+        this.tradeValidator = tradeValidator;
+        this.checkpoints = checkpoints;
         this.ingestService = ingestService;
-        this.rttmClient = rttmClient;
+        this.rttmEmitter = rttmEmitter;
     }
 
     @Override
     public void handle(com.rabbitmq.stream.MessageHandler.Context context, com.rabbitmq.stream.Message message) {
         long offset = context.offset();
+
+        // Already persisted before the restart: don't even read the body
+        if (checkpoints.isAlreadyPersisted(context.stream(), offset)) {
+            context.processed();
+            return;
+        }
+
         byte[] body = message.getBodyAsBinary();
 
         try {
+            if ("pass-through".equalsIgnoreCase(payloadMode)) {
+                handlePassThrough(context, body, offset);
+                return;
+            }
+
             // Parse the protobuf message
             TradeEventProto trade = tradeStreamParser.parse(body);
 
-            // Validate required fields
-            if (trade.getPortfolioId().isEmpty() || trade.getTradeId().isEmpty()) {
-                handleInvalidMessage(body, offset, "Missing required fields: PortfolioID or TradeID", context);
+            // Validate against the schema before buffering: data errors never reach the batch
+            TradeValidator.Outcome outcome = tradeValidator.validate(trade);
+            if (!outcome.isValid()) {
+                handleInvalidMessage(body, offset, outcome.error(), context);
                 return;
             }
 
             // Send RTTM event: Trade RECEIVED from RabbitMQ Stream
-            sendTradeReceivedEvent(trade, offset);
+            sendTradeReceivedEvent(trade.getTradeId(), trade.getPortfolioId(), offset);
 
             // Route valid message for processing
-            ingestService.addMessage(new PendingStreamMessage(trade, body, offset, context));
+            ingestService.addMessage(new PendingStreamMessage(trade, outcome.trade(), body, offset, context));
 
         } catch (InvalidProtocolBufferException e) {
             // Handle malformed protobuf messages
@@ -68,24 +93,44 @@ public class TradeStreamHandler implements MessageHandler {
     }
 
     /**
-     * Send RTTM event when trade is first received from RabbitMQ Stream
+     * Pass-through payload mode: only the indexed fields are scanned out, the
+     * inbound bytes are kept as the payload for the safe store, outbox and Kafka.
+     */
+    private void handlePassThrough(MessageHandler.Context context, byte[] body, long offset)
+            throws InvalidProtocolBufferException {
+        ScannedTrade trade = TradeEventScanner.scan(body);
+
+        TradeValidator.Outcome outcome = tradeValidator.validate(trade);
+        if (!outcome.isValid()) {
+            handleInvalidMessage(body, offset, outcome.error(), context);
+            return;
+        }
+
+        sendTradeReceivedEvent(trade.getTradeId(), trade.getPortfolioId(), offset);
+
+        ingestService.addMessage(PendingStreamMessage.passThrough(trade, outcome.trade(), body, offset, context));
+    }
+
+    /**
+     * Send RTTM event when trade is first received from RabbitMQ Stream.
+     * Only enqueued here; delivery happens on the emitter thread.
      */
-    private void sendTradeReceivedEvent(TradeEventProto trade, long offset) {
+    private void sendTradeReceivedEvent(String tradeId, String portfolioId, long offset) {
         try {
             TradeEventPayload event = TradeEventPayload.builder()
                     .serviceName(serviceName)
-                    .tradeId(trade.getTradeId())
+                    .tradeId(tradeId)
                     .eventType(EventType.TRADE_RECEIVED)
                     .eventStage(EventStage.RECEIVED)
                     .eventStatus("RECEIVED")
                     .message("Trade received from RabbitMQ Stream at offset " + offset)
                     .build();
 
-            rttmClient.sendTradeEvent(event);
-            log.info("RTTM[TRADE_RECEIVED] tradeId={} offset={} portfolio={}", 
-                    trade.getTradeId(), offset, trade.getPortfolioId());
+            rttmEmitter.emit(event);
+            log.debug("RTTM[TRADE_RECEIVED] tradeId={} offset={} portfolio={}", 
+                    tradeId, offset, portfolioId);
         } catch (Exception ex) {
-            log.warn("RTTM[TRADE_RECEIVED] FAILED tradeId={}: {}", trade.getTradeId(), ex.getMessage());
+            log.warn("RTTM[TRADE_RECEIVED] FAILED tradeId={}: {}", tradeId, ex.getMessage());
         }
     }
 
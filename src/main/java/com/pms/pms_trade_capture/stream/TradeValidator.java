@@ -0,0 +1,132 @@
+package com.pms.pms_trade_capture.stream;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.pms.pms_trade_capture.dto.ScannedTrade;
+import com.pms.pms_trade_capture.dto.ValidatedTrade;
+import com.pms.pms_trade_capture.utils.PortfolioIdCache;
+import com.pms.pms_trade_capture.utils.UuidCodec;
+import com.pms.trade_capture.proto.TradeEventProto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pre-persistence validation and normalization, run on the stream thread
+ * before a message is buffered.
+ *
+ * Checks everything the safe_store_trade schema would reject (UUID columns,
+ * varchar sizes, NOT NULL event timestamp) plus the value rules a row must
+ * satisfy to be dispatched (known side, finite price). A rejected trade takes
+ * the invalid path straight away, so a data error never rolls back a batch.
+ */
+@Component
+public class TradeValidator {
+
+    // Column sizes in safe_store_trade
+    static final int SYMBOL_MAX_LENGTH = 20;
+    static final int SIDE_MAX_LENGTH = 10;
+
+    /** Either a validated trade or the reason it was rejected. */
+    public record Outcome(ValidatedTrade trade, String error) {
+        public boolean isValid() {
+            return trade != null;
+        }
+    }
+
+    private final PortfolioIdCache portfolioIdCache;
+    private final MeterRegistry registry;
+    private final Set<String> allowedSides;
+
+    public TradeValidator(PortfolioIdCache portfolioIdCache,
+            MeterRegistry registry,
+            @Value("${app.ingest.validation.sides:BUY,SELL}") String[] allowedSides) {
+        this.portfolioIdCache = portfolioIdCache;
+        this.registry = registry;
+        this.allowedSides = Arrays.stream(allowedSides)
+                .map(s -> s.trim().toUpperCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public Outcome validate(TradeEventProto trade) {
+        if (!trade.hasTimestamp()) {
+            return reject("timestamp", "Missing event timestamp");
+        }
+        return validate(trade.getPortfolioId(), trade.getTradeId(), trade.getSymbol(), trade.getSide(),
+                trade.getPricePerStock(), trade.getQuantity(),
+                trade.getTimestamp().getSeconds(), trade.getTimestamp().getNanos());
+    }
+
+    public Outcome validate(ScannedTrade trade) {
+        if (!trade.hasTimestamp()) {
+            return reject("timestamp", "Missing event timestamp");
+        }
+        return validate(trade.getPortfolioId(), trade.getTradeId(), trade.getSymbol(), trade.getSide(),
+                trade.getPricePerStock(), trade.getQuantity(),
+                trade.getTimestampSeconds(), trade.getTimestampNanos());
+    }
+
+    private Outcome validate(String portfolioIdValue, String tradeIdValue, String symbolValue, String sideValue,
+            double price, long quantity, long seconds, int nanos) {
+        if (portfolioIdValue.isEmpty() || tradeIdValue.isEmpty()) {
+            return reject("id", "Missing required fields: PortfolioID or TradeID");
+        }
+        UUID portfolioId;
+        UUID tradeId;
+        try {
+            portfolioId = portfolioIdCache.intern(portfolioIdValue).getId();
+        } catch (IllegalArgumentException e) {
+            return reject("portfolio_id", "Malformed portfolioId: " + abbreviate(portfolioIdValue));
+        }
+        try {
+            tradeId = UuidCodec.parse(tradeIdValue);
+        } catch (IllegalArgumentException e) {
+            return reject("trade_id", "Malformed tradeId: " + abbreviate(tradeIdValue));
+        }
+
+        String symbol = symbolValue.strip().toUpperCase(Locale.ROOT);
+        if (symbol.isEmpty() || symbol.codePointCount(0, symbol.length()) > SYMBOL_MAX_LENGTH) {
+            return reject("symbol", "Symbol empty or longer than " + SYMBOL_MAX_LENGTH + ": " + abbreviate(symbolValue));
+        }
+        String side = sideValue.strip().toUpperCase(Locale.ROOT);
+        if (side.length() > SIDE_MAX_LENGTH || !allowedSides.contains(side)) {
+            return reject("side", "Unknown side: " + abbreviate(sideValue));
+        }
+        if (!Double.isFinite(price)) {
+            return reject("price", "Non-finite price: " + price);
+        }
+
+        LocalDateTime eventTimestamp;
+        try {
+            eventTimestamp = LocalDateTime.ofInstant(Instant.ofEpochSecond(seconds, nanos), ZoneOffset.UTC);
+        } catch (RuntimeException e) {
+            return reject("timestamp", "Event timestamp out of range: " + seconds + "s");
+        }
+
+        return new Outcome(new ValidatedTrade(portfolioId, tradeId, symbol, side, price, quantity, eventTimestamp),
+                null);
+    }
+
+    private Outcome reject(String field, String error) {
+        Counter.builder("trade.ingest.validation.rejected")
+                .description("Trades rejected by pre-persistence validation")
+                .tag("field", field)
+                .register(registry)
+                .increment();
+        return new Outcome(null, error);
+    }
+
+    private static String abbreviate(String value) {
+        return value.length() <= 64 ? value : value.substring(0, 64) + "...";
+    }
+}
@@ -1,16 +1,28 @@
 package com.pms.pms_trade_capture.utils;
 
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Component;
 
 @Component
 public class AppMetrics {
+    private final MeterRegistry registry;
     private final Counter ingestSuccess;
     private final Counter ingestFail;
     private final Counter dlqWrites;
+    private final Counter ingestDuplicates;
+    private final Counter ingestCopyBatches;
+    private final DistributionSummary bisectDepth;
+    private final DistributionSummary bisectTransactions;
 
     public AppMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
         this.ingestSuccess = Counter.builder("trade.ingest.success")
                 .description("Number of trades successfully persisted to DB")
                 .register(registry);
@@ -22,12 +34,32 @@ public class AppMetrics {
         this.dlqWrites = Counter.builder("trade.ingest.dlq")
                 .description("Number of poisonous messages sent to DLQ")
                 .register(registry);
+
+        this.ingestDuplicates = Counter.builder("trade.ingest.duplicate")
+                .description("Number of replayed trades skipped because they were already persisted")
+                .register(registry);
+
+        this.ingestCopyBatches = Counter.builder("trade.ingest.copy.batches")
+                .description("Number of ingest batches written with binary COPY")
+                .register(registry);
+
+        this.bisectDepth = DistributionSummary.builder("trade.ingest.recovery.split.depth")
+                .description("Bisection depth needed to isolate failing messages in a batch")
+                .register(registry);
+
+        this.bisectTransactions = DistributionSummary.builder("trade.ingest.recovery.transactions")
+                .description("DB transactions used to recover one failed batch")
+                .register(registry);
     }
 
     public void incrementIngestSuccess(int count) {
         ingestSuccess.increment(count);
     }
 
+    public void incrementIngestCopyBatch() {
+        ingestCopyBatches.increment();
+    }
+
     public void incrementIngestFail(int count) {
         ingestFail.increment(count);
     }
@@ -35,4 +67,28 @@ public class AppMetrics {
     public void incrementDlq(int count) {
         dlqWrites.increment(count);
     }
+
+    public void incrementIngestDuplicate(int count) {
+        ingestDuplicates.increment(count);
+    }
+
+    /**
+     * Per-stream ingest health: batches held by the offset watermark and whether
+     * the pipeline has halted after a failed write (1) or is consuming (0).
+     */
+    public void registerIngestPipeline(String stream, IntSupplier pendingBatches, BooleanSupplier halted) {
+        Gauge.builder("trade.ingest.watermark.pending", () -> pendingBatches.getAsInt())
+                .description("Dispatched batches whose offset is not committed yet")
+                .tag("stream", stream)
+                .register(registry);
+        Gauge.builder("trade.ingest.halted", () -> halted.getAsBoolean() ? 1 : 0)
+                .description("1 if the ingest pipeline stopped consuming after a failed write")
+                .tag("stream", stream)
+                .register(registry);
+    }
+
+    public void recordBatchRecovery(int splitDepth, int transactions) {
+        bisectDepth.record(splitDepth);
+        bisectTransactions.record(transactions);
+    }
 }
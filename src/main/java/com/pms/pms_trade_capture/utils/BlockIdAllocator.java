@@ -0,0 +1,149 @@
+package com.pms.pms_trade_capture.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Hands out IDs from blocks reserved on a database sequence.
+ *
+ * One {@code nextval()} reserves {@code [value, value + increment)}. Once the
+ * current block falls below {@code prefetchRatio} of its size, the next block
+ * is fetched on the prefetch executor, so callers normally never wait on the
+ * database. A caller only blocks (counted as a stall) if a block runs dry
+ * before its successor has arrived.
+ *
+ * Thread-safe; the lock is held only for a few arithmetic operations except
+ * during a stall.
+ */
+public class BlockIdAllocator {
+
+    /** A reserved ID range: {@code [start, start + size)}. */
+    public record Block(long start, long size) {
+    }
+
+    @FunctionalInterface
+    public interface BlockFetcher {
+        Block fetch(String sequenceName);
+    }
+
+    private final String sequenceName;
+    private final BlockFetcher fetcher;
+    private final Executor prefetchExecutor;
+    private final double prefetchRatio;
+
+    private final Counter allocated;
+    private final Counter stalls;
+    private final Timer fetchTimer;
+
+    // Guarded by this
+    private long next;
+    private long end;
+    private long blockSize;
+    private CompletableFuture<Block> pending;
+
+    public BlockIdAllocator(String sequenceName, BlockFetcher fetcher, Executor prefetchExecutor,
+            double prefetchRatio, MeterRegistry registry) {
+        this.sequenceName = sequenceName;
+        this.fetcher = fetcher;
+        this.prefetchExecutor = prefetchExecutor;
+        this.prefetchRatio = prefetchRatio;
+        this.allocated = Counter.builder("trade.ingest.id.allocated")
+                .description("IDs handed out from prefetched sequence blocks")
+                .tag("sequence", sequenceName)
+                .register(registry);
+        this.stalls = Counter.builder("trade.ingest.id.stalls")
+                .description("Allocations that had to wait for a sequence block fetch")
+                .tag("sequence", sequenceName)
+                .register(registry);
+        this.fetchTimer = Timer.builder("trade.ingest.id.block.fetch")
+                .description("Latency of reserving an ID block on the sequence")
+                .tag("sequence", sequenceName)
+                .register(registry);
+        Gauge.builder("trade.ingest.id.block.remaining", this, BlockIdAllocator::remaining)
+                .description("IDs left in the current block")
+                .tag("sequence", sequenceName)
+                .register(registry);
+    }
+
+    /** Starts fetching the first block so the first insert does not wait. */
+    public synchronized void prefetch() {
+        if (pending == null && next == end) {
+            pending = fetchAsync();
+        }
+    }
+
+    public synchronized long next() {
+        if (next == end) {
+            takePendingBlock();
+        }
+        long id = next++;
+        allocated.increment();
+        prefetchIfLow();
+        return id;
+    }
+
+    /**
+     * Lower bound of every ID this allocator will hand out from now on (blocks
+     * are reserved in increasing order). 0 before the first block arrives.
+     */
+    public synchronized long peekNext() {
+        return next;
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+
+    synchronized long remaining() {
+        return end - next;
+    }
+
+    private void prefetchIfLow() {
+        if (pending == null && end - next <= blockSize * prefetchRatio) {
+            pending = fetchAsync();
+        }
+    }
+
+    private void takePendingBlock() {
+        if (pending == null) {
+            pending = fetchAsync();
+        }
+        if (!pending.isDone()) {
+            stalls.increment();
+        }
+        Block block;
+        try {
+            block = pending.join();
+        } catch (CompletionException e) {
+            // Next caller retries the fetch
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        } finally {
+            pending = null;
+        }
+        next = block.start();
+        end = block.start() + block.size();
+        blockSize = block.size();
+    }
+
+    private CompletableFuture<Block> fetchAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            long started = System.nanoTime();
+            try {
+                Block block = fetcher.fetch(sequenceName);
+                if (block.size() < 1) {
+                    throw new IllegalStateException("Sequence " + sequenceName + " has no positive increment");
+                }
+                return block;
+            } finally {
+                fetchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }, prefetchExecutor);
+    }
+}
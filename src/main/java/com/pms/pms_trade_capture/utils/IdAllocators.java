@@ -0,0 +1,118 @@
+package com.pms.pms_trade_capture.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One {@link BlockIdAllocator} per table sequence, shared by the JPA entities
+ * (through {@code @BlockSequence}) and the JDBC/COPY write engines.
+ *
+ * The block size is the sequence's own {@code increment_by}, read with every
+ * fetch, so changing a block size is a sequence migration and never a config
+ * mismatch between instances.
+ */
+@Component
+public class IdAllocators implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(IdAllocators.class);
+
+    public static final String SAFE_STORE_TRADE_SEQ = "safe_store_trade_seq";
+    public static final String OUTBOX_EVENT_SEQ = "outbox_event_seq";
+    public static final String DLQ_ENTRY_SEQ = "dlq_entry_seq";
+
+    private static final String FETCH_BLOCK = """
+            SELECT nextval(?::regclass),
+                   (SELECT increment_by FROM pg_sequences
+                    WHERE schemaname = current_schema() AND sequencename = ?)
+            """;
+
+    // Hibernate instantiates ID generators itself; they reach the Spring-managed
+    // allocators through this reference
+    private static volatile IdAllocators instance;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Executor prefetchExecutor;
+    private final MeterRegistry registry;
+    private final Map<String, BlockIdAllocator> allocators = new ConcurrentHashMap<>();
+
+    @Value("${app.ids.prefetch-ratio:0.5}")
+    private double prefetchRatio;
+
+    private volatile boolean running = false;
+
+    public IdAllocators(JdbcTemplate jdbcTemplate,
+            @Qualifier("idPrefetchExecutor") Executor prefetchExecutor,
+            MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.prefetchExecutor = prefetchExecutor;
+        this.registry = registry;
+        instance = this;
+    }
+
+    public static IdAllocators current() {
+        IdAllocators allocators = instance;
+        if (allocators == null) {
+            throw new IllegalStateException("ID allocators not initialized");
+        }
+        return allocators;
+    }
+
+    public BlockIdAllocator forSequence(String sequenceName) {
+        return allocators.computeIfAbsent(sequenceName,
+                name -> new BlockIdAllocator(name, this::fetchBlock, prefetchExecutor, prefetchRatio, registry));
+    }
+
+    public BlockIdAllocator safeStoreTrade() {
+        return forSequence(SAFE_STORE_TRADE_SEQ);
+    }
+
+    public BlockIdAllocator outboxEvent() {
+        return forSequence(OUTBOX_EVENT_SEQ);
+    }
+
+    public BlockIdAllocator dlqEntry() {
+        return forSequence(DLQ_ENTRY_SEQ);
+    }
+
+    private BlockIdAllocator.Block fetchBlock(String sequenceName) {
+        return jdbcTemplate.queryForObject(FETCH_BLOCK,
+                (rs, i) -> new BlockIdAllocator.Block(rs.getLong(1), rs.getLong(2)),
+                sequenceName, sequenceName);
+    }
+
+    @Override
+    public void start() {
+        // Warm all three before the ingest pipeline takes traffic
+        safeStoreTrade().prefetch();
+        outboxEvent().prefetch();
+        dlqEntry().prefetch();
+        running = true;
+        log.info("ID block prefetch started (prefetch ratio {})", prefetchRatio);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Before the ingest pipeline (MAX - 1000) and the RTTM emitter (MAX - 2000)
+        return Integer.MAX_VALUE - 3000;
+    }
+}
@@ -0,0 +1,63 @@
+package com.pms.pms_trade_capture.utils;
+
+import java.util.TreeMap;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Lowest safe_store_trade ID that an ingest transaction of this instance may
+ * still commit. Every row below the horizon is either committed or rolled back,
+ * so a reader walking the table in ID order (cursor dispatch) never moves past
+ * a row that becomes visible later.
+ *
+ * Relies on IDs being handed out in increasing order ({@link BlockIdAllocator}):
+ * a transaction that registers before allocating can only receive IDs at or
+ * above the allocator position seen at registration.
+ */
+@Component
+public class IngestHorizon {
+
+    private final IdAllocators idAllocators;
+
+    // Registration floor -> number of open transactions that registered it. Guarded by this
+    private final TreeMap<Long, Integer> inFlight = new TreeMap<>();
+
+    public IngestHorizon(IdAllocators idAllocators) {
+        this.idAllocators = idAllocators;
+    }
+
+    /**
+     * Registers the current transaction until it completes. Must be called before
+     * the transaction allocates any safe_store_trade ID. No-op outside a
+     * transaction.
+     */
+    public void joinCurrentTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        long floor = enter();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                exit(floor);
+            }
+        });
+    }
+
+    /** @return exclusive upper bound of the IDs that are safe to read */
+    public synchronized long current() {
+        return inFlight.isEmpty() ? idAllocators.safeStoreTrade().peekNext() : inFlight.firstKey();
+    }
+
+    synchronized long enter() {
+        long floor = idAllocators.safeStoreTrade().peekNext();
+        inFlight.merge(floor, 1, Integer::sum);
+        return floor;
+    }
+
+    synchronized void exit(long floor) {
+        inFlight.computeIfPresent(floor, (k, n) -> n == 1 ? null : n - 1);
+    }
+}
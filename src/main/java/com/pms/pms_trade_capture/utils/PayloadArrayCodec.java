@@ -0,0 +1,53 @@
+package com.pms.pms_trade_capture.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+/**
+ * Payload of a portfolio-batched outbox row: the trade payloads of one portfolio
+ * from one ingest flush, in order, each prefixed with its length as a protobuf
+ * varint (the framing of a {@code repeated bytes} field, without the tags).
+ */
+public final class PayloadArrayCodec {
+
+    private PayloadArrayCodec() {
+    }
+
+    public static byte[] encode(List<byte[]> payloads) {
+        int size = 0;
+        for (byte[] payload : payloads) {
+            size += CodedOutputStream.computeByteArraySizeNoTag(payload);
+        }
+        byte[] out = new byte[size];
+        CodedOutputStream stream = CodedOutputStream.newInstance(out);
+        try {
+            for (byte[] payload : payloads) {
+                stream.writeByteArrayNoTag(payload);
+            }
+            stream.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // Writing into an exactly sized array
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+
+    /**
+     * @throws IOException if the bytes do not hold exactly {@code count} framed payloads
+     */
+    public static List<byte[]> decode(byte[] encoded, int count) throws IOException {
+        CodedInputStream stream = CodedInputStream.newInstance(encoded);
+        List<byte[]> payloads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            payloads.add(stream.readByteArray());
+        }
+        if (!stream.isAtEnd()) {
+            throw new IOException("Trailing bytes after " + count + " payloads");
+        }
+        return payloads;
+    }
+}
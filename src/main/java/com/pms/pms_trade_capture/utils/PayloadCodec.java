@@ -0,0 +1,223 @@
+package com.pms.pms_trade_capture.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdException;
+import com.pms.pms_trade_capture.repository.PayloadDictionaryRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Storage encoding of trade payloads (safe_store_trade.raw_payload,
+ * outbox_event.payload, dlq_entry.raw_message).
+ *
+ * The payloads are a few hundred bytes of protobuf, mostly UUID strings and
+ * repeated symbols: far below the TOAST compression threshold, but they shrink
+ * well with zstd and a dictionary trained on real rows (PayloadDictionaryTrainer).
+ *
+ * Encoded form: {@code 0x00, version, varint dictionary ID (0 = none), zstd frame}.
+ * No protobuf message starts with 0x00 (field number 0 is invalid), so bytes
+ * without the marker are plain payloads: rows written before compression was
+ * enabled, or payloads that did not get smaller, decode to themselves. Version 0
+ * escapes a plain payload that happens to begin with 0x00 (stored bytes need not
+ * be valid protobuf), with compression on or off.
+ */
+@Component
+public class PayloadCodec implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(PayloadCodec.class);
+
+    static final byte MARKER = 0x00;
+    static final byte VERSION_PLAIN = 0x00;
+    static final byte VERSION_ZSTD = 0x01;
+
+    private final PayloadDictionaryRepository dictionaryRepository;
+    private final boolean enabled;
+    private final int level;
+    private final Counter plainBytes;
+    private final Counter storedBytes;
+
+    // Dictionaries are only ever added: every stored frame stays decodable
+    private final Map<Long, ZstdDictDecompress> decompressDictionaries = new ConcurrentHashMap<>();
+    private volatile ActiveDictionary active = new ActiveDictionary(0, null);
+    private volatile boolean running = false;
+
+    private record ActiveDictionary(long id, ZstdDictCompress dictionary) {
+    }
+
+    public PayloadCodec(PayloadDictionaryRepository dictionaryRepository,
+            @Value("${app.payload.compression.enabled:false}") boolean enabled,
+            @Value("${app.payload.compression.level:3}") int level,
+            MeterRegistry registry) {
+        this.dictionaryRepository = dictionaryRepository;
+        this.enabled = enabled;
+        this.level = level;
+        this.plainBytes = Counter.builder("trade.db.payload.bytes").tag("form", "plain")
+                .description("Payload bytes before storage encoding").register(registry);
+        this.storedBytes = Counter.builder("trade.db.payload.bytes").tag("form", "stored")
+                .description("Payload bytes after storage encoding").register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            // Before ingest and dispatch: the newest trained dictionary becomes active
+            dictionaryRepository.findLatest().ifPresentOrElse(
+                    d -> activate(d.id(), d.dictionary()),
+                    () -> log.warn("Payload compression enabled without a trained dictionary; using plain zstd"));
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 3000;
+    }
+
+    /**
+     * Makes a dictionary the one new payloads are compressed with.
+     */
+    public void activate(long dictionaryId, byte[] dictionary) {
+        decompressDictionaries.computeIfAbsent(dictionaryId, id -> new ZstdDictDecompress(dictionary));
+        active = new ActiveDictionary(dictionaryId, new ZstdDictCompress(dictionary, level));
+        log.info("Payload dictionary {} active ({} bytes)", dictionaryId, dictionary.length);
+    }
+
+    /**
+     * Disabled, payloads are stored exactly as received, except that one starting
+     * with the marker is escaped: decode would otherwise read arbitrary bytes (an
+     * invalid message in the DLQ, say) as a frame, whatever the setting was.
+     */
+    public byte[] encode(byte[] payload) {
+        if (payload == null) {
+            return null;
+        }
+        if (!enabled) {
+            return payload.length > 0 && payload[0] == MARKER ? escape(payload) : payload;
+        }
+        plainBytes.increment(payload.length);
+        byte[] encoded = compress(payload);
+        if (encoded.length >= payload.length) {
+            encoded = payload.length > 0 && payload[0] == MARKER ? escape(payload) : payload;
+        }
+        storedBytes.increment(encoded.length);
+        return encoded;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the payload carries a frame that cannot be decoded
+     */
+    public byte[] decode(byte[] stored) {
+        if (stored == null || stored.length < 2 || stored[0] != MARKER) {
+            return stored;
+        }
+        return switch (stored[1]) {
+            case VERSION_PLAIN -> Arrays.copyOfRange(stored, 2, stored.length);
+            case VERSION_ZSTD -> decompress(stored);
+            default -> stored;
+        };
+    }
+
+    private byte[] compress(byte[] payload) {
+        ActiveDictionary dict = active;
+        int headerSize = 2 + varintSize(dict.id());
+        byte[] out = new byte[headerSize + (int) Zstd.compressBound(payload.length)];
+        out[0] = MARKER;
+        out[1] = VERSION_ZSTD;
+        writeVarint(out, 2, dict.id());
+        long size = dict.dictionary() != null
+                ? Zstd.compressFastDict(out, headerSize, payload, 0, payload.length, dict.dictionary())
+                : Zstd.compressByteArray(out, headerSize, out.length - headerSize, payload, 0, payload.length, level);
+        if (Zstd.isError(size)) {
+            throw new IllegalStateException("zstd compression failed: " + Zstd.getErrorName(size));
+        }
+        return Arrays.copyOf(out, headerSize + (int) size);
+    }
+
+    private byte[] decompress(byte[] stored) {
+        long dictionaryId = 0;
+        int pos = 2;
+        int shift = 0;
+        while (true) {
+            if (pos >= stored.length || shift > 63) {
+                throw new IllegalArgumentException("Truncated payload header");
+            }
+            byte b = stored[pos++];
+            dictionaryId |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+        }
+        long contentSize = Zstd.getFrameContentSize(stored, pos, stored.length - pos);
+        if (contentSize < 0 || contentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid zstd frame in payload");
+        }
+        byte[] out = new byte[(int) contentSize];
+        ZstdDictDecompress dictionary = dictionaryId == 0 ? null : decompressDictionary(dictionaryId);
+        long size;
+        try {
+            size = dictionary == null
+                    ? Zstd.decompressByteArray(out, 0, out.length, stored, pos, stored.length - pos)
+                    : Zstd.decompressFastDict(out, 0, stored, pos, stored.length - pos, dictionary);
+        } catch (ZstdException e) {
+            throw new IllegalArgumentException("Corrupt zstd frame in payload", e);
+        }
+        if (Zstd.isError(size) || size != contentSize) {
+            throw new IllegalArgumentException("Corrupt zstd frame in payload");
+        }
+        return out;
+    }
+
+    private ZstdDictDecompress decompressDictionary(long dictionaryId) {
+        // Trained on another instance after this one started
+        return decompressDictionaries.computeIfAbsent(dictionaryId, id -> dictionaryRepository.find(id)
+                .map(d -> new ZstdDictDecompress(d.dictionary()))
+                .orElseThrow(() -> new IllegalArgumentException("Unknown payload dictionary " + id)));
+    }
+
+    private static byte[] escape(byte[] payload) {
+        byte[] out = new byte[payload.length + 2];
+        out[0] = MARKER;
+        out[1] = VERSION_PLAIN;
+        System.arraycopy(payload, 0, out, 2, payload.length);
+        return out;
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeVarint(byte[] out, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos] = (byte) value;
+    }
+}
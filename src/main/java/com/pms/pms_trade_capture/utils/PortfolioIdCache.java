@@ -0,0 +1,108 @@
+package com.pms.pms_trade_capture.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded interning cache for portfolio IDs.
+ *
+ * Portfolio cardinality is tiny compared with trade volume, so every portfolio
+ * ID string is parsed once and the same {@link PortfolioKey} (UUID + Kafka key
+ * bytes) is reused by ingest (safe store + outbox rows) and by dispatch (Kafka key).
+ * When the bound is reached an arbitrary entry is evicted; correctness never
+ * depends on a hit.
+ */
+@Component
+public class PortfolioIdCache {
+
+    /**
+     * Interned portfolio identity: parsed UUID and pre-encoded Kafka key.
+     */
+    public static final class PortfolioKey {
+        private final UUID id;
+        private final byte[] keyBytes;
+
+        private PortfolioKey(UUID id) {
+            this.id = id;
+            this.keyBytes = UuidCodec.toAsciiBytes(id);
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        /**
+         * Kafka record key. Shared instance, must not be modified.
+         */
+        public byte[] getKeyBytes() {
+            return keyBytes;
+        }
+    }
+
+    private final Map<String, PortfolioKey> byString = new ConcurrentHashMap<>();
+    private final Map<UUID, PortfolioKey> byUuid = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Counter misses;
+
+    public PortfolioIdCache(@Value("${app.portfolio-cache.max-size:100000}") int maxSize,
+            MeterRegistry registry) {
+        this.maxSize = maxSize;
+        this.misses = Counter.builder("trade.portfolio.cache.miss")
+                .description("Portfolio IDs parsed because they were not interned yet")
+                .register(registry);
+        Gauge.builder("trade.portfolio.cache.size", byUuid, Map::size)
+                .description("Interned portfolio IDs")
+                .register(registry);
+    }
+
+    /**
+     * Resolves a portfolio ID string (ingest side).
+     *
+     * @throws IllegalArgumentException if the string is not a UUID
+     */
+    public PortfolioKey intern(String portfolioId) {
+        PortfolioKey key = byString.get(portfolioId);
+        if (key != null) {
+            return key;
+        }
+        key = intern(UuidCodec.parse(portfolioId));
+        evictIfFull(byString);
+        byString.putIfAbsent(portfolioId, key);
+        return key;
+    }
+
+    /**
+     * Resolves a portfolio UUID (dispatch side, UUIDs loaded from the outbox).
+     */
+    public PortfolioKey intern(UUID portfolioId) {
+        PortfolioKey key = byUuid.get(portfolioId);
+        if (key != null) {
+            return key;
+        }
+        misses.increment();
+        evictIfFull(byUuid);
+        PortfolioKey created = new PortfolioKey(portfolioId);
+        key = byUuid.putIfAbsent(portfolioId, created);
+        return key != null ? key : created;
+    }
+
+    private <K> void evictIfFull(Map<K, PortfolioKey> map) {
+        if (map.size() < maxSize) {
+            return;
+        }
+        Iterator<K> it = map.keySet().iterator();
+        if (it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
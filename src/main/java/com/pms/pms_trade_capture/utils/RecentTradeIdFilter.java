@@ -0,0 +1,133 @@
+package com.pms.pms_trade_capture.utils;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Time-windowed Bloom filter of recently persisted trade IDs.
+ *
+ * Two generations of bits are kept: writes go to the current one, lookups
+ * check both, and every {@code window-ms} the older generation is dropped. An
+ * ID is therefore remembered for between one and two windows. Lock-free for
+ * readers and writers; rotation is the only synchronized step.
+ *
+ * A negative answer is definite ("never persisted recently"); a positive one
+ * is only a hint and must be confirmed against the database before a trade is
+ * dropped.
+ */
+@Component
+public class RecentTradeIdFilter {
+
+    private final long windowMs;
+    private final int bitCount;
+    private final int hashCount;
+
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+    private volatile long rotatedAt;
+
+    private final Counter positives;
+
+    public RecentTradeIdFilter(
+            @Value("${app.ingest.idempotent.filter.window-ms:600000}") long windowMs,
+            @Value("${app.ingest.idempotent.filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${app.ingest.idempotent.filter.false-positive-rate:0.01}") double falsePositiveRate,
+            MeterRegistry registry) {
+        this.windowMs = windowMs;
+        // Standard sizing: m = -n ln p / (ln 2)^2, k = m/n ln 2
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(bits, 64), Integer.MAX_VALUE - 63);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.current = newBits();
+        this.previous = newBits();
+        this.rotatedAt = System.currentTimeMillis();
+        this.positives = Counter.builder("trade.ingest.dedup.filter.positives")
+                .description("Trade IDs the recent-ID filter reported as possibly seen")
+                .register(registry);
+    }
+
+    public void put(UUID tradeId) {
+        rotateIfDue();
+        AtomicLongArray bits = current;
+        long h1 = mix(tradeId.getMostSignificantBits() ^ Long.rotateLeft(tradeId.getLeastSignificantBits(), 32));
+        long h2 = mix(tradeId.getLeastSignificantBits() + h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            set(bits, index(h1 + i * h2));
+        }
+    }
+
+    public boolean mightContain(UUID tradeId) {
+        rotateIfDue();
+        long h1 = mix(tradeId.getMostSignificantBits() ^ Long.rotateLeft(tradeId.getLeastSignificantBits(), 32));
+        long h2 = mix(tradeId.getLeastSignificantBits() + h1) | 1;
+        boolean hit = contains(current, h1, h2) || contains(previous, h1, h2);
+        if (hit) {
+            positives.increment();
+        }
+        return hit;
+    }
+
+    int getBitCount() {
+        return bitCount;
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    private boolean contains(AtomicLongArray bits, long h1, long h2) {
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(h1 + i * h2);
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void set(AtomicLongArray bits, int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long value;
+        while (((value = bits.get(word)) & mask) == 0) {
+            if (bits.compareAndSet(word, value, value | mask)) {
+                return;
+            }
+        }
+    }
+
+    private int index(long hash) {
+        return (int) Math.floorMod(hash, (long) bitCount);
+    }
+
+    private void rotateIfDue() {
+        if (System.currentTimeMillis() - rotatedAt < windowMs) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now - rotatedAt >= windowMs) {
+                previous = current;
+                current = newBits();
+                rotatedAt = now;
+            }
+        }
+    }
+
+    private AtomicLongArray newBits() {
+        return new AtomicLongArray((bitCount + 63) >>> 6);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,127 @@
+package com.pms.pms_trade_capture.utils;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pms.pms_trade_capture.config.DbWorkload;
+import com.pms.pms_trade_capture.repository.SymbolDictionaryRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory copy of symbol_dictionary, both directions.
+ *
+ * Symbols are few and change rarely, so the whole dictionary is loaded at
+ * startup and ingest resolves IDs from memory. Symbols new to this instance
+ * are registered for a whole flush at once, in a separate transaction on the
+ * default pool: the ingest transaction never holds a second ingest connection,
+ * and an ID is only cached once it is committed.
+ */
+@Component
+public class SymbolDictionary implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(SymbolDictionary.class);
+
+    private final SymbolDictionaryRepository repository;
+    private final TransactionTemplate registerTransaction;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> symbols = new ConcurrentHashMap<>();
+    private final Counter registered;
+    private volatile boolean running = false;
+
+    public SymbolDictionary(SymbolDictionaryRepository repository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry registry) {
+        this.repository = repository;
+        this.registerTransaction = new TransactionTemplate(transactionManager);
+        this.registerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.registered = Counter.builder("trade.db.symbols.registered")
+                .description("Symbols resolved through the database because they were not cached")
+                .register(registry);
+        Gauge.builder("trade.db.symbols.size", ids, Map::size)
+                .description("Cached symbol dictionary entries")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        // Before ingest starts
+        repository.findAll().forEach(this::cache);
+        log.info("Symbol dictionary loaded: {} symbols", ids.size());
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 3000;
+    }
+
+    /** @return the symbol's ID, or null if it is not registered */
+    public Integer idOf(String symbol) {
+        return ids.get(symbol);
+    }
+
+    /** @return the symbol of an ID, or null if the ID is unknown */
+    public String symbolOf(int id) {
+        String symbol = symbols.get(id);
+        if (symbol == null) {
+            // Registered by another instance since startup
+            repository.findAll().forEach(this::cache);
+            symbol = symbols.get(id);
+        }
+        return symbol;
+    }
+
+    /**
+     * Makes sure every given symbol has an ID, with one database round trip for
+     * all symbols that are not cached yet and none when all are.
+     */
+    public void registerAll(Collection<String> candidates) {
+        Set<String> missing = null;
+        for (String symbol : candidates) {
+            if (!ids.containsKey(symbol)) {
+                if (missing == null) {
+                    missing = new LinkedHashSet<>();
+                }
+                missing.add(symbol);
+            }
+        }
+        if (missing == null) {
+            return;
+        }
+        Set<String> toRegister = missing;
+        Map<String, Integer> resolved = DbWorkload.DEFAULT.call(
+                () -> registerTransaction.execute(status -> repository.register(toRegister)));
+        if (resolved != null) {
+            resolved.forEach(this::cache);
+            registered.increment(resolved.size());
+        }
+    }
+
+    private void cache(String symbol, Integer id) {
+        ids.put(symbol, id);
+        symbols.put(id, symbol);
+    }
+}
@@ -0,0 +1,88 @@
+package com.pms.pms_trade_capture.utils;
+
+import java.util.UUID;
+
+/**
+ * Allocation-light UUID parsing/encoding for the ingest and dispatch hot paths.
+ *
+ * {@link UUID#fromString} splits the input and parses each group separately;
+ * here the canonical 36-char form is decoded straight into the two longs.
+ * Non-canonical input falls back to {@code UUID.fromString}, so accepted inputs
+ * and the IllegalArgumentException on bad input stay identical.
+ */
+public final class UuidCodec {
+
+    private static final byte[] HEX_VALUES = new byte[128];
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+
+    static {
+        java.util.Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private UuidCodec() {
+    }
+
+    public static UUID parse(String value) {
+        if (value == null) {
+            throw new NullPointerException("uuid");
+        }
+        if (value.length() != 36
+                || value.charAt(8) != '-' || value.charAt(13) != '-'
+                || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return UUID.fromString(value);
+        }
+        long msb = hex(value, 0, 8);
+        msb = (msb << 16) | hex(value, 9, 13);
+        msb = (msb << 16) | hex(value, 14, 18);
+        long lsb = hex(value, 19, 23);
+        lsb = (lsb << 48) | hex(value, 24, 36);
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Canonical lowercase form as ASCII bytes (same bytes as
+     * {@code uuid.toString().getBytes(UTF_8)}), without the intermediate String.
+     */
+    public static byte[] toAsciiBytes(UUID uuid) {
+        byte[] out = new byte[36];
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        writeHex(out, 0, msb >>> 32, 8);
+        out[8] = '-';
+        writeHex(out, 9, msb >>> 16, 4);
+        out[13] = '-';
+        writeHex(out, 14, msb, 4);
+        out[18] = '-';
+        writeHex(out, 19, lsb >>> 48, 4);
+        out[23] = '-';
+        writeHex(out, 24, lsb, 12);
+        return out;
+    }
+
+    private static long hex(String value, int from, int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            int digit = c < 128 ? HEX_VALUES[c] : -1;
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid UUID string: " + value);
+            }
+            result = (result << 4) | digit;
+        }
+        return result;
+    }
+
+    private static void writeHex(byte[] out, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            out[offset + i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
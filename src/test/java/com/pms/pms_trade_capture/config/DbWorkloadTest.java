@@ -0,0 +1,35 @@
+package com.pms.pms_trade_capture.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class DbWorkloadTest {
+
+    @Test
+    void unboundThread_usesDefault() throws Exception {
+        AtomicReference<DbWorkload> seen = new AtomicReference<>();
+        Thread t = new Thread(() -> seen.set(DbWorkload.current()));
+        t.start();
+        t.join();
+
+        assertEquals(DbWorkload.DEFAULT, seen.get());
+    }
+
+    @Test
+    void call_switchesWorkload_andRestoresThreadBinding() throws Exception {
+        AtomicReference<DbWorkload> inside = new AtomicReference<>();
+        AtomicReference<DbWorkload> after = new AtomicReference<>();
+        Thread t = new Thread(DbWorkload.INGEST.bind(() -> {
+            DbWorkload.DLQ.run(() -> inside.set(DbWorkload.current()));
+            after.set(DbWorkload.current());
+        }));
+        t.start();
+        t.join();
+
+        assertEquals(DbWorkload.DLQ, inside.get());
+        assertEquals(DbWorkload.INGEST, after.get());
+    }
+}
@@ -0,0 +1,75 @@
+package com.pms.pms_trade_capture.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.UnknownFieldSet;
+import com.pms.trade_capture.proto.TradeEventProto;
+
+class TradeEventScannerTest {
+
+    @Test
+    void scan_extractsSameFieldsAsFullParse() throws Exception {
+        TradeEventProto proto = TradeEventProto.newBuilder()
+                .setPortfolioId(UUID.randomUUID().toString())
+                .setTradeId(UUID.randomUUID().toString())
+                .setSymbol("AAPL")
+                .setSide("BUY")
+                .setPricePerStock(187.25)
+                .setQuantity(42)
+                .setTimestamp(Timestamp.newBuilder().setSeconds(1_700_000_000L).setNanos(123))
+                .build();
+
+        ScannedTrade trade = TradeEventScanner.scan(proto.toByteArray());
+
+        assertEquals(proto.getPortfolioId(), trade.getPortfolioId());
+        assertEquals(proto.getTradeId(), trade.getTradeId());
+        assertEquals("AAPL", trade.getSymbol());
+        assertEquals("BUY", trade.getSide());
+        assertEquals(187.25, trade.getPricePerStock());
+        assertEquals(42, trade.getQuantity());
+        assertTrue(trade.hasTimestamp());
+        assertEquals(1_700_000_000L, trade.getTimestampSeconds());
+        assertEquals(123, trade.getTimestampNanos());
+    }
+
+    @Test
+    void scan_skipsUnknownFields_andDefaultsMissingOnes() throws Exception {
+        TradeEventProto proto = TradeEventProto.newBuilder()
+                .setTradeId("t-1")
+                .setUnknownFields(UnknownFieldSet.newBuilder()
+                        .addField(99, UnknownFieldSet.Field.newBuilder().addVarint(7).build())
+                        .build())
+                .build();
+
+        ScannedTrade trade = TradeEventScanner.scan(proto.toByteArray());
+
+        assertEquals("t-1", trade.getTradeId());
+        assertEquals("", trade.getPortfolioId());
+        assertFalse(trade.hasTimestamp());
+    }
+
+    @Test
+    void malformedBytes_rejectedLikeFullParse() {
+        byte[] bad = new byte[] {0x01, 0x02};
+
+        assertThrows(InvalidProtocolBufferException.class, () -> TradeEventProto.parseFrom(bad));
+        assertThrows(InvalidProtocolBufferException.class, () -> TradeEventScanner.scan(bad));
+        assertFalse(TradeEventScanner.isWellFormed(bad));
+    }
+
+    @Test
+    void isWellFormed_acceptsValidPayload() {
+        byte[] payload = TradeEventProto.newBuilder().setPortfolioId("p").setTradeId("t").build().toByteArray();
+
+        assertTrue(TradeEventScanner.isWellFormed(payload));
+    }
+}
@@ -0,0 +1,165 @@
+package com.pms.pms_trade_capture.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pms.pms_trade_capture.domain.DispatchCursor;
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+import com.pms.pms_trade_capture.dto.BatchProcessingResult;
+import com.pms.pms_trade_capture.exception.PoisonPillException;
+import com.pms.pms_trade_capture.repository.DispatchCursorRepository;
+import com.pms.pms_trade_capture.service.DlqWriter;
+import com.pms.pms_trade_capture.utils.IngestHorizon;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CursorDispatcherTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 5, 9, 0);
+    private static final UUID PORTFOLIO_A = UUID.randomUUID();
+    private static final UUID PORTFOLIO_B = UUID.randomUUID();
+
+    private final DispatchCursorRepository cursorRepo = mock(DispatchCursorRepository.class);
+    private final DlqWriter dlqWriter = mock(DlqWriter.class);
+    private final OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
+    private final IngestHorizon horizon = mock(IngestHorizon.class);
+    private final TransactionTemplate tx = mock(TransactionTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private CursorDispatcher dispatcher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        dispatcher = new CursorDispatcher(cursorRepo, dlqWriter, processor, horizon, tx, registry);
+        ReflectionTestUtils.setField(dispatcher, "buckets", 2);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "receivedAtSlack", Duration.ofMinutes(10));
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(tx).executeWithoutResult(any());
+        when(horizon.current()).thenReturn(1_000L);
+    }
+
+    private static OutboxEvent trade(long id, UUID portfolioId, int minute) {
+        OutboxEvent event = new OutboxEvent(portfolioId, UUID.randomUUID(), new byte[] { (byte) id });
+        event.setId(id);
+        event.setCreatedAt(T0.plusMinutes(minute));
+        return event;
+    }
+
+    @Test
+    void advance_stopsAtFirstUnhandledTrade() {
+        DispatchCursor cursor = new DispatchCursor(0, 10, T0);
+        List<OutboxEvent> batch = List.of(trade(11, PORTFOLIO_A, 2), trade(12, PORTFOLIO_B, 1),
+                trade(13, PORTFOLIO_A, 3));
+
+        DispatchCursor next = CursorDispatcher.advance(cursor, batch, Set.of(11L, 13L));
+
+        assertEquals(11, next.lastId());
+        assertEquals(T0.plusMinutes(2), next.lastReceivedAt());
+    }
+
+    @Test
+    void dispatchOnce_readsBelowHorizonAndAdvancesOverSentTrades() {
+        DispatchCursor cursor = new DispatchCursor(1, 10, T0);
+        List<OutboxEvent> batch = List.of(trade(11, PORTFOLIO_A, 1), trade(12, PORTFOLIO_B, 2),
+                trade(13, PORTFOLIO_A, 3));
+        when(cursorRepo.findPending(1, 2, 10, 1_000L, T0.minusMinutes(10), 100)).thenReturn(batch);
+        when(processor.processBatch(any())).thenAnswer(invocation -> {
+            List<OutboxEvent> events = invocation.getArgument(0);
+            return BatchProcessingResult.success(events.stream().map(OutboxEvent::getId).toList());
+        });
+
+        CursorDispatcher.Step step = dispatcher.dispatchOnce(cursor);
+
+        // One call per portfolio, in ID order within the portfolio
+        verify(processor).processBatch(List.of(batch.get(0), batch.get(2)));
+        verify(processor).processBatch(List.of(batch.get(1)));
+        verify(cursorRepo).advance(new DispatchCursor(1, 13, T0.plusMinutes(3)));
+        assertEquals(13, step.cursor().lastId());
+        assertFalse(step.idle());
+        assertFalse(step.systemFailure());
+        assertEquals(3.0, registry.counter("trade.outbox.cursor.dispatched").count());
+    }
+
+    @Test
+    void dispatchOnce_systemFailureHoldsCursorAtFailedTrade() {
+        DispatchCursor cursor = new DispatchCursor(0, 10, T0);
+        List<OutboxEvent> batch = List.of(trade(11, PORTFOLIO_A, 1), trade(12, PORTFOLIO_A, 2),
+                trade(13, PORTFOLIO_B, 3));
+        when(cursorRepo.findPending(eq(0), eq(2), eq(10L), anyLong(), any(), anyInt())).thenReturn(batch);
+        when(processor.processBatch(any())).thenReturn(BatchProcessingResult.systemFailure(List.of(11L)));
+
+        CursorDispatcher.Step step = dispatcher.dispatchOnce(cursor);
+
+        assertTrue(step.systemFailure());
+        assertEquals(11, step.cursor().lastId());
+        verify(cursorRepo).advance(new DispatchCursor(0, 11, T0.plusMinutes(1)));
+        // Stops at the failure like the table dispatcher; portfolio B is retried next poll
+        verify(processor, times(1)).processBatch(any());
+    }
+
+    @Test
+    void dispatchOnce_deadLettersPoisonPillOnlyOnceTheCursorPassesIt() {
+        DispatchCursor cursor = new DispatchCursor(0, 10, T0);
+        List<OutboxEvent> batch = List.of(trade(11, PORTFOLIO_A, 1), trade(12, PORTFOLIO_B, 2));
+        when(cursorRepo.findPending(eq(0), eq(2), eq(10L), anyLong(), any(), anyInt())).thenReturn(batch);
+        when(processor.processBatch(any())).thenReturn(
+                BatchProcessingResult.withPoisonPill(List.of(), new PoisonPillException(11L, "bad proto", null)),
+                BatchProcessingResult.success(List.of(12L)));
+
+        CursorDispatcher.Step step = dispatcher.dispatchOnce(cursor);
+
+        assertEquals(12, step.cursor().lastId());
+        verify(dlqWriter, times(1)).writeOutboxRow(any(), any());
+        assertEquals(1.0, registry.counter("trade.outbox.cursor.dispatched").count());
+    }
+
+    @Test
+    void dispatchOnce_idleWhenNothingPending() {
+        DispatchCursor cursor = new DispatchCursor(0, 10, T0);
+        when(cursorRepo.findPending(anyInt(), anyInt(), anyLong(), anyLong(), any(), anyInt())).thenReturn(List.of());
+
+        CursorDispatcher.Step step = dispatcher.dispatchOnce(cursor);
+
+        assertTrue(step.idle());
+        assertEquals(cursor, step.cursor());
+        verify(cursorRepo, never()).advance(any());
+    }
+
+    @Test
+    void start_doesNothingInTableMode() {
+        ReflectionTestUtils.setField(dispatcher, "outboxMode", "table");
+
+        dispatcher.start();
+
+        assertFalse(dispatcher.isRunning());
+        verify(cursorRepo, never()).findOrInitialize(anyInt());
+    }
+}
@@ -24,15 +24,15 @@ import org.springframework.transaction.support.TransactionTemplate;
 import com.pms.pms_trade_capture.domain.OutboxEvent;
 import com.pms.pms_trade_capture.dto.BatchProcessingResult;
 import com.pms.pms_trade_capture.exception.PoisonPillException;
-import com.pms.pms_trade_capture.repository.DlqRepository;
 import com.pms.pms_trade_capture.repository.OutboxRepository;
+import com.pms.pms_trade_capture.service.DlqWriter;
 
 class OutboxDispatcherFailureTest {
 
     @Test
     void poisonPill_movesToDlq_andRemovesFromOutbox_onlyPrefixMarked() throws InterruptedException {
         OutboxRepository outboxRepo = mock(OutboxRepository.class);
-        DlqRepository dlqRepo = mock(DlqRepository.class);
+        DlqWriter dlqWriter = mock(DlqWriter.class);
         OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
         AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
         TransactionTemplate tx = mock(TransactionTemplate.class);
@@ -59,7 +59,7 @@ class OutboxDispatcherFailureTest {
             return BatchProcessingResult.withPoisonPill(List.of(1L,2L), ppe);
         });
 
-        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqRepo, processor, sizer, executor, tx);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqWriter, processor, sizer, executor, tx);
         // Ensure a non-zero backoff is set (we instantiate directly, so @Value is not applied)
         try {
             java.lang.reflect.Field f = OutboxDispatcher.class.getDeclaredField("systemFailureBackoffMs");
@@ -78,14 +78,14 @@ class OutboxDispatcherFailureTest {
         verify(outboxRepo, atLeastOnce()).markBatchAsSent(List.of(1L,2L));
 
         // Poison pill should be moved to DLQ and removed from outbox
-        verify(dlqRepo, atLeastOnce()).save(any());
+        verify(dlqWriter, atLeastOnce()).writeOutboxRow(argThat(ev -> ev.getId().equals(3L)), any());
         verify(outboxRepo, atLeastOnce()).delete(argThat(ev -> ev.getId().equals(3L)));
     }
 
     @Test
     void systemFailure_preventsFurtherPortfolios_andNoSentMarks() throws InterruptedException {
         OutboxRepository outboxRepo = mock(OutboxRepository.class);
-        DlqRepository dlqRepo = mock(DlqRepository.class);
+        DlqWriter dlqWriter = mock(DlqWriter.class);
         OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
         AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
         TransactionTemplate tx = mock(TransactionTemplate.class);
@@ -118,7 +118,7 @@ class OutboxDispatcherFailureTest {
             return null;
         });
 
-    OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqRepo, processor, sizer, executor, tx);
+    OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqWriter, processor, sizer, executor, tx);
     dispatcher.start();
 
     assertTrue(processed.await(2000, java.util.concurrent.TimeUnit.MILLISECONDS));
@@ -136,7 +136,7 @@ class OutboxDispatcherFailureTest {
     @Test
     void systemFailure_preventsBatchSizerAdjust_andTriggersBackoff() throws InterruptedException {
         OutboxRepository outboxRepo = mock(OutboxRepository.class);
-        DlqRepository dlqRepo = mock(DlqRepository.class);
+        DlqWriter dlqWriter = mock(DlqWriter.class);
         OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
         AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
         TransactionTemplate tx = mock(TransactionTemplate.class);
@@ -159,7 +159,7 @@ class OutboxDispatcherFailureTest {
             return BatchProcessingResult.systemFailure(List.of());
         });
 
-        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqRepo, processor, sizer, executor, tx);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqWriter, processor, sizer, executor, tx);
         // Ensure a non-zero backoff is set (we instantiate directly, so @Value is not applied)
         try {
             java.lang.reflect.Field f = OutboxDispatcher.class.getDeclaredField("systemFailureBackoffMs");
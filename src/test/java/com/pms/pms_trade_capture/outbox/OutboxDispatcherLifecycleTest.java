@@ -8,26 +8,28 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.support.TransactionTemplate;
 
-import com.pms.pms_trade_capture.repository.DlqRepository;
 import com.pms.pms_trade_capture.repository.OutboxRepository;
+import com.pms.pms_trade_capture.service.DlqWriter;
 
 class OutboxDispatcherLifecycleTest {
 
     @Test
     void start_isIdempotent_andStopStopsLoop() {
         OutboxRepository outboxRepo = mock(OutboxRepository.class);
-        DlqRepository dlqRepo = mock(DlqRepository.class);
+        DlqWriter dlqWriter = mock(DlqWriter.class);
         OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
         AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
         TransactionTemplate tx = mock(TransactionTemplate.class);
 
         Executor executor = mock(Executor.class);
 
-        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqRepo, processor, sizer, executor, tx);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqWriter, processor, sizer, executor, tx);
 
         dispatcher.start();
         dispatcher.start(); // second start should be ignored
@@ -44,14 +46,14 @@ class OutboxDispatcherLifecycleTest {
     @Test
     void stop_isIdempotent_andPhaseIsHigh() {
         OutboxRepository outboxRepo = mock(OutboxRepository.class);
-        DlqRepository dlqRepo = mock(DlqRepository.class);
+        DlqWriter dlqWriter = mock(DlqWriter.class);
         OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
         AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
         TransactionTemplate tx = mock(TransactionTemplate.class);
 
         Executor executor = mock(Executor.class);
 
-        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqRepo, processor, sizer, executor, tx);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqWriter, processor, sizer, executor, tx);
 
         dispatcher.start();
         dispatcher.stop();
@@ -61,17 +63,31 @@ class OutboxDispatcherLifecycleTest {
         assertEquals(Integer.MAX_VALUE - 1000, dispatcher.getPhase());
     }
 
+    @Test
+    void cursorMode_doesNotStartTableDispatcher() {
+        Executor executor = mock(Executor.class);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(mock(OutboxRepository.class), mock(DlqWriter.class),
+                mock(OutboxEventProcessor.class), mock(AdaptiveBatchSizer.class), executor,
+                mock(TransactionTemplate.class));
+        ReflectionTestUtils.setField(dispatcher, "outboxMode", "cursor");
+
+        dispatcher.start();
+
+        verify(executor, never()).execute(any());
+        assertFalse(dispatcher.isRunning());
+    }
+
     @Test
     void isAutoStartup_returnsDefaultBoolean() {
         OutboxRepository outboxRepo = mock(OutboxRepository.class);
-        DlqRepository dlqRepo = mock(DlqRepository.class);
+        DlqWriter dlqWriter = mock(DlqWriter.class);
         OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
         AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
         TransactionTemplate tx = mock(TransactionTemplate.class);
 
         Executor executor = mock(Executor.class);
 
-        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqRepo, processor, sizer, executor, tx);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqWriter, processor, sizer, executor, tx);
         // just assert method returns without throwing and gives a boolean
         boolean val = dispatcher.isAutoStartup();
         assertTrue(val == true || val == false);
@@ -3,8 +3,8 @@ package com.pms.pms_trade_capture.outbox;
 import com.pms.pms_trade_capture.domain.OutboxEvent;
 import com.pms.pms_trade_capture.dto.BatchProcessingResult;
 import com.pms.pms_trade_capture.exception.PoisonPillException;
-import com.pms.pms_trade_capture.repository.DlqRepository;
 import com.pms.pms_trade_capture.repository.OutboxRepository;
+import com.pms.pms_trade_capture.service.DlqWriter;
 import org.junit.jupiter.api.Test;
 
 import org.mockito.ArgumentCaptor;
@@ -25,7 +25,7 @@ class OutboxDispatcherOrderingTest {
     @Test
     void dispatcher_processesSamePortfolioInOrder_andMarksSent() throws InterruptedException {
         OutboxRepository outboxRepo = mock(OutboxRepository.class);
-        DlqRepository dlqRepo = mock(DlqRepository.class);
+        DlqWriter dlqWriter = mock(DlqWriter.class);
         OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
         AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
         TransactionTemplate tx = mock(TransactionTemplate.class);
@@ -58,7 +58,7 @@ class OutboxDispatcherOrderingTest {
             return BatchProcessingResult.success(List.of(100L, 101L));
         });
 
-        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqRepo, processor, sizer, executor, tx);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqWriter, processor, sizer, executor, tx);
 
         dispatcher.start();
 
@@ -83,7 +83,7 @@ class OutboxDispatcherOrderingTest {
     @Test
     void dispatcher_processesMultiplePortfoliosIndependently() throws InterruptedException {
         OutboxRepository outboxRepo = mock(OutboxRepository.class);
-        DlqRepository dlqRepo = mock(DlqRepository.class);
+        DlqWriter dlqWriter = mock(DlqWriter.class);
         OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
         AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
         TransactionTemplate tx = mock(TransactionTemplate.class);
@@ -109,7 +109,7 @@ class OutboxDispatcherOrderingTest {
             return BatchProcessingResult.success(batch.stream().map(OutboxEvent::getId).toList());
         });
 
-        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqRepo, processor, sizer, executor, tx);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqWriter, processor, sizer, executor, tx);
         dispatcher.start();
 
         assertTrue(processed.await(2000, java.util.concurrent.TimeUnit.MILLISECONDS));
@@ -123,7 +123,7 @@ class OutboxDispatcherOrderingTest {
     @Test
     void idle_resetBatchSizer_onNoWork() throws InterruptedException {
         OutboxRepository outboxRepo = mock(OutboxRepository.class);
-        DlqRepository dlqRepo = mock(DlqRepository.class);
+        DlqWriter dlqWriter = mock(DlqWriter.class);
         OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
         AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
         TransactionTemplate tx = mock(TransactionTemplate.class);
@@ -137,7 +137,7 @@ class OutboxDispatcherOrderingTest {
             return cb.doInTransaction(null);
         });
 
-        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqRepo, processor, sizer, executor, tx);
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, dlqWriter, processor, sizer, executor, tx);
         dispatcher.start();
 
         // Give dispatcher a short time to run idle path
@@ -2,25 +2,40 @@ package com.pms.pms_trade_capture.outbox;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 
 import com.pms.pms_trade_capture.domain.OutboxEvent;
 import com.pms.pms_trade_capture.dto.BatchProcessingResult;
+import com.pms.pms_trade_capture.repository.PayloadDictionaryRepository;
+import com.pms.pms_trade_capture.utils.PayloadArrayCodec;
+import com.pms.pms_trade_capture.utils.PayloadCodec;
+import com.pms.pms_trade_capture.utils.PortfolioIdCache;
 import com.pms.rttm.client.clients.RttmClient;
 import com.pms.trade_capture.proto.TradeEventProto;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 class OutboxEventProcessorTest {
 
     @Mock
-    private KafkaTemplate<String, TradeEventProto> kafkaTemplate;
+    private KafkaTemplate<byte[], TradeEventProto> kafkaTemplate;
+
+    @Mock
+    private KafkaTemplate<byte[], byte[]> rawKafkaTemplate;
 
     @Mock
     private RttmClient rttmClient;
@@ -32,7 +47,9 @@ class OutboxEventProcessorTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        processor = new OutboxEventProcessor(kafkaTemplate, rttmClient);
+        processor = new OutboxEventProcessor(kafkaTemplate, rawKafkaTemplate, rttmClient,
+                new PortfolioIdCache(1000, new SimpleMeterRegistry()),
+                new PayloadCodec(mock(PayloadDictionaryRepository.class), false, 3, new SimpleMeterRegistry()));
     }
 
     @Test
@@ -88,4 +105,35 @@ class OutboxEventProcessorTest {
         assertTrue(result.hasSystemFailure());
         assertTrue(result.getSuccessfulIds().isEmpty());
     }
+
+    @Test
+    void processBatch_batchedRow_fansOutInOrderAndSkipsPoisonTrade() {
+        // Arrange: one portfolio-batched row, the middle trade is corrupt
+        TradeEventProto first = TradeEventProto.newBuilder().setPortfolioId("p").setTradeId("t1").build();
+        TradeEventProto last = TradeEventProto.newBuilder().setPortfolioId("p").setTradeId("t3").build();
+        byte[] corrupt = new byte[] { 0x01, 0x02 };
+        OutboxEvent row = new OutboxEvent(java.util.UUID.randomUUID(), java.util.UUID.randomUUID(),
+                PayloadArrayCodec.encode(List.of(first.toByteArray(), corrupt, last.toByteArray())));
+        row.setId(9L);
+        row.setTradeCount(3);
+
+        List<String> sent = new java.util.ArrayList<>();
+        when(kafkaTemplate.send(any(), any(), any())).thenAnswer(invocation -> {
+            TradeEventProto proto = invocation.getArgument(2);
+            sent.add(proto.getTradeId());
+            RecordMetadata metadata = new RecordMetadata(new TopicPartition("t", 0), 0L, 0, 0L, 0, 0);
+            return java.util.concurrent.CompletableFuture.completedFuture(
+                    new SendResult<>(new ProducerRecord<byte[], TradeEventProto>("t", proto), metadata));
+        });
+
+        // Act
+        BatchProcessingResult result = processor.processBatch(List.of(row));
+
+        // Assert: the row counts as sent, the corrupt trade is handed back for the DLQ
+        assertTrue(result.isFullSuccess());
+        assertEquals(List.of(9L), result.getSuccessfulIds());
+        assertEquals(List.of("t1", "t3"), sent);
+        assertEquals(1, result.getRejected().size());
+        assertArrayEquals(corrupt, result.getRejected().get(0).payload());
+    }
 }
@@ -0,0 +1,77 @@
+package com.pms.pms_trade_capture.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyShort;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.pms.pms_trade_capture.domain.OutboxState;
+import com.pms.pms_trade_capture.repository.OutboxMaintenanceRepository;
+import com.pms.pms_trade_capture.repository.OutboxMaintenanceRepository.TableStats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OutboxRetentionServiceTest {
+
+    private final OutboxMaintenanceRepository repo = mock(OutboxMaintenanceRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private OutboxRetentionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OutboxRetentionService(repo, registry);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "sentTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        ReflectionTestUtils.setField(service, "maxBatchesPerRun", 5);
+        ReflectionTestUtils.setField(service, "minPauseMs", 0L);
+        ReflectionTestUtils.setField(service, "pendingThreshold", 1000L);
+        when(repo.tableStats()).thenReturn(new TableStats(8192, 250, 40));
+    }
+
+    @Test
+    void purge_deletesInBatchesUntilShortBatch() {
+        when(repo.countByState(OutboxState.PENDING)).thenReturn(10L);
+        when(repo.countByState(OutboxState.SENT)).thenReturn(250L);
+        when(repo.purgeSent(any(), anyInt())).thenReturn(100, 100, 50);
+
+        service.run();
+
+        verify(repo, times(3)).purgeSent(any(), anyInt());
+        assertEquals(250.0, registry.get("trade.outbox.purged").counter().count());
+        assertEquals(0.0, registry.get("trade.outbox.rows").tag("status", "sent").gauge().value());
+        assertEquals(40.0, registry.get("trade.outbox.tuples").tag("state", "dead").gauge().value());
+        assertEquals(8192.0, registry.get("trade.outbox.table.bytes").gauge().value());
+    }
+
+    @Test
+    void purge_stopsAtMaxBatchesPerRun() {
+        when(repo.countByState(anyShort())).thenReturn(0L);
+        when(repo.purgeSent(any(), anyInt())).thenReturn(100);
+
+        service.run();
+
+        verify(repo, times(5)).purgeSent(any(), anyInt());
+    }
+
+    @Test
+    void purge_skippedWhileDispatchBacklogIsHigh() {
+        when(repo.countByState(OutboxState.PENDING)).thenReturn(5000L);
+
+        service.run();
+
+        verify(repo, never()).purgeSent(any(), anyInt());
+        assertEquals(5000.0, registry.get("trade.outbox.rows").tag("status", "pending").gauge().value());
+    }
+}
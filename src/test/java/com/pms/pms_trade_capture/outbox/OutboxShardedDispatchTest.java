@@ -0,0 +1,103 @@
+package com.pms.pms_trade_capture.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+import com.pms.pms_trade_capture.dto.BatchProcessingResult;
+import com.pms.pms_trade_capture.repository.OutboxRepository;
+import com.pms.pms_trade_capture.repository.OutboxShardRepository;
+import com.pms.pms_trade_capture.service.DlqWriter;
+
+class OutboxShardedDispatchTest {
+
+    private final OutboxRepository outboxRepo = mock(OutboxRepository.class);
+    private final OutboxShardRepository shardRepo = mock(OutboxShardRepository.class);
+    private final DlqWriter dlqWriter = mock(DlqWriter.class);
+    private final OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
+    private final AdaptiveBatchSizer sizer = mock(AdaptiveBatchSizer.class);
+    private final TransactionTemplate tx = mock(TransactionTemplate.class);
+
+    private OutboxDispatcher dispatcher(Executor executor, int workers) {
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepo, shardRepo, dlqWriter, processor, sizer,
+                executor, tx);
+        ReflectionTestUtils.setField(dispatcher, "shardedDispatch", true);
+        ReflectionTestUtils.setField(dispatcher, "workers", workers);
+        return dispatcher;
+    }
+
+    @Test
+    void start_startsOneWorkerPerShardGroup() {
+        when(shardRepo.listShards()).thenReturn(List.of("outbox_event_s0", "outbox_event_s1", "outbox_event_s2"));
+        List<Runnable> started = new ArrayList<>();
+
+        dispatcher(started::add, 2).start();
+
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    void worker_pollsAndMarksItsShardDirectly() throws InterruptedException {
+        AdaptiveBatchSizer shardSizer = mock(AdaptiveBatchSizer.class);
+        when(sizer.copy()).thenReturn(shardSizer);
+        when(shardSizer.getCurrentSize()).thenReturn(10);
+        when(shardRepo.listShards()).thenReturn(List.of("outbox_event_s0", "outbox_event_s1"));
+        when(tx.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> cb = invocation.getArgument(0);
+            return cb.doInTransaction(null);
+        });
+
+        OutboxEvent event = new OutboxEvent(UUID.randomUUID(), UUID.randomUUID(), new byte[] { 0x01 });
+        event.setId(7L);
+        when(shardRepo.findPendingBatch("outbox_event_s0", 10)).thenReturn(List.of());
+        when(shardRepo.findPendingBatch("outbox_event_s1", 10)).thenReturn(List.of(event), List.of());
+
+        CountDownLatch processed = new CountDownLatch(1);
+        when(processor.processBatch(any())).thenAnswer(invocation -> {
+            processed.countDown();
+            return BatchProcessingResult.success(List.of(7L));
+        });
+
+        OutboxDispatcher dispatcher = dispatcher(r -> new Thread(r).start(), 1);
+        dispatcher.start();
+        assertTrue(processed.await(2000, TimeUnit.MILLISECONDS));
+        Thread.sleep(100);
+        dispatcher.stop();
+
+        verify(shardRepo, atLeastOnce()).markBatchAsSent("outbox_event_s1", List.of(7L));
+        verify(outboxRepo, never()).findPendingBatch(anyInt());
+        verify(shardRepo, never()).markBatchAsSent(eq("outbox_event_s0"), any());
+    }
+
+    @Test
+    void start_fallsBackToWholeTableWithoutShards() {
+        when(shardRepo.listShards()).thenReturn(List.of());
+        List<Runnable> started = new ArrayList<>();
+
+        dispatcher(started::add, 4).start();
+
+        assertEquals(1, started.size());
+        verify(shardRepo, never()).findPendingBatch(anyString(), anyInt());
+    }
+}
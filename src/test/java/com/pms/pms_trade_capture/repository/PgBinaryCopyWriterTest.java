@@ -0,0 +1,65 @@
+package com.pms.pms_trade_capture.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+
+class PgBinaryCopyWriterTest {
+
+    @Test
+    void encodesHeaderRowAndTrailer() throws Exception {
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        CopyIn copyIn = mock(CopyIn.class);
+        doAnswer(inv -> {
+            sent.write(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.endCopy()).thenReturn(1L);
+
+        UUID uuid = new UUID(0x0102030405060708L, 0x090A0B0C0D0E0F10L);
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(copyIn);
+        writer.startRow(5);
+        writer.writeBigint(42L);
+        writer.writeUuid(uuid);
+        writer.writeText("AAPL");
+        writer.writeTimestamp(LocalDateTime.of(2000, 1, 1, 0, 0, 1, 500_000));
+        writer.writeNull();
+        assertEquals(1L, writer.finish());
+
+        ByteBuffer buf = ByteBuffer.wrap(sent.toByteArray());
+        byte[] signature = new byte[11];
+        buf.get(signature);
+        assertArrayEquals(new byte[] { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 }, signature);
+        assertEquals(0, buf.getInt());
+        assertEquals(0, buf.getInt());
+
+        assertEquals(5, buf.getShort());
+        assertEquals(8, buf.getInt());
+        assertEquals(42L, buf.getLong());
+        assertEquals(16, buf.getInt());
+        assertEquals(uuid.getMostSignificantBits(), buf.getLong());
+        assertEquals(uuid.getLeastSignificantBits(), buf.getLong());
+        assertEquals(4, buf.getInt());
+        byte[] text = new byte[4];
+        buf.get(text);
+        assertEquals("AAPL", new String(text));
+        assertEquals(8, buf.getInt());
+        assertEquals(1_000_500L, buf.getLong());
+        assertEquals(-1, buf.getInt());
+
+        assertEquals(-1, buf.getShort());
+        assertEquals(0, buf.remaining());
+    }
+}
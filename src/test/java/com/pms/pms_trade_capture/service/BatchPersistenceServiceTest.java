@@ -0,0 +1,255 @@
+package com.pms.pms_trade_capture.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.pms.pms_trade_capture.domain.DlqEntry;
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+import com.pms.pms_trade_capture.domain.SafeStoreTrade;
+import com.pms.pms_trade_capture.domain.SideCode;
+import com.pms.pms_trade_capture.repository.DlqRepository;
+import com.pms.pms_trade_capture.repository.IngestJdbcRepository;
+import com.pms.pms_trade_capture.repository.OutboxRepository;
+import com.pms.pms_trade_capture.repository.PayloadDictionaryRepository;
+import com.pms.pms_trade_capture.repository.StreamCheckpointRepository;
+import com.pms.pms_trade_capture.repository.TradeCopyRepository;
+import com.pms.pms_trade_capture.service.metrics.RttmEventEmitter;
+import com.pms.pms_trade_capture.utils.AppMetrics;
+import com.pms.pms_trade_capture.utils.IngestHorizon;
+import com.pms.pms_trade_capture.utils.PayloadArrayCodec;
+import com.pms.pms_trade_capture.utils.PayloadCodec;
+import com.pms.pms_trade_capture.utils.PortfolioIdCache;
+import com.pms.pms_trade_capture.utils.RecentTradeIdFilter;
+import com.pms.pms_trade_capture.utils.SymbolDictionary;
+import com.pms.trade_capture.proto.TradeEventProto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BatchPersistenceServiceTest {
+
+    private final UUID portfolioId = UUID.randomUUID();
+
+    private OutboxRepository outboxRepository;
+    private DlqRepository dlqRepository;
+    private IngestJdbcRepository jdbcRepository;
+    private TradeCopyRepository copyRepository;
+    private RecentTradeIdFilter filter;
+    private SymbolDictionary symbolDictionary;
+    private SimpleMeterRegistry registry;
+    private BatchPersistenceService service;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(OutboxRepository.class);
+        dlqRepository = mock(DlqRepository.class);
+        jdbcRepository = mock(IngestJdbcRepository.class);
+        copyRepository = mock(TradeCopyRepository.class);
+        symbolDictionary = mock(SymbolDictionary.class);
+        registry = new SimpleMeterRegistry();
+        filter = new RecentTradeIdFilter(60_000, 10_000, 0.001, registry);
+        PayloadCodec payloadCodec = new PayloadCodec(mock(PayloadDictionaryRepository.class), false, 3, registry);
+        service = new BatchPersistenceService(outboxRepository,
+                new DlqWriter(dlqRepository, payloadCodec),
+                new AppMetrics(registry), mock(RttmEventEmitter.class), new PortfolioIdCache(100, registry),
+                jdbcRepository, filter, copyRepository, mock(StreamCheckpointRepository.class),
+                mock(PlatformTransactionManager.class), mock(IngestHorizon.class), payloadCodec, symbolDictionary);
+        ReflectionTestUtils.setField(service, "idempotentWrites", true);
+    }
+
+    @Test
+    void idempotent_outboxOnlyForRowsActuallyInserted() {
+        UUID fresh = UUID.randomUUID();
+        UUID conflicting = UUID.randomUUID();
+        when(jdbcRepository.insertSafeStoreIgnoringDuplicates(anyList())).thenReturn(new boolean[] { true, false });
+
+        service.persistBatch(List.of(trade(fresh), trade(conflicting)));
+
+        List<OutboxEvent> outbox = captureOutbox();
+        assertEquals(List.of(fresh), outbox.stream().map(OutboxEvent::getTradeId).toList());
+        verify(jdbcRepository, never()).findExistingTradeIds(any());
+        verify(jdbcRepository, never()).insertSafeStoreRejectingReplays(anyList());
+        assertEquals(1.0, registry.get("trade.ingest.duplicate").counter().count());
+    }
+
+    @Test
+    void idempotent_recentDuplicates_droppedBeforeInsert() {
+        UUID replayed = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        filter.put(replayed);
+        when(jdbcRepository.findExistingTradeIds(List.of(replayed))).thenReturn(Set.of(replayed));
+        when(jdbcRepository.insertSafeStoreIgnoringDuplicates(anyList())).thenReturn(new boolean[] { true });
+
+        service.persistBatch(List.of(trade(replayed), trade(fresh)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SafeStoreTrade>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcRepository).insertSafeStoreIgnoringDuplicates(inserted.capture());
+        assertEquals(List.of(fresh), inserted.getValue().stream().map(SafeStoreTrade::getTradeId).toList());
+        assertEquals(List.of(fresh), captureOutbox().stream().map(OutboxEvent::getTradeId).toList());
+        // Both IDs are remembered for the next replay
+        assertEquals(true, filter.mightContain(fresh));
+    }
+
+    @Test
+    void idempotent_wholeBatchReplayed_runsNoInsert() {
+        UUID replayed = UUID.randomUUID();
+        filter.put(replayed);
+        when(jdbcRepository.findExistingTradeIds(List.of(replayed))).thenReturn(Set.of(replayed));
+
+        service.persistBatch(List.of(trade(replayed)));
+
+        verify(jdbcRepository, never()).insertSafeStoreIgnoringDuplicates(anyList());
+        verify(jdbcRepository, never()).insertOutbox(anyList());
+    }
+
+    @Test
+    void replayAcrossPartitionBoundary_rejectedLikeGlobalUniqueKey() {
+        // The trade sits in yesterday's partition: today's unique index cannot see it,
+        // the insert's lookback check holds it back and the short count fails the call
+        ReflectionTestUtils.setField(service, "idempotentWrites", false);
+        ReflectionTestUtils.setField(service, "writeEngine", "jpa");
+        UUID replayed = UUID.randomUUID();
+        doThrow(new DataIntegrityViolationException("1 of 2 trade IDs already persisted"))
+                .when(jdbcRepository).insertSafeStoreRejectingReplays(anyList());
+        PendingStreamMessage replay = trade(replayed);
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> service.persistBatch(List.of(trade(UUID.randomUUID()), replay)));
+        verify(jdbcRepository, never()).findExistingTradeIds(any());
+        verify(outboxRepository, never()).saveAll(anyList());
+
+        // Bisection ends in the safe path: DLQ, no second outbox row
+        assertFalse(service.persistSingleSafely(replay));
+        verify(dlqRepository).save(any(DlqEntry.class));
+        verify(outboxRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void autoEngine_largeBatchesUseCopy_smallBatchesUseJpa() {
+        ReflectionTestUtils.setField(service, "idempotentWrites", false);
+        ReflectionTestUtils.setField(service, "writeEngine", "auto");
+        ReflectionTestUtils.setField(service, "copyMinBatchSize", 2);
+
+        service.persistBatch(List.of(trade(UUID.randomUUID())));
+        verify(jdbcRepository).insertSafeStoreRejectingReplays(anyList());
+        verify(copyRepository, never()).copyAll(anyList(), anyList());
+
+        service.persistBatch(List.of(trade(UUID.randomUUID()), trade(UUID.randomUUID())));
+        verify(copyRepository).copyAll(anyList(), anyList());
+        assertEquals(1.0, registry.get("trade.ingest.copy.batches").counter().count());
+        assertEquals(3.0, registry.get("trade.ingest.success").counter().count());
+    }
+
+    @Test
+    void jdbcEngine_writesBothTablesInOneCall_withoutRepositories() {
+        ReflectionTestUtils.setField(service, "idempotentWrites", false);
+        ReflectionTestUtils.setField(service, "writeEngine", "jdbc");
+
+        service.persistBatch(List.of(trade(UUID.randomUUID()), trade(UUID.randomUUID())));
+
+        verify(jdbcRepository).insertAll(anyList(), anyList());
+        verify(jdbcRepository, never()).insertSafeStoreRejectingReplays(anyList());
+        verify(outboxRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void portfolioBatchFormat_writesOneOutboxRowPerPortfolio() throws Exception {
+        ReflectionTestUtils.setField(service, "outboxRowFormat", "portfolio-batch");
+        ReflectionTestUtils.setField(service, "maxTradesPerRow", 100);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(jdbcRepository.insertSafeStoreIgnoringDuplicates(anyList())).thenReturn(new boolean[] { true, true });
+
+        service.persistBatch(List.of(trade(first), trade(second)));
+
+        List<OutboxEvent> outbox = captureOutbox();
+        assertEquals(1, outbox.size());
+        OutboxEvent row = outbox.get(0);
+        assertEquals(2, row.getTradeCount());
+        assertEquals(first, row.getTradeId());
+        List<byte[]> payloads = PayloadArrayCodec.decode(row.getPayload(), 2);
+        assertEquals(second.toString(), TradeEventProto.parseFrom(payloads.get(1)).getTradeId());
+    }
+
+    @Test
+    void portfolioBatchFormat_splitsAtMaxTradesPerRow() {
+        ReflectionTestUtils.setField(service, "outboxRowFormat", "portfolio-batch");
+        ReflectionTestUtils.setField(service, "maxTradesPerRow", 2);
+        List<OutboxEvent> events = List.of(event(portfolioId), event(UUID.randomUUID()), event(portfolioId),
+                event(portfolioId));
+
+        List<OutboxEvent> rows = service.toOutboxRows(events);
+
+        assertEquals(List.of(2, 1, 1), rows.stream().map(OutboxEvent::getTradeCount).toList());
+        assertEquals(portfolioId, rows.get(0).getPortfolioId());
+        // A single-trade chunk stays a plain row
+        assertSame(events.get(3), rows.get(1));
+        assertSame(events.get(1), rows.get(2));
+    }
+
+    @Test
+    void symbolDictionary_storesIdsAndSideCodesInsteadOfText() {
+        ReflectionTestUtils.setField(service, "symbolDictionaryEnabled", true);
+        when(symbolDictionary.idOf("AAPL")).thenReturn(7);
+        when(jdbcRepository.insertSafeStoreIgnoringDuplicates(anyList())).thenReturn(new boolean[] { true, true });
+
+        service.persistBatch(List.of(trade(UUID.randomUUID()), trade(UUID.randomUUID())));
+
+        // One registration for the flush, not one per trade
+        verify(symbolDictionary).registerAll(Set.of("AAPL"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SafeStoreTrade>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcRepository).insertSafeStoreIgnoringDuplicates(inserted.capture());
+        for (SafeStoreTrade t : inserted.getValue()) {
+            assertEquals(7, t.getSymbolId());
+            assertEquals(SideCode.BUY, t.getSideCode().byteValue());
+            assertNull(t.getSymbol());
+            assertNull(t.getSide());
+        }
+    }
+
+    private OutboxEvent event(UUID portfolio) {
+        return new OutboxEvent(portfolio, UUID.randomUUID(), new byte[] { 1 });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OutboxEvent> captureOutbox() {
+        ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcRepository).insertOutbox(captor.capture());
+        return captor.getValue();
+    }
+
+    private PendingStreamMessage trade(UUID tradeId) {
+        TradeEventProto proto = TradeEventProto.newBuilder()
+                .setPortfolioId(portfolioId.toString())
+                .setTradeId(tradeId.toString())
+                .setSymbol("AAPL")
+                .setSide("BUY")
+                .setPricePerStock(10.0)
+                .setQuantity(5)
+                .build();
+        return new PendingStreamMessage(proto, proto.toByteArray(), 0, null);
+    }
+}
@@ -0,0 +1,79 @@
+package com.pms.pms_trade_capture.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.pms.pms_trade_capture.domain.DlqEntry;
+import com.pms.pms_trade_capture.domain.OutboxEvent;
+import com.pms.pms_trade_capture.repository.DlqRepository;
+import com.pms.pms_trade_capture.repository.PayloadDictionaryRepository;
+import com.pms.pms_trade_capture.utils.PayloadArrayCodec;
+import com.pms.pms_trade_capture.utils.PayloadCodec;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DlqWriterTest {
+
+    private final List<DlqEntry> saved = new ArrayList<>();
+    private final DlqRepository dlqRepository = mock(DlqRepository.class);
+    private final PayloadCodec codec = new PayloadCodec(mock(PayloadDictionaryRepository.class), true, 3,
+            new SimpleMeterRegistry());
+    private final DlqWriter writer = new DlqWriter(dlqRepository, codec);
+
+    DlqWriterTest() {
+        when(dlqRepository.save(any(DlqEntry.class))).thenAnswer(inv -> {
+            saved.add(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+    }
+
+    @Test
+    void batchedRow_becomesOneEntryPerTrade_inSingleRowFormat() {
+        byte[] t1 = "trade-one-payload-trade-one-payload".getBytes();
+        byte[] t2 = "trade-two-payload-trade-two-payload".getBytes();
+        OutboxEvent row = new OutboxEvent(UUID.randomUUID(), UUID.randomUUID(),
+                codec.encode(PayloadArrayCodec.encode(List.of(t1, t2))));
+        row.setId(7L);
+        row.setTradeCount(2);
+
+        assertEquals(2, writer.writeOutboxRow(row, "Poison Pill: x"));
+
+        assertEquals(2, saved.size());
+        assertArrayEquals(t1, codec.decode(saved.get(0).getRawMessage()));
+        assertArrayEquals(t2, codec.decode(saved.get(1).getRawMessage()));
+        assertEquals("Poison Pill: x", saved.get(0).getErrorDetail());
+    }
+
+    @Test
+    void singleRow_isStoredLikeAnIngestDlqEntry() {
+        byte[] payload = "single-trade-payload-single-trade-payload".getBytes();
+        OutboxEvent row = new OutboxEvent(UUID.randomUUID(), UUID.randomUUID(), codec.encode(payload));
+        row.setId(8L);
+
+        writer.writeOutboxRow(row, "Poison Pill: y");
+        writer.write(payload, "Data Error: y");
+
+        assertArrayEquals(saved.get(1).getRawMessage(), saved.get(0).getRawMessage());
+    }
+
+    @Test
+    void corruptPayloadArray_keptAsOneEntry() {
+        byte[] garbage = { 0x7F, 0x01 };
+        OutboxEvent row = new OutboxEvent(UUID.randomUUID(), UUID.randomUUID(), garbage);
+        row.setId(9L);
+        row.setTradeCount(3);
+
+        assertEquals(1, writer.writeOutboxRow(row, "Poison Pill: z"));
+
+        assertArrayEquals(garbage, codec.decode(saved.get(0).getRawMessage()));
+    }
+}
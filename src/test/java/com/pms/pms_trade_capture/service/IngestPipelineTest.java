@@ -0,0 +1,269 @@
+package com.pms.pms_trade_capture.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+import com.pms.pms_trade_capture.domain.StreamCheckpoint;
+import com.pms.pms_trade_capture.service.metrics.RttmEventEmitter;
+import com.pms.pms_trade_capture.stream.StreamConsumerManager;
+import com.pms.pms_trade_capture.utils.AppMetrics;
+import com.pms.trade_capture.proto.TradeEventProto;
+import com.rabbitmq.stream.MessageHandler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestPipelineTest {
+
+    private BatchPersistenceService persistenceService;
+    private StreamOffsetManager offsetManager;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ExecutorService executor;
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        persistenceService = mock(BatchPersistenceService.class);
+        offsetManager = mock(StreamOffsetManager.class);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void flusher_wakesOnArrival_notOnLinger() {
+        doAnswer(inv -> {
+            batchSizes.add(inv.<List<?>>getArgument(0).size());
+            return null;
+        }).when(persistenceService).persistBatch(anyList(), any());
+        IngestPipeline pipeline = pipeline(500);
+        // Linger far longer than the verification timeout
+        pipeline.start(executor, 2000);
+
+        pipeline.addMessage(msg(1));
+
+        verify(persistenceService, timeout(500)).persistBatch(anyList(), any());
+        pipeline.stop();
+    }
+
+    @Test
+    void singleWriter_checkpointsLastOffsetOfEachBatch() {
+        List<StreamCheckpoint> checkpoints = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> checkpoints.add(inv.getArgument(1)))
+                .when(persistenceService).persistBatch(anyList(), any());
+        IngestPipeline pipeline = pipeline(500);
+        pipeline.start(executor, 50);
+
+        for (int i = 10; i < 13; i++) {
+            pipeline.addMessage(msg(i));
+        }
+        pipeline.stop();
+
+        StreamCheckpoint last = checkpoints.get(checkpoints.size() - 1);
+        assertEquals(new StreamCheckpoint("trade-stream", 12), last);
+    }
+
+    @Test
+    void messagesArrivingDuringFlush_formNextBatch_cappedAtMaxSize() throws Exception {
+        CountDownLatch firstFlushStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstFlush = new CountDownLatch(1);
+        doAnswer(inv -> {
+            batchSizes.add(inv.<List<?>>getArgument(0).size());
+            firstFlushStarted.countDown();
+            releaseFirstFlush.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(persistenceService).persistBatch(anyList(), any());
+        IngestPipeline pipeline = pipeline(4);
+        pipeline.start(executor, 100);
+
+        pipeline.addMessage(msg(0));
+        firstFlushStarted.await(5, TimeUnit.SECONDS);
+        for (int i = 1; i <= 6; i++) {
+            pipeline.addMessage(msg(i));
+        }
+        releaseFirstFlush.countDown();
+        pipeline.stop();
+
+        assertEquals(List.of(1, 4, 2), batchSizes);
+    }
+
+    @Test
+    void parallelWriters_keepPortfolioOrder_andCommitHighestOffsetLast() throws Exception {
+        List<Long> persisted = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> {
+            for (PendingStreamMessage m : inv.<List<PendingStreamMessage>>getArgument(0)) {
+                persisted.add(m.getOffset());
+            }
+            return null;
+        }).when(persistenceService).persistBatch(anyList(), any());
+        List<Long> committed = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> committed.add(inv.<Long>getArgument(1)))
+                .when(offsetManager).commit(eq("trade-stream"), anyLong());
+        IngestPipeline pipeline = pipeline(8, 3);
+        pipeline.start(executor, 50);
+
+        for (int i = 0; i < 200; i++) {
+            pipeline.addMessage(trade(i, "portfolio-" + (i % 7)));
+        }
+        pipeline.stop();
+
+        assertEquals(200, persisted.size());
+        for (int p = 0; p < 7; p++) {
+            int portfolio = p;
+            List<Long> own = persisted.stream().filter(o -> o % 7 == portfolio).toList();
+            assertEquals(own.stream().sorted().toList(), own);
+        }
+        // Watermark commits are monotonic and end at the last offset
+        assertEquals(committed.stream().sorted().toList(), committed);
+        assertEquals(199L, committed.get(committed.size() - 1));
+    }
+
+    @Test
+    void failedBatch_isBisected_healthyHalvesStayBatched() throws Exception {
+        // Offset 5 is poison: any batch containing it fails
+        doAnswer(inv -> {
+            List<PendingStreamMessage> batch = inv.getArgument(0);
+            if (batch.stream().anyMatch(m -> m.getOffset() == 5)) {
+                throw new IllegalStateException("bad row");
+            }
+            batchSizes.add(batch.size());
+            return null;
+        }).when(persistenceService).persistBatch(anyList(), any());
+        List<Long> singles = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> singles.add(inv.<PendingStreamMessage>getArgument(0).getOffset()))
+                .when(persistenceService).persistSingleSafely(any());
+        IngestPipeline pipeline = pipeline(16);
+
+        List<PendingStreamMessage> batch = new java.util.ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            batch.add(msg(i));
+        }
+        for (PendingStreamMessage m : batch) {
+            pipeline.addMessage(m);
+        }
+        pipeline.start(executor, 50);
+        pipeline.stop();
+
+        // [0..7] fails -> [0..3] ok, [4..7] fails -> [4,5] fails -> [4] single, [5] single; [6,7] ok; [8..15] ok
+        assertEquals(List.of(4L, 5L), singles);
+        assertEquals(List.of(8, 4, 2), batchSizes.stream().sorted(java.util.Comparator.reverseOrder()).toList());
+        verify(offsetManager).commit("trade-stream", 15L);
+        assertEquals(4.0, registry.get("trade.ingest.recovery.split.depth").summary().max());
+        // 1 failed + [0..7],[8..15] + [0..3],[4..7] + [4,5],[6,7] + 2 singles
+        assertEquals(9.0, registry.get("trade.ingest.recovery.transactions").summary().max());
+    }
+
+    @Test
+    void parallelWriters_unexpectedSingleFailure_isDeadLettered_andWatermarkAdvances() {
+        doAnswer(inv -> {
+            if (inv.<List<PendingStreamMessage>>getArgument(0).stream().anyMatch(m -> m.getOffset() == 5)) {
+                throw new IllegalStateException("bad row");
+            }
+            return null;
+        }).when(persistenceService).persistBatch(anyList(), any());
+        doThrow(new IllegalStateException("not a data error"))
+                .when(persistenceService).persistSingleSafely(argThat(m -> m.getOffset() == 5));
+        List<Long> committed = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> committed.add(inv.<Long>getArgument(1)))
+                .when(offsetManager).commit(eq("trade-stream"), anyLong());
+        IngestPipeline pipeline = pipeline(4, 2);
+
+        for (int i = 0; i < 12; i++) {
+            pipeline.addMessage(trade(i, "portfolio-" + (i % 3)));
+        }
+        pipeline.start(executor, 50);
+        pipeline.stop();
+
+        verify(persistenceService).saveToDlq(argThat(m -> m.getOffset() == 5), startsWith("Unexpected Error"));
+        assertEquals(11L, committed.get(committed.size() - 1));
+        assertEquals(1.0, registry.get("trade.ingest.fail").counter().count());
+    }
+
+    @Test
+    void parallelWriters_errorInPart_holdsWatermark_andHaltsPipeline() throws Exception {
+        doAnswer(inv -> {
+            if (inv.<List<PendingStreamMessage>>getArgument(0).stream().anyMatch(m -> m.getOffset() == 3)) {
+                throw new OutOfMemoryError("simulated");
+            }
+            return null;
+        }).when(persistenceService).persistBatch(anyList(), any());
+        List<Long> committed = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> committed.add(inv.<Long>getArgument(1)))
+                .when(offsetManager).commit(eq("trade-stream"), anyLong());
+        IngestPipeline pipeline = pipeline(2, 2);
+
+        for (int i = 0; i < 4; i++) {
+            pipeline.addMessage(trade(i, "portfolio-a"));
+        }
+        pipeline.start(executor, 50);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (registry.get("trade.ingest.halted").gauge().value() != 1.0) {
+                Thread.sleep(10);
+            }
+        });
+
+        // Arrivals after the failure are no longer drained, not even by the shutdown drain
+        for (int i = 4; i < 8; i++) {
+            pipeline.addMessage(trade(i, "portfolio-a"));
+        }
+        Thread.sleep(200);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), pipeline::stop);
+
+        verify(persistenceService, never()).persistBatch(argThat(b -> b.get(0).getOffset() >= 4), any());
+        assertTrue(committed.stream().allMatch(o -> o < 2), "committed " + committed);
+        assertEquals(2.0, registry.get("trade.ingest.fail").counter().count());
+        assertEquals(1.0, registry.get("trade.ingest.watermark.pending").gauge().value());
+    }
+
+    private IngestPipeline pipeline(int maxBatchSize) {
+        return pipeline(maxBatchSize, 1);
+    }
+
+    private IngestPipeline pipeline(int maxBatchSize, int workers) {
+        return new IngestPipeline("trade-stream", persistenceService, offsetManager,
+                IngestBuffer.create("queue", 1000, null),
+                mock(StreamConsumerManager.class), mock(RttmEventEmitter.class),
+                new AppMetrics(registry), "svc", maxBatchSize, 50, 10, workers, true);
+    }
+
+    private PendingStreamMessage trade(long offset, String portfolioId) {
+        MessageHandler.Context context = mock(MessageHandler.Context.class);
+        TradeEventProto proto = TradeEventProto.newBuilder()
+                .setPortfolioId(portfolioId)
+                .setTradeId("t-" + offset)
+                .build();
+        return new PendingStreamMessage(proto, proto.toByteArray(), offset, context);
+    }
+
+    private PendingStreamMessage msg(long offset) {
+        return new PendingStreamMessage(new byte[0], offset, "test", mock(MessageHandler.Context.class));
+    }
+}
@@ -0,0 +1,50 @@
+package com.pms.pms_trade_capture.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+
+class OffsetWatermarkTest {
+
+    private final List<Long> committed = new ArrayList<>();
+    private final OffsetWatermark watermark = new OffsetWatermark(msg -> committed.add(msg.getOffset()));
+
+    @Test
+    void outOfOrderCompletion_commitsOnlyContiguousPrefix() {
+        long b1 = watermark.register(msg(10));
+        long b2 = watermark.register(msg(20));
+        long b3 = watermark.register(msg(30));
+
+        watermark.complete(b2);
+        watermark.complete(b3);
+        assertEquals(List.of(), committed);
+
+        watermark.complete(b1);
+        // One commit for the highest contiguous offset, not one per batch
+        assertEquals(List.of(30L), committed);
+        assertEquals(0, watermark.pendingCount());
+    }
+
+    @Test
+    void batchWithoutCommitMessage_doesNotBlockWatermark() {
+        long b1 = watermark.register(msg(10));
+        long b2 = watermark.register(null);
+        long b3 = watermark.register(msg(30));
+
+        watermark.complete(b1);
+        watermark.complete(b2);
+        assertEquals(List.of(10L), committed);
+
+        watermark.complete(b3);
+        assertEquals(List.of(10L, 30L), committed);
+    }
+
+    private PendingStreamMessage msg(long offset) {
+        return new PendingStreamMessage(new byte[0], offset, "test", null);
+    }
+}
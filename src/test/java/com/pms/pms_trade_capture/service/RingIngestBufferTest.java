@@ -0,0 +1,120 @@
+package com.pms.pms_trade_capture.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.pms.pms_trade_capture.domain.PendingStreamMessage;
+
+class RingIngestBufferTest {
+
+    @Test
+    void offer_respectsLogicalCapacity_notRoundedSlotCount() {
+        RingIngestBuffer buffer = new RingIngestBuffer(3, RingWaitStrategy.of("blocking"));
+
+        assertTrue(buffer.offer(msg(0)));
+        assertTrue(buffer.offer(msg(1)));
+        assertTrue(buffer.offer(msg(2)));
+        assertFalse(buffer.offer(msg(3)));
+        assertEquals(3, buffer.size());
+    }
+
+    @Test
+    void drainTo_claimsInOrder_andFreesSlots() {
+        RingIngestBuffer buffer = new RingIngestBuffer(4, RingWaitStrategy.of("blocking"));
+        for (int i = 0; i < 4; i++) {
+            buffer.offer(msg(i));
+        }
+
+        List<PendingStreamMessage> sink = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(sink, 3));
+        assertEquals(List.of(0L, 1L, 2L), sink.stream().map(PendingStreamMessage::getOffset).toList());
+
+        // Wraps around the slot array
+        assertTrue(buffer.offer(msg(4)));
+        sink.clear();
+        buffer.drainTo(sink, 10);
+        assertEquals(List.of(3L, 4L), sink.stream().map(PendingStreamMessage::getOffset).toList());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void externalMessages_areDrainedAheadOfRing() {
+        RingIngestBuffer buffer = new RingIngestBuffer(4, RingWaitStrategy.of("blocking"));
+        buffer.offer(msg(1));
+        buffer.addExternal(msg(99));
+
+        List<PendingStreamMessage> sink = new ArrayList<>();
+        buffer.drainTo(sink, 10);
+
+        assertEquals(List.of(99L, 1L), sink.stream().map(PendingStreamMessage::getOffset).toList());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocking", "sleeping", "yielding", "busy-spin" })
+    void timedDrain_returnsEmptyOnTimeout_andWakesOnPublish(String strategy) throws Exception {
+        RingIngestBuffer buffer = new RingIngestBuffer(8, RingWaitStrategy.of(strategy));
+        List<PendingStreamMessage> sink = new ArrayList<>();
+
+        assertEquals(0, buffer.drainTo(sink, 10, 5, TimeUnit.MILLISECONDS));
+
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            buffer.offer(msg(1));
+        });
+        producer.start();
+
+        long start = System.nanoTime();
+        assertEquals(1, buffer.drainTo(sink, 10, 5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "woke on publish, not on timeout");
+        producer.join();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocking", "sleeping", "yielding", "busy-spin" })
+    void put_waitsForConsumer_andPreservesOrder(String strategy) throws Exception {
+        RingIngestBuffer buffer = new RingIngestBuffer(16, RingWaitStrategy.of(strategy));
+        int total = 20_000;
+
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < total; i++) {
+                    buffer.put(msg(i));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        List<PendingStreamMessage> received = new ArrayList<>(total);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (received.size() < total && System.nanoTime() < deadline) {
+            if (buffer.drainTo(received, 7) == 0) {
+                Thread.onSpinWait();
+            }
+        }
+        producer.join(1000);
+
+        assertEquals(total, received.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(i, received.get(i).getOffset());
+        }
+    }
+
+    private PendingStreamMessage msg(long offset) {
+        return new PendingStreamMessage(new byte[0], offset, "test", null);
+    }
+}
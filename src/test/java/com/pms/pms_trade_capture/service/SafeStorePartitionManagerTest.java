@@ -0,0 +1,118 @@
+package com.pms.pms_trade_capture.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.pms.pms_trade_capture.service.SafeStorePartitionManager.Partition;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SafeStorePartitionManagerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 17, 13, 45);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private SafeStorePartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new SafeStorePartitionManager(jdbcTemplate, registry, Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(manager, "interval", "daily");
+        ReflectionTestUtils.setField(manager, "premake", 2);
+        ReflectionTestUtils.setField(manager, "retention", Duration.ofDays(30));
+        ReflectionTestUtils.setField(manager, "expiredAction", "detach");
+    }
+
+    @Test
+    void parse_readsRangeBounds() {
+        Partition legacy = SafeStorePartitionManager.parse("safe_store_trade_legacy",
+                "FOR VALUES FROM (MINVALUE) TO ('2026-10-18 00:00:00')");
+        Partition day = SafeStorePartitionManager.parse("safe_store_trade_p20261018",
+                "FOR VALUES FROM ('2026-10-18 00:00:00') TO ('2026-10-19 00:00:00')");
+
+        assertNull(legacy.from());
+        assertEquals(LocalDateTime.of(2026, 10, 18, 0, 0), legacy.to());
+        assertEquals(LocalDateTime.of(2026, 10, 18, 0, 0), day.from());
+        assertEquals(LocalDateTime.of(2026, 10, 19, 0, 0), day.to());
+        assertNull(SafeStorePartitionManager.parse("safe_store_trade_default", "DEFAULT"));
+    }
+
+    @Test
+    void createAhead_skipsRangesAlreadyCovered() {
+        // Legacy partition covers today, the migration created tomorrow
+        List<Partition> partitions = new ArrayList<>(List.of(
+                new Partition("safe_store_trade_legacy", null, LocalDateTime.of(2026, 10, 18, 0, 0)),
+                new Partition("safe_store_trade_p20261018", LocalDateTime.of(2026, 10, 18, 0, 0),
+                        LocalDateTime.of(2026, 10, 19, 0, 0))));
+
+        manager.createAhead(NOW, partitions);
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS safe_store_trade_p20261019 PARTITION OF "
+                + "safe_store_trade FOR VALUES FROM ('2026-10-19T00:00') TO ('2026-10-20T00:00')");
+        verify(jdbcTemplate).execute(
+                "CREATE UNIQUE INDEX IF NOT EXISTS safe_store_trade_p20261019_trade_id_key ON safe_store_trade_p20261019 (trade_id)");
+        verify(jdbcTemplate, never()).execute(
+                contains("safe_store_trade_p20261017 PARTITION OF"));
+        assertEquals(3, partitions.size());
+        assertEquals(1.0, registry.get("trade.db.partitions.created").counter().count());
+    }
+
+    @Test
+    void createAhead_hourlyNamesIncludeHour() {
+        ReflectionTestUtils.setField(manager, "interval", "hourly");
+        ReflectionTestUtils.setField(manager, "premake", 1);
+
+        manager.createAhead(NOW, new ArrayList<>());
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS safe_store_trade_p2026101713 PARTITION OF "
+                + "safe_store_trade FOR VALUES FROM ('2026-10-17T13:00') TO ('2026-10-17T14:00')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS safe_store_trade_p2026101714 PARTITION OF "
+                + "safe_store_trade FOR VALUES FROM ('2026-10-17T14:00') TO ('2026-10-17T15:00')");
+    }
+
+    @Test
+    void expire_detachesOnlyPartitionsOlderThanRetention() {
+        List<Partition> partitions = new ArrayList<>(List.of(
+                new Partition("safe_store_trade_p20260901", LocalDateTime.of(2026, 9, 1, 0, 0),
+                        LocalDateTime.of(2026, 9, 2, 0, 0)),
+                new Partition("safe_store_trade_p20261001", LocalDateTime.of(2026, 10, 1, 0, 0),
+                        LocalDateTime.of(2026, 10, 2, 0, 0))));
+
+        manager.expire(NOW, partitions);
+
+        verify(jdbcTemplate).execute("ALTER TABLE safe_store_trade DETACH PARTITION safe_store_trade_p20260901 CONCURRENTLY");
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+        assertEquals(1, partitions.size());
+        assertEquals(1.0, registry.get("trade.db.partitions.expired").counter().count());
+    }
+
+    @Test
+    void expire_dropActionDropsDetachedTable() {
+        ReflectionTestUtils.setField(manager, "expiredAction", "drop");
+        List<Partition> partitions = new ArrayList<>(List.of(
+                new Partition("safe_store_trade_p20260901", LocalDateTime.of(2026, 9, 1, 0, 0),
+                        LocalDateTime.of(2026, 9, 2, 0, 0))));
+
+        manager.expire(NOW, partitions);
+
+        verify(jdbcTemplate).execute("DROP TABLE safe_store_trade_p20260901");
+        verify(jdbcTemplate, never()).execute(contains("p20261001"));
+    }
+}
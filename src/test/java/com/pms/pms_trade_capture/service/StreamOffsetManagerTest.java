@@ -0,0 +1,73 @@
+package com.pms.pms_trade_capture.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.rabbitmq.stream.Consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StreamOffsetManagerTest {
+
+    private final Consumer consumer = mock(Consumer.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private StreamOffsetManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new StreamOffsetManager(mock(ScheduledExecutorService.class), registry);
+        ReflectionTestUtils.setField(manager, "maxPendingMessages", 100L);
+        manager.registerStreamConsumer("s-0", consumer);
+    }
+
+    @Test
+    void commits_areCoalescedUntilPendingThreshold() {
+        manager.commit("s-0", 10);
+        manager.commit("s-0", 50);
+        verify(consumer, never()).store(anyLong());
+
+        manager.commit("s-0", 120);
+        verify(consumer).store(120);
+        assertEquals(120, manager.getLastStoredOffset("s-0"));
+        assertEquals(120.0, registry.get("trade.ingest.offset.last.stored").tag("stream", "s-0").gauge().value());
+        assertEquals(1, registry.get("trade.ingest.offset.store.latency").tag("stream", "s-0").timer().count());
+    }
+
+    @Test
+    void flush_storesPendingWatermark_once() {
+        manager.commit("s-0", 42);
+        manager.flush();
+        manager.flush();
+
+        verify(consumer).store(42);
+    }
+
+    @Test
+    void lowerOffsets_neverMoveWatermarkBack() {
+        manager.commit("s-0", 42);
+        manager.commit("s-0", 7);
+        manager.flush();
+
+        verify(consumer).store(42);
+        verify(consumer, never()).store(7);
+    }
+
+    @Test
+    void unregister_storesPendingOffsetBeforeDetaching() {
+        manager.commit("s-0", 5);
+        manager.unregisterStreamConsumer("s-0");
+        manager.commit("s-0", 500);
+
+        verify(consumer).store(5);
+        verify(consumer, never()).store(500);
+    }
+}
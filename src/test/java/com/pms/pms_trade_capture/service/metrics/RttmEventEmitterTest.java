@@ -0,0 +1,169 @@
+package com.pms.pms_trade_capture.service.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.pms.rttm.client.clients.RttmClient;
+import com.pms.rttm.client.dto.ErrorEventPayload;
+import com.pms.rttm.client.dto.TradeEventPayload;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RttmEventEmitterTest {
+
+    private RttmClient rttmClient;
+    private SimpleMeterRegistry registry;
+    private RttmEventEmitter emitter;
+    private final List<String> sentTradeIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        rttmClient = mock(RttmClient.class);
+        registry = new SimpleMeterRegistry();
+        when(rttmClient.sendTradeEventAsync(any())).thenAnswer(inv -> {
+            sentTradeIds.add(inv.<TradeEventPayload>getArgument(0).getTradeId());
+            return CompletableFuture.completedFuture(null);
+        });
+        emitter = new RttmEventEmitter(rttmClient, registry);
+        ReflectionTestUtils.setField(emitter, "capacity", 3);
+        ReflectionTestUtils.setField(emitter, "batchSize", 2);
+        ReflectionTestUtils.setField(emitter, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(emitter, "sendTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(emitter, "overflowPolicy", "drop-oldest");
+    }
+
+    @Test
+    void emit_neverCallsClientOnCallerThread() {
+        emitter.emit(trade("t1"));
+
+        verify(rttmClient, never()).sendTradeEventAsync(any());
+        assertEquals(1.0, registry.get("rttm.emitter.queue.depth").gauge().value());
+    }
+
+    @Test
+    void dropOldest_keepsNewestEvents() {
+        for (int i = 1; i <= 5; i++) {
+            emitter.emit(trade("t" + i));
+        }
+        assertEquals(2.0, registry.get("rttm.emitter.dropped").counter().count());
+
+        emitter.stop(); // final drain
+
+        assertEquals(List.of("t3", "t4", "t5"), sentTradeIds);
+        assertEquals(3.0, registry.get("rttm.emitter.sent").counter().count());
+        assertEquals(0.0, registry.get("rttm.emitter.queue.depth").gauge().value());
+    }
+
+    @Test
+    void dropNewest_rejectsIncomingEvents() {
+        ReflectionTestUtils.setField(emitter, "overflowPolicy", "drop-newest");
+        for (int i = 1; i <= 5; i++) {
+            emitter.emit(trade("t" + i));
+        }
+
+        emitter.stop();
+
+        assertEquals(List.of("t1", "t2", "t3"), sentTradeIds);
+        assertEquals(2.0, registry.get("rttm.emitter.dropped").counter().count());
+    }
+
+    @Test
+    void clientFailure_isCountedNotThrown() {
+        when(rttmClient.sendErrorEventAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("rttm down")));
+        emitter.emit(ErrorEventPayload.builder().serviceName("svc").errorType("X").errorMessage("m").build());
+        emitter.emit(trade("t1"));
+
+        emitter.stop();
+
+        assertEquals(1.0, registry.get("rttm.emitter.failed").counter().count());
+        assertEquals(1.0, registry.get("rttm.emitter.sent").counter().count());
+    }
+
+    @Test
+    void stop_withRttmUnresponsive_boundsFinalDrain_andCountsRemainderAsDropped() {
+        ReflectionTestUtils.setField(emitter, "capacity", 100);
+        ReflectionTestUtils.setField(emitter, "sendTimeoutMs", 200L);
+        doReturn(new CompletableFuture<Void>()).when(rttmClient).sendTradeEventAsync(any()); // never completes
+        for (int i = 1; i <= 20; i++) {
+            emitter.emit(trade("t" + i));
+        }
+
+        // 10 batches at 200 ms each without the overall deadline
+        assertTimeoutPreemptively(Duration.ofMillis(1000), () -> emitter.stop());
+
+        // the first batch was sent (and is still in flight), the rest never left the queue
+        assertEquals(18.0, registry.get("rttm.emitter.dropped").counter().count());
+        assertEquals(0.0, registry.get("rttm.emitter.queue.depth").gauge().value());
+    }
+
+    @Test
+    void backgroundThread_deliversQueuedEvents() throws Exception {
+        emitter.start();
+        emitter.emit(trade("t1"));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (registry.get("rttm.emitter.sent").counter().count() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        emitter.stop();
+
+        assertEquals(List.of("t1"), sentTradeIds);
+    }
+
+    @Test
+    void concurrentProducers_dropOldest_keepQueueAtCapacity_andCountEveryDrop() throws Exception {
+        ReflectionTestUtils.setField(emitter, "capacity", 100);
+        int producers = 8;
+        int perProducer = 5000;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            pool.execute(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    emitter.emit(trade(producer + "-" + i));
+                }
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100.0, registry.get("rttm.emitter.queue.depth").gauge().value());
+        assertEquals(producers * perProducer - 100.0, registry.get("rttm.emitter.dropped").counter().count());
+
+        emitter.stop();
+
+        assertEquals(100, sentTradeIds.size());
+    }
+
+    private TradeEventPayload trade(String id) {
+        return TradeEventPayload.builder().serviceName("svc").tradeId(id).build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.pms.pms_trade_capture.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+
+import com.rabbitmq.stream.ConsumerFlowStrategy;
+import com.rabbitmq.stream.MessageHandler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CreditFlowControllerTest {
+
+    @Test
+    void creditGranted_onlyAfterWholeChunkProcessed() {
+        CreditFlowController controller = new CreditFlowController("s", 2, 100, new SimpleMeterRegistry());
+        ConsumerFlowStrategy.Context chunk = chunkOf(3);
+
+        ConsumerFlowStrategy.MessageProcessedCallback callback = controller.start(chunk);
+        assertEquals(3, controller.getInFlightMessages());
+
+        callback.processed(mock(MessageHandler.Context.class));
+        callback.processed(mock(MessageHandler.Context.class));
+        verify(chunk, never()).credits(1);
+
+        callback.processed(mock(MessageHandler.Context.class));
+        verify(chunk, times(1)).credits(1);
+        assertEquals(0, controller.getInFlightMessages());
+        assertEquals(0, controller.getInFlightChunks());
+    }
+
+    @Test
+    void creditDeferred_whileBufferSaturated_andReleasedOnDrain() {
+        CreditFlowController controller = new CreditFlowController("s", 2, 3, new SimpleMeterRegistry());
+        ConsumerFlowStrategy.Context small = chunkOf(1);
+        ConsumerFlowStrategy.Context large = chunkOf(4);
+
+        ConsumerFlowStrategy.MessageProcessedCallback smallCb = controller.start(small);
+        ConsumerFlowStrategy.MessageProcessedCallback largeCb = controller.start(large);
+
+        // Small chunk drained while 4 messages are still buffered (limit 3) -> deferred
+        smallCb.processed(mock(MessageHandler.Context.class));
+        verify(small, never()).credits(1);
+        assertEquals(1, controller.getDeferredCredits());
+
+        // Draining the large chunk frees capacity -> both credits go back
+        for (int i = 0; i < 4; i++) {
+            largeCb.processed(mock(MessageHandler.Context.class));
+        }
+        verify(small, times(1)).credits(1);
+        verify(large, times(1)).credits(1);
+        assertEquals(0, controller.getDeferredCredits());
+    }
+
+    private ConsumerFlowStrategy.Context chunkOf(long messages) {
+        ConsumerFlowStrategy.Context chunk = mock(ConsumerFlowStrategy.Context.class);
+        when(chunk.messageCount()).thenReturn(messages);
+        return chunk;
+    }
+}
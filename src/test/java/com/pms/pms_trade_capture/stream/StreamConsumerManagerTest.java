@@ -0,0 +1,90 @@
+package com.pms.pms_trade_capture.stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.pms.pms_trade_capture.config.RabbitStreamConfig;
+import com.pms.pms_trade_capture.service.StreamOffsetManager;
+import com.rabbitmq.stream.Consumer;
+import com.rabbitmq.stream.ConsumerBuilder;
+import com.rabbitmq.stream.Environment;
+import com.rabbitmq.stream.Message;
+import com.rabbitmq.stream.MessageHandler;
+import com.rabbitmq.stream.OffsetSpecification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StreamConsumerManagerTest {
+
+    private final Consumer consumer = mock(Consumer.class);
+    private final ConsumerBuilder builder = mock(ConsumerBuilder.class);
+    private final TradeStreamHandler handler = mock(TradeStreamHandler.class);
+    private StreamOffsetManager offsetManager;
+    private StreamConsumerManager consumerManager;
+
+    @BeforeEach
+    void setUp() {
+        Environment environment = mock(Environment.class);
+        when(environment.consumerBuilder()).thenReturn(builder);
+        when(builder.stream(anyString())).thenReturn(builder);
+        when(builder.name(anyString())).thenReturn(builder);
+        when(builder.offset(any())).thenReturn(builder);
+        when(builder.messageHandler(any())).thenReturn(builder);
+        ConsumerBuilder.ManualTrackingStrategy manual = mock(ConsumerBuilder.ManualTrackingStrategy.class);
+        when(builder.manualTrackingStrategy()).thenReturn(manual);
+        when(manual.builder()).thenReturn(builder);
+        when(builder.build()).thenReturn(consumer);
+
+        RabbitStreamConfig rabbitConfig = mock(RabbitStreamConfig.class);
+        when(rabbitConfig.getPartitionStreams()).thenReturn(List.of("s-0"));
+        when(rabbitConfig.getConsumerName()).thenReturn("trade-capture");
+        StreamCheckpoints checkpoints = mock(StreamCheckpoints.class);
+        when(checkpoints.startOffset("s-0")).thenReturn(OffsetSpecification.first());
+
+        offsetManager = new StreamOffsetManager(mock(ScheduledExecutorService.class), new SimpleMeterRegistry());
+        consumerManager = new StreamConsumerManager(environment, rabbitConfig, handler, offsetManager,
+                checkpoints, new SimpleMeterRegistry());
+        consumerManager.start();
+    }
+
+    @Test
+    void shutdown_storesOffsetsCommittedByIngestDrain_beforeClosingConsumer() throws Exception {
+        // Lifecycle order: consumers (MAX), ingest drain (MAX - 1000), offsets (MAX - 1500), destroy
+        consumerManager.stop();
+        offsetManager.commit("s-0", 42); // final drain of the ingest buffer
+        offsetManager.stop();
+        consumerManager.destroy();
+
+        InOrder order = inOrder(consumer);
+        order.verify(consumer).store(42);
+        order.verify(consumer).close();
+    }
+
+    @Test
+    void afterStop_deliveriesAreNotHandedToIngest() {
+        ArgumentCaptor<MessageHandler> registered = ArgumentCaptor.forClass(MessageHandler.class);
+        verify(builder).messageHandler(registered.capture());
+        MessageHandler.Context context = mock(MessageHandler.Context.class);
+        Message message = mock(Message.class);
+
+        registered.getValue().handle(context, message);
+        consumerManager.stop();
+        registered.getValue().handle(context, message);
+
+        verify(handler).handle(context, message);
+        verify(consumer, never()).close();
+    }
+}
@@ -0,0 +1,93 @@
+package com.pms.pms_trade_capture.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.Timestamp;
+import com.pms.pms_trade_capture.dto.TradeEventScanner;
+import com.pms.pms_trade_capture.dto.ValidatedTrade;
+import com.pms.pms_trade_capture.utils.PortfolioIdCache;
+import com.pms.trade_capture.proto.TradeEventProto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TradeValidatorTest {
+
+    private final UUID portfolioId = UUID.randomUUID();
+    private final UUID tradeId = UUID.randomUUID();
+
+    private SimpleMeterRegistry registry;
+    private TradeValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        validator = new TradeValidator(new PortfolioIdCache(100, registry), registry, new String[] { "BUY", "SELL" });
+    }
+
+    @Test
+    void validTrade_isParsedAndNormalized() {
+        TradeValidator.Outcome outcome = validator.validate(trade().setSymbol(" aapl ").setSide("buy").build());
+
+        assertTrue(outcome.isValid());
+        ValidatedTrade v = outcome.trade();
+        assertEquals(portfolioId, v.portfolioId());
+        assertEquals(tradeId, v.tradeId());
+        assertEquals("AAPL", v.symbol());
+        assertEquals("BUY", v.side());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0), v.eventTimestamp());
+    }
+
+    @Test
+    void scannedTrade_getsTheSameChecks() throws Exception {
+        byte[] bytes = trade().setSide("HOLD").build().toByteArray();
+
+        TradeValidator.Outcome outcome = validator.validate(TradeEventScanner.scan(bytes));
+
+        assertFalse(outcome.isValid());
+        assertTrue(outcome.error().startsWith("Unknown side"));
+    }
+
+    @Test
+    void schemaViolations_areRejectedWithReason() {
+        assertRejected(trade().setTradeId("not-a-uuid"), "trade_id");
+        assertRejected(trade().setPortfolioId("xyz"), "portfolio_id");
+        assertRejected(trade().setSymbol("A".repeat(21)), "symbol");
+        assertRejected(trade().setSymbol("  "), "symbol");
+        assertRejected(trade().setSide("SELL_SHORT_EXEMPT"), "side");
+        assertRejected(trade().clearTimestamp(), "timestamp");
+        assertRejected(trade().setPricePerStock(Double.NaN), "price");
+        assertRejected(trade().setTradeId(""), "id");
+    }
+
+    private void assertRejected(TradeEventProto.Builder builder, String field) {
+        double before = rejected(field);
+        TradeValidator.Outcome outcome = validator.validate(builder.build());
+        assertFalse(outcome.isValid(), field);
+        assertEquals(before + 1, rejected(field), field);
+    }
+
+    private double rejected(String field) {
+        Counter counter = registry.find("trade.ingest.validation.rejected").tag("field", field).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private TradeEventProto.Builder trade() {
+        return TradeEventProto.newBuilder()
+                .setPortfolioId(portfolioId.toString())
+                .setTradeId(tradeId.toString())
+                .setSymbol("AAPL")
+                .setSide("BUY")
+                .setPricePerStock(10.0)
+                .setQuantity(5)
+                .setTimestamp(Timestamp.newBuilder().setSeconds(1704067200L));
+    }
+}
@@ -0,0 +1,97 @@
+package com.pms.pms_trade_capture.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BlockIdAllocatorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void handsOutContiguousIdsAcrossBlocks() {
+        AtomicLong sequence = new AtomicLong(1);
+        BlockIdAllocator allocator = new BlockIdAllocator("seq",
+                name -> new BlockIdAllocator.Block(sequence.getAndAdd(4), 4), Runnable::run, 0.5, registry);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(allocator.next());
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ids);
+        assertEquals(10.0, registry.get("trade.ingest.id.allocated").counter().count());
+    }
+
+    @Test
+    void prefetchesNextBlockBeforeCurrentRunsOut() {
+        AtomicInteger fetches = new AtomicInteger();
+        BlockIdAllocator allocator = new BlockIdAllocator("seq",
+                name -> new BlockIdAllocator.Block(1000L * fetches.incrementAndGet(), 10), Runnable::run, 0.5, registry);
+
+        allocator.prefetch();
+        for (int i = 0; i < 5; i++) {
+            allocator.next();
+        }
+
+        // First block plus the one prefetched at the 50% mark; no caller waited
+        assertEquals(2, fetches.get());
+        assertEquals(0.0, registry.get("trade.ingest.id.stalls").counter().count());
+    }
+
+    @Test
+    void fetchFailure_propagates_andNextCallRetries() {
+        AtomicInteger attempts = new AtomicInteger();
+        BlockIdAllocator allocator = new BlockIdAllocator("seq", name -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("db down");
+            }
+            return new BlockIdAllocator.Block(100, 10);
+        }, Runnable::run, 0.5, registry);
+
+        assertThrows(IllegalStateException.class, allocator::next);
+        assertEquals(100L, allocator.next());
+    }
+
+    @Test
+    void concurrentCallers_neverReceiveTheSameId() throws Exception {
+        AtomicLong sequence = new AtomicLong(1);
+        ExecutorService prefetch = Executors.newSingleThreadExecutor();
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            BlockIdAllocator allocator = new BlockIdAllocator("seq",
+                    name -> new BlockIdAllocator.Block(sequence.getAndAdd(50), 50), prefetch, 0.5, registry);
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(callers.submit(() -> {
+                    List<Long> ids = new ArrayList<>();
+                    for (int i = 0; i < 1000; i++) {
+                        ids.add(allocator.next());
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> unique = new HashSet<>();
+            for (Future<List<Long>> f : results) {
+                unique.addAll(f.get());
+            }
+            assertEquals(4000, unique.size());
+        } finally {
+            prefetch.shutdownNow();
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.pms.pms_trade_capture.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IngestHorizonTest {
+
+    private final IdAllocators idAllocators = mock(IdAllocators.class);
+    private final BlockIdAllocator allocator = mock(BlockIdAllocator.class);
+    private IngestHorizon horizon;
+
+    @BeforeEach
+    void setUp() {
+        when(idAllocators.safeStoreTrade()).thenReturn(allocator);
+        horizon = new IngestHorizon(idAllocators);
+    }
+
+    @Test
+    void current_isAllocatorPositionWhenNothingInFlight() {
+        when(allocator.peekNext()).thenReturn(42L);
+
+        assertEquals(42L, horizon.current());
+    }
+
+    @Test
+    void current_isHeldAtOldestOpenTransaction() {
+        when(allocator.peekNext()).thenReturn(10L, 20L, 30L);
+
+        long first = horizon.enter();
+        long second = horizon.enter();
+        assertEquals(10L, horizon.current());
+
+        horizon.exit(first);
+        assertEquals(20L, horizon.current());
+
+        horizon.exit(second);
+        assertEquals(30L, horizon.current());
+    }
+
+    @Test
+    void current_countsTransactionsSharingAFloor() {
+        when(allocator.peekNext()).thenReturn(10L, 10L, 50L);
+
+        long first = horizon.enter();
+        horizon.enter();
+        horizon.exit(first);
+
+        assertEquals(10L, horizon.current());
+    }
+}
@@ -0,0 +1,35 @@
+package com.pms.pms_trade_capture.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PayloadArrayCodecTest {
+
+    @Test
+    void roundTrip_keepsOrderAndEmptyPayloads() throws IOException {
+        byte[] large = new byte[300];
+        large[299] = 7;
+        List<byte[]> payloads = List.of(new byte[] { 1, 2, 3 }, new byte[0], large);
+
+        List<byte[]> decoded = PayloadArrayCodec.decode(PayloadArrayCodec.encode(payloads), 3);
+
+        assertEquals(3, decoded.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            assertArrayEquals(payloads.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    void decode_rejectsCountMismatch() {
+        byte[] encoded = PayloadArrayCodec.encode(List.of(new byte[] { 1 }, new byte[] { 2 }));
+
+        assertThrows(IOException.class, () -> PayloadArrayCodec.decode(encoded, 1));
+        assertThrows(IOException.class, () -> PayloadArrayCodec.decode(encoded, 3));
+    }
+}
@@ -0,0 +1,130 @@
+package com.pms.pms_trade_capture.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.pms.pms_trade_capture.repository.PayloadDictionaryRepository;
+import com.pms.trade_capture.proto.TradeEventProto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PayloadCodecTest {
+
+    private static final String[] SYMBOLS = { "AAPL", "MSFT", "GOOG", "AMZN", "NVDA" };
+
+    private final PayloadDictionaryRepository repository = mock(PayloadDictionaryRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static byte[] trade(int i) {
+        return TradeEventProto.newBuilder()
+                .setPortfolioId(UUID.randomUUID().toString())
+                .setTradeId(UUID.randomUUID().toString())
+                .setSymbol(SYMBOLS[i % SYMBOLS.length])
+                .setSide(i % 2 == 0 ? "BUY" : "SELL")
+                .setPricePerStock(100 + i % 7)
+                .setQuantity(10 + i % 3)
+                .build().toByteArray();
+    }
+
+    private static byte[] trainDictionary() {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            samples.add(trade(i));
+        }
+        ZstdDictTrainer trainer = new ZstdDictTrainer(samples.size() * 200, 4096);
+        samples.forEach(trainer::addSample);
+        return trainer.trainSamples();
+    }
+
+    @Test
+    void disabled_storesPayloadUnchanged() {
+        PayloadCodec codec = new PayloadCodec(repository, false, 3, registry);
+        byte[] payload = trade(1);
+
+        assertSame(payload, codec.encode(payload));
+        assertSame(payload, codec.decode(payload));
+    }
+
+    @Test
+    void dictionary_roundTripsAndShrinksSmallPayloads() {
+        byte[] dictionary = trainDictionary();
+        PayloadCodec codec = new PayloadCodec(repository, true, 3, registry);
+        codec.activate(Zstd.getDictIdFromDict(dictionary), dictionary);
+        byte[] payload = trade(42);
+
+        byte[] stored = codec.encode(payload);
+
+        assertEquals(PayloadCodec.MARKER, stored[0]);
+        assertEquals(PayloadCodec.VERSION_ZSTD, stored[1]);
+        assertTrue(stored.length < payload.length, stored.length + " >= " + payload.length);
+        assertArrayEquals(payload, codec.decode(stored));
+    }
+
+    @Test
+    void decode_loadsDictionaryTrainedElsewhere() {
+        byte[] dictionary = trainDictionary();
+        long dictId = Zstd.getDictIdFromDict(dictionary);
+        PayloadCodec writer = new PayloadCodec(repository, true, 3, registry);
+        writer.activate(dictId, dictionary);
+        byte[] stored = writer.encode(trade(7));
+
+        PayloadCodec reader = new PayloadCodec(repository, false, 3, registry);
+        when(repository.find(dictId)).thenReturn(Optional.of(new PayloadDictionaryRepository.Dictionary(dictId, dictionary)));
+
+        assertEquals("GOOG", parseSymbol(reader.decode(stored)));
+    }
+
+    @Test
+    void incompressiblePayloadStartingWithMarker_isEscaped() {
+        PayloadCodec codec = new PayloadCodec(repository, true, 3, registry);
+        byte[] garbage = { 0x00, 0x01, 0x7F };
+
+        byte[] stored = codec.encode(garbage);
+
+        assertArrayEquals(new byte[] { 0x00, 0x00, 0x00, 0x01, 0x7F }, stored);
+        assertArrayEquals(garbage, codec.decode(stored));
+    }
+
+    @Test
+    void disabled_payloadStartingWithMarker_isEscaped() {
+        PayloadCodec codec = new PayloadCodec(repository, false, 3, registry);
+        // Looks like a version-0 frame if stored as is
+        byte[] garbage = { 0x00, 0x00, 0x2A };
+
+        byte[] stored = codec.encode(garbage);
+
+        assertArrayEquals(new byte[] { 0x00, 0x00, 0x00, 0x00, 0x2A }, stored);
+        assertArrayEquals(garbage, codec.decode(stored));
+    }
+
+    @Test
+    void decode_corruptFrame_throwsIllegalArgument() {
+        PayloadCodec codec = new PayloadCodec(repository, true, 3, registry);
+        byte[] stored = codec.encode(new byte[400]);
+        byte[] truncated = java.util.Arrays.copyOf(stored, stored.length - 3);
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(truncated));
+    }
+
+    private static String parseSymbol(byte[] payload) {
+        try {
+            return TradeEventProto.parseFrom(payload).getSymbol();
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pms.pms_trade_capture.utils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RecentTradeIdFilterTest {
+
+    @Test
+    void putIds_areAlwaysReported() {
+        RecentTradeIdFilter filter = new RecentTradeIdFilter(60_000, 10_000, 0.01, new SimpleMeterRegistry());
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            filter.put(id);
+        }
+        for (UUID id : ids) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void falsePositiveRate_staysNearConfiguredRate() {
+        RecentTradeIdFilter filter = new RecentTradeIdFilter(60_000, 10_000, 0.01, new SimpleMeterRegistry());
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID());
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void idsExpireAfterTwoWindows() throws Exception {
+        RecentTradeIdFilter filter = new RecentTradeIdFilter(30, 1_000, 0.01, new SimpleMeterRegistry());
+        UUID id = UUID.randomUUID();
+        filter.put(id);
+
+        Thread.sleep(40);
+        assertTrue(filter.mightContain(id), "still in previous generation");
+
+        Thread.sleep(40);
+        assertFalse(filter.mightContain(id));
+    }
+}
@@ -0,0 +1,70 @@
+package com.pms.pms_trade_capture.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.pms.pms_trade_capture.repository.SymbolDictionaryRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SymbolDictionaryTest {
+
+    private final SymbolDictionaryRepository repository = mock(SymbolDictionaryRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private SymbolDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findAll()).thenReturn(Map.of("AAPL", 1, "MSFT", 2));
+        dictionary = new SymbolDictionary(repository, mock(PlatformTransactionManager.class), registry);
+        dictionary.start();
+    }
+
+    @Test
+    void start_loadsBothDirections() {
+        assertEquals(1, dictionary.idOf("AAPL"));
+        assertEquals("MSFT", dictionary.symbolOf(2));
+        assertNull(dictionary.idOf("GOOG"));
+        assertEquals(2.0, registry.get("trade.db.symbols.size").gauge().value());
+    }
+
+    @Test
+    void registerAll_sendsOnlyUncachedSymbolsInOneCall() {
+        when(repository.register(Set.of("GOOG", "TSLA"))).thenReturn(Map.of("GOOG", 3, "TSLA", 4));
+
+        dictionary.registerAll(List.of("AAPL", "GOOG", "TSLA", "GOOG"));
+
+        verify(repository, times(1)).register(any());
+        assertEquals(3, dictionary.idOf("GOOG"));
+        assertEquals("TSLA", dictionary.symbolOf(4));
+        assertEquals(2.0, registry.get("trade.db.symbols.registered").counter().count());
+    }
+
+    @Test
+    void registerAll_allCached_noRoundTrip() {
+        dictionary.registerAll(List.of("AAPL", "MSFT"));
+
+        verify(repository, never()).register(any());
+    }
+
+    @Test
+    void symbolOf_unknownId_reloadsDictionary() {
+        when(repository.findAll()).thenReturn(Map.of("AAPL", 1, "MSFT", 2, "NVDA", 9));
+
+        assertEquals("NVDA", dictionary.symbolOf(9));
+    }
+}
@@ -0,0 +1,53 @@
+package com.pms.pms_trade_capture.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UuidCodecTest {
+
+    @Test
+    void parse_matchesUuidFromString() {
+        for (int i = 0; i < 1000; i++) {
+            UUID expected = UUID.randomUUID();
+            assertEquals(expected, UuidCodec.parse(expected.toString()));
+            assertEquals(expected, UuidCodec.parse(expected.toString().toUpperCase()));
+        }
+        assertEquals(new UUID(0L, 0L), UuidCodec.parse("00000000-0000-0000-0000-000000000000"));
+        assertEquals(new UUID(-1L, -1L), UuidCodec.parse("ffffffff-ffff-ffff-ffff-ffffffffffff"));
+    }
+
+    @Test
+    void parse_nonCanonicalFallsBack_andRejectsGarbage() {
+        assertEquals(UUID.fromString("1-2-3-4-5"), UuidCodec.parse("1-2-3-4-5"));
+        assertThrows(IllegalArgumentException.class, () -> UuidCodec.parse("not-a-uuid"));
+        assertThrows(IllegalArgumentException.class, () -> UuidCodec.parse("zzzzzzzz-0000-0000-0000-000000000000"));
+    }
+
+    @Test
+    void toAsciiBytes_matchesToStringBytes() {
+        UUID uuid = UUID.randomUUID();
+        assertArrayEquals(uuid.toString().getBytes(StandardCharsets.UTF_8), UuidCodec.toAsciiBytes(uuid));
+    }
+
+    @Test
+    void portfolioCache_reusesSameKeyForStringAndUuid() {
+        PortfolioIdCache cache = new PortfolioIdCache(10, new SimpleMeterRegistry());
+        UUID id = UUID.randomUUID();
+
+        PortfolioIdCache.PortfolioKey fromString = cache.intern(id.toString());
+        PortfolioIdCache.PortfolioKey fromUuid = cache.intern(new UUID(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+
+        assertSame(fromString, fromUuid);
+        assertSame(fromString, cache.intern(id.toString()));
+        assertArrayEquals(id.toString().getBytes(StandardCharsets.UTF_8), fromUuid.getKeyBytes());
+    }
+}